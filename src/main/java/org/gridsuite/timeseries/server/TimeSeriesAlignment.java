@@ -0,0 +1,141 @@
+/**
+ * Copyright (c) 2026, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.gridsuite.timeseries.server;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.powsybl.timeseries.TimeSeriesIndex;
+
+/**
+ * Alignment of time series of several groups on a target index: the time series (group and name) and
+ * the target index, as in the metadata of a group (its type, e.g. "regularIndex", and its json).
+ * <p>
+ * The value at each target instant depends on the policy:
+ * <ul>
+ * <li>PREVIOUS: the last value at or before the instant (strings and doubles),</li>
+ * <li>LINEAR: linear interpolation between the values around the instant, missing outside of them (doubles),</li>
+ * <li>MEAN: mean of the values from the instant to the next target instant excluded, the last interval has
+ * the duration of the one before it (doubles).</li>
+ * </ul>
+ * The missing values of the time series are ignored.
+ */
+public record TimeSeriesAlignment(List<Ref> timeSeries, String indexType, JsonNode index, Policy policy) {
+
+    public enum Policy {
+        PREVIOUS,
+        LINEAR,
+        MEAN,
+    }
+
+    public record Ref(UUID group, String name) {
+    }
+
+    /**
+     * Aligns one time series: receives its points in the order of their instants and writes the value
+     * of each target point to the result, in one pass.
+     */
+    static final class Aligner {
+        private final TimeSeriesIndex target;
+        private final Policy policy;
+        private final Object[] result;
+        // next target point to write
+        private int next;
+        // last point with a value
+        private Instant previousInstant;
+        private Object previousValue;
+        // values of the interval of the next target point (MEAN)
+        private double sum;
+        private int count;
+
+        Aligner(TimeSeriesIndex target, Policy policy) {
+            this.target = target;
+            this.policy = policy;
+            this.result = new Object[target.getPointCount()];
+        }
+
+        Object[] getResult() {
+            return result;
+        }
+
+        /**
+         * Returns the first instant of the points which are after the interval of the target point (MEAN).
+         */
+        private Instant intervalEnd(int point) {
+            if (point + 1 < target.getPointCount()) {
+                return target.getInstantAt(point + 1);
+            }
+            Instant last = target.getInstantAt(point);
+            return point > 0 ? last.plus(Duration.between(target.getInstantAt(point - 1), last)) : last.plusNanos(1);
+        }
+
+        private static double interpolate(Instant instant, Instant instant1, double value1, Instant instant2, double value2) {
+            double ratio = (double) Duration.between(instant1, instant).toNanos() / Duration.between(instant1, instant2).toNanos();
+            return value1 + ratio * (value2 - value1);
+        }
+
+        void accept(Instant instant, Object value) {
+            switch (policy) {
+                case PREVIOUS -> {
+                    while (next < result.length && target.getInstantAt(next).isBefore(instant)) {
+                        result[next++] = previousValue;
+                    }
+                }
+                case LINEAR -> {
+                    if (value == null) {
+                        return;
+                    }
+                    double doubleValue = ((Number) value).doubleValue();
+                    while (next < result.length && !target.getInstantAt(next).isAfter(instant)) {
+                        Instant targetInstant = target.getInstantAt(next);
+                        if (targetInstant.equals(instant)) {
+                            result[next] = doubleValue;
+                        } else if (previousInstant != null) {
+                            result[next] = interpolate(targetInstant, previousInstant, ((Number) previousValue).doubleValue(), instant, doubleValue);
+                        }
+                        next++;
+                    }
+                }
+                case MEAN -> {
+                    while (next < result.length && !instant.isBefore(intervalEnd(next))) {
+                        endInterval();
+                    }
+                    if (value != null && next < result.length && !instant.isBefore(target.getInstantAt(next))) {
+                        sum += ((Number) value).doubleValue();
+                        count++;
+                    }
+                }
+            }
+            if (value != null) {
+                previousInstant = instant;
+                previousValue = value;
+            }
+        }
+
+        private void endInterval() {
+            result[next++] = count > 0 ? sum / count : null;
+            sum = 0;
+            count = 0;
+        }
+
+        /**
+         * Writes the target points after the last point of the time series.
+         */
+        void finish() {
+            while (next < result.length) {
+                switch (policy) {
+                    case PREVIOUS -> result[next++] = previousValue;
+                    case LINEAR -> next++;
+                    case MEAN -> endInterval();
+                }
+            }
+        }
+    }
+}
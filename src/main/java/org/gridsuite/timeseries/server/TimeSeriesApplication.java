@@ -8,12 +8,14 @@ package org.gridsuite.timeseries.server;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * @author Jon Schuhmacher <jon.harper at rte-france.com>
  */
 @SuppressWarnings("checkstyle:HideUtilityClassConstructor")
 @SpringBootApplication
+@EnableScheduling
 public class TimeSeriesApplication {
 
     public static void main(String[] args) {
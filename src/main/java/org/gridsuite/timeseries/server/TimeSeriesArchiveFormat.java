@@ -0,0 +1,187 @@
+/**
+ * Copyright (c) 2026, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.gridsuite.timeseries.server;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import com.powsybl.timeseries.TimeSeriesDataType;
+
+/**
+ * Compact block columnar format of the data of a group, gzip compressed.
+ * <p>
+ * The header contains the index and the metadatas (same json as the group entity) so that a file
+ * is self contained, then the points are written in blocks of rows, and in each block the values
+ * of each time series are contiguous (doubles as 8 bytes with NaN for missing values, strings as
+ * their UTF-8 length and bytes with -1 for missing values). Contiguous values of a time series
+ * compress much better than the rows of timeseries_group_data.
+ */
+public final class TimeSeriesArchiveFormat {
+
+    private static final int MAGIC = 0x54534152; // "TSAR"
+    private static final int VERSION = 1;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int MISSING_STRING = -1;
+
+    public static final int DEFAULT_BLOCK_SIZE = 1 << 16;
+
+    public record Header(String indexType, String index, String metadatas, List<String> names,
+            TimeSeriesDataType dataType, int rowCount, int blockSize) {
+    }
+
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        if (value == null) {
+            output.writeInt(MISSING_STRING);
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            output.writeInt(bytes.length);
+            output.write(bytes);
+        }
+    }
+
+    private static String readString(DataInputStream input) throws IOException {
+        int length = input.readInt();
+        if (length == MISSING_STRING) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes the header, then each block with writeBlock.
+     */
+    public static final class Writer implements Closeable {
+        private final DataOutputStream output;
+        private final Header header;
+
+        public Writer(OutputStream outputStream, Header header) throws IOException {
+            this.output = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(outputStream, BUFFER_SIZE), BUFFER_SIZE));
+            this.header = header;
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            writeString(output, header.indexType());
+            writeString(output, header.index());
+            writeString(output, header.metadatas());
+            output.writeUTF(header.dataType().name());
+            output.writeInt(header.names().size());
+            for (String name : header.names()) {
+                writeString(output, name);
+            }
+            output.writeInt(header.rowCount());
+            output.writeInt(header.blockSize());
+        }
+
+        /**
+         * Writes the columns of the next block, double[] or String[] depending on the data type,
+         * in the order of the names of the header.
+         */
+        public void writeBlock(Object[] columns) throws IOException {
+            for (Object column : columns) {
+                if (header.dataType() == TimeSeriesDataType.DOUBLE) {
+                    for (double value : (double[]) column) {
+                        output.writeDouble(value);
+                    }
+                } else {
+                    for (String value : (String[]) column) {
+                        writeString(output, value);
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            output.close();
+        }
+    }
+
+    /**
+     * Reads the header, then each block with readBlock.
+     */
+    public static final class Reader implements Closeable {
+        private final DataInputStream input;
+        private final Header header;
+        private int nextRow;
+
+        public Reader(InputStream inputStream) throws IOException {
+            this.input = new DataInputStream(new BufferedInputStream(new GZIPInputStream(inputStream, BUFFER_SIZE), BUFFER_SIZE));
+            if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+                throw new IOException("Not a time series archive or unsupported version");
+            }
+            String indexType = readString(input);
+            String index = readString(input);
+            String metadatas = readString(input);
+            TimeSeriesDataType dataType = TimeSeriesDataType.valueOf(input.readUTF());
+            int colcount = input.readInt();
+            List<String> names = new ArrayList<>(colcount);
+            for (int i = 0; i < colcount; i++) {
+                names.add(readString(input));
+            }
+            this.header = new Header(indexType, index, metadatas, names, dataType, input.readInt(), input.readInt());
+        }
+
+        public Header getHeader() {
+            return header;
+        }
+
+        /**
+         * Returns the first row of the next block.
+         */
+        public int getNextRow() {
+            return nextRow;
+        }
+
+        /**
+         * Returns the columns of the next block, or null after the last block.
+         */
+        public Object[] readBlock() throws IOException {
+            int blockrows = Math.min(header.blockSize(), header.rowCount() - nextRow);
+            if (blockrows <= 0) {
+                return null;
+            }
+            Object[] columns = new Object[header.names().size()];
+            for (int col = 0; col < columns.length; col++) {
+                if (header.dataType() == TimeSeriesDataType.DOUBLE) {
+                    double[] values = new double[blockrows];
+                    for (int i = 0; i < blockrows; i++) {
+                        values[i] = input.readDouble();
+                    }
+                    columns[col] = values;
+                } else {
+                    String[] values = new String[blockrows];
+                    for (int i = 0; i < blockrows; i++) {
+                        values[i] = readString(input);
+                    }
+                    columns[col] = values;
+                }
+            }
+            nextRow += blockrows;
+            return columns;
+        }
+
+        @Override
+        public void close() throws IOException {
+            input.close();
+        }
+    }
+
+    private TimeSeriesArchiveFormat() {
+    }
+}
@@ -0,0 +1,387 @@
+/**
+ * Copyright (c) 2026, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.gridsuite.timeseries.server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.google.common.base.Stopwatch;
+import com.powsybl.timeseries.TimeSeries;
+import com.powsybl.timeseries.TimeSeriesDataType;
+import com.powsybl.timeseries.TimeSeriesIndex;
+import com.powsybl.timeseries.TimeSeriesMetadata;
+
+/**
+ * Cold tier of the groups: the data of the groups which have not been accessed for a while is moved
+ * from timeseries_group_data to compressed files (see {@link TimeSeriesArchiveFormat}) in a directory,
+ * only the group entity stays in the database, with the path of its archive. The archived groups are
+ * read from their archive, and can be moved back to the database (rehydrated).
+ * <p>
+ * The rows of an archived group are only deleted (purged) after a delay, so that the reads which started
+ * before the group was archived still find them. A group rehydrated before its rows are purged only
+ * points back to them.
+ */
+@Component
+public class TimeSeriesArchiver {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TimeSeriesArchiver.class);
+
+    private static final String ARCHIVE_EXTENSION = ".tsar";
+    private static final String TEMPORARY_EXTENSION = ".tmp";
+
+    @Value("${timeseries.archive.enabled:false}")
+    private boolean enabled;
+    @Value("${timeseries.archive.idle-days:30}")
+    private int idledays;
+    // TODO object store instead of a (shared) filesystem path ?
+    @Value("${timeseries.archive.directory:}")
+    private String directory;
+    // longer than the longest read
+    @Value("${timeseries.archive.purge-delay-ms:3600000}")
+    private long purgedelayms;
+    // longer than the longest archiving, the groups claimed by an instance which stopped are archived after it
+    @Value("${timeseries.archive.claim-timeout-ms:3600000}")
+    private long claimtimeoutms;
+
+    private final TimeSeriesGroupRepository timeSeriesGroupRepository;
+    private final TimeSeriesDataRepository timeSeriesDataRepository;
+    private final TimeSeriesMetadataService timeSeriesMetadataService;
+    private final TimeSeriesColumnCache timeSeriesColumnCache;
+    private final TransactionTemplate transactionTemplate;
+
+    public TimeSeriesArchiver(TimeSeriesGroupRepository timeSeriesGroupRepository,
+            TimeSeriesDataRepository timeSeriesDataRepository, TimeSeriesMetadataService timeSeriesMetadataService,
+            TimeSeriesColumnCache timeSeriesColumnCache, TransactionTemplate transactionTemplate) {
+        this.timeSeriesGroupRepository = timeSeriesGroupRepository;
+        this.timeSeriesDataRepository = timeSeriesDataRepository;
+        this.timeSeriesMetadataService = timeSeriesMetadataService;
+        this.timeSeriesColumnCache = timeSeriesColumnCache;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    // with several instances, each of them runs the job, the groups are claimed by the instance archiving them
+    @Scheduled(fixedDelayString = "${timeseries.archive.check-interval-ms:3600000}")
+    public void archiveIdleGroups() {
+        if (!enabled) {
+            return;
+        }
+        if (directory.isEmpty()) {
+            LOGGER.warn("Archiving is enabled but timeseries.archive.directory is not set");
+            return;
+        }
+        Instant idleSince = Instant.now().minus(Duration.ofDays(idledays));
+        for (TimeSeriesGroupEntity tsGroup : timeSeriesGroupRepository.findByArchivePathIsNullAndLastAccessDateBefore(idleSince)) {
+            try {
+                archive(tsGroup);
+            } catch (Exception e) {
+                // the group stays in the database, it will be retried at the next run
+                LOGGER.error("Error archiving time series group " + tsGroup.getId(), e);
+            }
+        }
+    }
+
+    // not depending on timeseries.archive.enabled, the groups archived before it was disabled are purged
+    @Scheduled(fixedDelayString = "${timeseries.archive.purge-interval-ms:600000}")
+    public void purgeArchivedGroups() {
+        for (TimeSeriesGroupEntity tsGroup : timeSeriesGroupRepository.findByPurgeDateBefore(Instant.now())) {
+            try {
+                purge(tsGroup.getId());
+            } catch (Exception e) {
+                // the rows are kept, they will be purged at the next run
+                LOGGER.error("Error purging time series group " + tsGroup.getId(), e);
+            }
+        }
+    }
+
+    /**
+     * Deletes the rows of an archived group from the database, and its references to the deduplicated
+     * time series.
+     */
+    private void purge(UUID id) {
+        // locked, the rows of a group rehydrated or deleted meanwhile are not purged
+        boolean purged = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            TimeSeriesGroupEntity tsGroup = timeSeriesGroupRepository.findWithLockById(id).orElse(null);
+            if (tsGroup == null || tsGroup.getPurgeDate() == null || tsGroup.getPurgeDate().isAfter(Instant.now())) {
+                return false;
+            }
+            Map<String, TimeSeriesContentRef> contents = timeSeriesMetadataService.getContents(
+                    timeSeriesMetadataService.individualMetadatasMapFromJson(tsGroup.getMetadatas()));
+            // the archive has the values of the deduplicated time series, they are deduplicated again when rehydrated
+            tsGroup.setMetadatas(timeSeriesMetadataService.individualMetadatasWithContents(tsGroup.getMetadatas(), Map.of()));
+            tsGroup.setPurgeDate(null);
+            // the metadata changed, the group is not read from the replicas until they have them
+            tsGroup.setLastWriteDate(Instant.now());
+            // in the transaction, the rows of a group whose purge is rolled back are kept
+            timeSeriesDataRepository.delete(id);
+            // released once the group doesn't reference them anymore
+            timeSeriesDataRepository.releaseContentsAfterCommit(contents.values().stream().map(TimeSeriesContentRef::hash).toList());
+            return true;
+        }));
+        if (purged) {
+            LOGGER.info("Purged the rows of archived time series group {}", id);
+        }
+    }
+
+    /**
+     * Points an archived group back to its rows, when they are not purged yet, and deletes its
+     * archive. Returns false when the rows are purged, the group must be rehydrated from its archive.
+     */
+    public boolean restore(UUID id) {
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            TimeSeriesGroupEntity tsGroup = timeSeriesGroupRepository.findWithLockById(id).orElseThrow();
+            if (tsGroup.getArchivePath() == null || tsGroup.getPurgeDate() == null) {
+                return false;
+            }
+            deleteArchiveAfterCommit(tsGroup.getArchivePath());
+            tsGroup.setArchivePath(null);
+            tsGroup.setPurgeDate(null);
+            tsGroup.setLastAccessDate(Instant.now());
+            tsGroup.setLastWriteDate(Instant.now());
+            timeSeriesColumnCache.invalidate(id);
+            return true;
+        }));
+    }
+
+    /**
+     * Writes the data of the group to its archive, then points the group to the archive, unless it was
+     * deleted or modified meanwhile. Its data is deleted from the database after the purge delay. Does
+     * nothing when the group is being archived by another instance.
+     */
+    public void archive(TimeSeriesGroupEntity tsGroup) throws IOException {
+        Instant claimed = Instant.now();
+        if (!timeSeriesDataRepository.claimArchive(tsGroup.getId(), claimed.plusMillis(claimtimeoutms), claimed)) {
+            LOGGER.info("Time series group {} archived or being archived by another instance", tsGroup.getId());
+            return;
+        }
+        try {
+            doArchive(tsGroup);
+        } finally {
+            timeSeriesDataRepository.releaseArchiveClaim(tsGroup.getId());
+        }
+    }
+
+    private void doArchive(TimeSeriesGroupEntity tsGroup) throws IOException {
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        TimeSeriesIndex index = timeSeriesMetadataService.indexFromJson(tsGroup.getIndexType(), tsGroup.getIndex());
+        Map<String, Object> individualMetadatas = timeSeriesMetadataService.individualMetadatasMapFromJson(tsGroup.getMetadatas());
+        TimeSeriesDataType dataType = timeSeriesMetadataService.getDataType(individualMetadatas);
+        if (dataType == null) {
+            return;
+        }
+        List<String> names = List.copyOf(individualMetadatas.keySet());
+        Map<String, TimeSeriesContentRef> contents = timeSeriesMetadataService.getContents(individualMetadatas);
+        int rowcount = index.getPointCount();
+        int blocksize = TimeSeriesArchiveFormat.DEFAULT_BLOCK_SIZE;
+        TimeSeriesArchiveFormat.Header header = new TimeSeriesArchiveFormat.Header(tsGroup.getIndexType(), tsGroup.getIndex(),
+                tsGroup.getMetadatas(), names, dataType, rowcount, blocksize);
+
+        Path archive = Path.of(directory).resolve(tsGroup.getId() + ARCHIVE_EXTENSION);
+        Path temporary = Path.of(directory).resolve(tsGroup.getId() + ARCHIVE_EXTENSION + TEMPORARY_EXTENSION);
+        Files.createDirectories(archive.getParent());
+        try (OutputStream outputStream = Files.newOutputStream(temporary);
+             TimeSeriesArchiveFormat.Writer writer = new TimeSeriesArchiveFormat.Writer(outputStream, header)) {
+            for (int blockstart = 0; blockstart < rowcount; blockstart += blocksize) {
+                int blockrows = Math.min(blocksize, rowcount - blockstart);
+                Map<Integer, Map<String, Object>> rows = timeSeriesDataRepository.findRows(tsGroup.getId(), blockstart, blockstart + blockrows, contents);
+                Object[] columns = new Object[names.size()];
+                for (int col = 0; col < columns.length; col++) {
+                    String name = names.get(col);
+                    if (dataType == TimeSeriesDataType.DOUBLE) {
+                        double[] values = new double[blockrows];
+                        for (int i = 0; i < blockrows; i++) {
+                            Object value = rows.getOrDefault(blockstart + i, Map.of()).get(name);
+                            values[i] = value == null ? Double.NaN : ((Number) value).doubleValue();
+                        }
+                        columns[col] = values;
+                    } else {
+                        // the archive has the decoded values, the dictionaries are only used in the database
+                        List<String> dictionary = timeSeriesMetadataService.getDictionary(individualMetadatas, name);
+                        String[] values = new String[blockrows];
+                        for (int i = 0; i < blockrows; i++) {
+                            values[i] = (String) TimeSeriesMetadataService.decode(dictionary, rows.getOrDefault(blockstart + i, Map.of()).get(name));
+                        }
+                        columns[col] = values;
+                    }
+                }
+                writer.writeBlock(columns);
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+
+        // locked, the group may have been deleted, written or archived while its archive was written
+        boolean archived;
+        try {
+            archived = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                TimeSeriesGroupEntity lockedGroup = timeSeriesGroupRepository.findWithLockById(tsGroup.getId()).orElse(null);
+                if (lockedGroup == null || lockedGroup.getArchivePath() != null
+                        || !Objects.equals(lockedGroup.getLastWriteDate(), tsGroup.getLastWriteDate())) {
+                    return false;
+                }
+                try {
+                    Files.move(temporary, archive, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                Instant now = Instant.now();
+                lockedGroup.setArchivePath(archive.toString());
+                lockedGroup.setLastWriteDate(now);
+                // the rows and the references to the deduplicated time series are kept until the purge
+                lockedGroup.setPurgeDate(now.plusMillis(purgedelayms));
+                // the archived groups are read from their archive
+                timeSeriesColumnCache.invalidate(tsGroup.getId());
+                return true;
+            }));
+        } finally {
+            // not moved when the group was not archived
+            Files.deleteIfExists(temporary);
+        }
+        if (!archived) {
+            LOGGER.info("Time series group {} deleted or modified while it was archived, not archived", tsGroup.getId());
+            return;
+        }
+        LOGGER.info("Archived time series group {} ({} points by {} time series) to {} ({} bytes) in {}ms", tsGroup.getId(),
+                rowcount, names.size(), archive, Files.size(archive), stopwatch.elapsed(TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Same as TimeSeriesDataRepository.findById for an archived group: reads the points
+     * [pointOffset, pointOffset + index.getPointCount()) from the archive file.
+     */
+    public List<TimeSeries> findById(TimeSeriesIndex index, int pointOffset, Map<String, Object> individualMetadatas,
+            String archivePath, boolean tryToCompress, List<String> timeSeriesNames) {
+        List<String> names = timeSeriesNames != null ? timeSeriesNames : List.copyOf(individualMetadatas.keySet());
+        int rowcount = index.getPointCount();
+        try (InputStream inputStream = Files.newInputStream(Path.of(archivePath));
+             TimeSeriesArchiveFormat.Reader reader = new TimeSeriesArchiveFormat.Reader(inputStream)) {
+            TimeSeriesArchiveFormat.Header header = reader.getHeader();
+            int[] cols = names.stream().mapToInt(header.names()::indexOf).toArray();
+            boolean doubles = header.dataType() == TimeSeriesDataType.DOUBLE;
+            Object[] data = new Object[names.size()];
+            for (int i = 0; i < data.length; i++) {
+                data[i] = doubles ? new double[rowcount] : new String[rowcount];
+            }
+            int blockstart = reader.getNextRow();
+            Object[] columns;
+            // the blocks before the range are decompressed and skipped
+            while (blockstart < pointOffset + rowcount && (columns = reader.readBlock()) != null) {
+                int blockend = reader.getNextRow();
+                int from = Math.max(blockstart, pointOffset);
+                int to = Math.min(blockend, pointOffset + rowcount);
+                for (int i = 0; from < to && i < cols.length; i++) {
+                    if (cols[i] >= 0) {
+                        System.arraycopy(columns[cols[i]], from - blockstart, data[i], from - pointOffset, to - from);
+                    }
+                }
+                blockstart = blockend;
+            }
+
+            List<TimeSeries> ret = new ArrayList<>(names.size());
+            for (int i = 0; i < names.size(); i++) {
+                if (cols[i] < 0) {
+                    continue;
+                }
+                TimeSeriesMetadata metadata = timeSeriesMetadataService.getMetadata(index, individualMetadatas, names.get(i));
+                int length = timeSeriesMetadataService.getLength(individualMetadatas, names.get(i), pointOffset, pointOffset + rowcount);
+                ret.add(TimeSeriesDataRepository.makeTimeSeries(metadata, data[i], length, tryToCompress));
+            }
+            return ret;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Same as TimeSeriesDataRepository.findPoints for an archived group.
+     */
+    public Map<Integer, Map<String, Object>> findPoints(String archivePath, int[] points) {
+        TreeMap<Integer, Map<String, Object>> res = new TreeMap<>();
+        Arrays.stream(points).forEach(point -> res.put(point, new HashMap<>()));
+        try (InputStream inputStream = Files.newInputStream(Path.of(archivePath));
+             TimeSeriesArchiveFormat.Reader reader = new TimeSeriesArchiveFormat.Reader(inputStream)) {
+            List<String> names = reader.getHeader().names();
+            int blockstart = reader.getNextRow();
+            Object[] columns;
+            while (!res.isEmpty() && blockstart <= res.lastKey() && (columns = reader.readBlock()) != null) {
+                int blockend = reader.getNextRow();
+                for (Map.Entry<Integer, Map<String, Object>> entry : res.subMap(blockstart, blockend).entrySet()) {
+                    int row = entry.getKey() - blockstart;
+                    for (int col = 0; col < columns.length; col++) {
+                        Object value;
+                        if (columns[col] instanceof double[] values) {
+                            // same as the rows, NaN is stored as null
+                            value = Double.isNaN(values[row]) ? null : values[row];
+                        } else {
+                            value = ((String[]) columns[col])[row];
+                        }
+                        entry.getValue().put(names.get(col), value);
+                    }
+                }
+                blockstart = blockend;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return res;
+    }
+
+    public void deleteArchive(String archivePath) {
+        try {
+            Files.deleteIfExists(Path.of(archivePath));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Deletes the archive once the current transaction is committed, so that a rolled back deletion
+     * of the group keeps its archive. Deletes it at once when there is no transaction.
+     */
+    public void deleteArchiveAfterCommit(String archivePath) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            deleteArchive(archivePath);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                try {
+                    deleteArchive(archivePath);
+                } catch (UncheckedIOException e) {
+                    // the group is already deleted, the file is only orphaned
+                    LOGGER.error("Error deleting time series archive " + archivePath, e);
+                }
+            }
+        });
+    }
+}
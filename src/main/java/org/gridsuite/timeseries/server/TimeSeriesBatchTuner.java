@@ -0,0 +1,168 @@
+/**
+ * Copyright (c) 2026, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.gridsuite.timeseries.server;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.powsybl.timeseries.TimeSeriesDataType;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Adaptive tuning of the batch size (in values) and of the number of batches per connection
+ * of the ingest and read paths, separately for each operation and data type.
+ * <p>
+ * The batch size is tuned by hill climbing on the observed throughput (values per second for
+ * each connection): every few batches, the batch size is multiplied or divided by a constant
+ * step, and the direction is reversed when the throughput gets worse or when the batches get
+ * too slow. The number of batches per connection (and therefore the number of connections
+ * used by a request) is increased when other threads are waiting for a connection and decreased
+ * back to 1 when the pool is not saturated.
+ * <p>
+ * When disabled, the configured static values are used.
+ */
+@Component
+public class TimeSeriesBatchTuner {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TimeSeriesBatchTuner.class);
+
+    // number of batches observed before each adjustment
+    private static final int WINDOW = 8;
+    private static final double STEP = 1.25;
+    // throughput variations smaller than this are considered noise
+    private static final double TOLERANCE = 0.02;
+    private static final double LATENCY_SMOOTHING = 0.2;
+
+    @Value("${timeseries.adaptive-tuning.enabled:false}")
+    private boolean enabled;
+    @Value("${timeseries.adaptive-tuning.min-batch-size:1000}")
+    private int minbatchsize;
+    @Value("${timeseries.adaptive-tuning.max-batch-size:300000}")
+    private int maxbatchsize;
+    @Value("${timeseries.adaptive-tuning.max-batch-per-connection:8}")
+    private int maxbatchperconnection;
+    @Value("${timeseries.adaptive-tuning.max-batch-latency-ms:2000}")
+    private long maxbatchlatencyms;
+
+    private final MeterRegistry meterRegistry;
+    private final HikariDataSource datasource;
+    private final Map<Key, State> states = new ConcurrentHashMap<>();
+
+    public TimeSeriesBatchTuner(MeterRegistry meterRegistry, HikariDataSource datasource) {
+        this.meterRegistry = meterRegistry;
+        this.datasource = datasource;
+    }
+
+    private record Key(String operation, TimeSeriesDataType dataType) {
+    }
+
+    public record BatchPlan(String operation, TimeSeriesDataType dataType, int batchSize, int batchPerConnection) {
+    }
+
+    private static final class State {
+        private volatile int batchSize;
+        private volatile int batchPerConnection;
+        private int direction = 1;
+        private double previousThroughput = -1;
+        private double latencyNanos = -1;
+        private long windowCells;
+        private long windowNanos;
+        private int windowBatches;
+
+        private State(int batchSize, int batchPerConnection) {
+            this.batchSize = batchSize;
+            this.batchPerConnection = batchPerConnection;
+        }
+    }
+
+    private State state(Key key, int configuredBatchSize, int configuredBatchPerConnection) {
+        return states.computeIfAbsent(key, k -> {
+            State state = new State(Math.max(minbatchsize, Math.min(maxbatchsize, configuredBatchSize)),
+                    Math.max(1, Math.min(maxbatchperconnection, configuredBatchPerConnection)));
+            Gauge.builder("timeseries.tuning.batch-size", state, s -> s.batchSize)
+                    .description("Current number of values in each batch")
+                    .tag("operation", k.operation())
+                    .tag("dataType", k.dataType().name())
+                    .register(meterRegistry);
+            Gauge.builder("timeseries.tuning.batch-per-connection", state, s -> s.batchPerConnection)
+                    .description("Current number of batches for each connection")
+                    .tag("operation", k.operation())
+                    .tag("dataType", k.dataType().name())
+                    .register(meterRegistry);
+            return state;
+        });
+    }
+
+    public BatchPlan plan(String operation, TimeSeriesDataType dataType, int configuredBatchSize, int configuredBatchPerConnection) {
+        if (!enabled || dataType == null) {
+            return new BatchPlan(operation, dataType, configuredBatchSize, configuredBatchPerConnection);
+        }
+        State state = state(new Key(operation, dataType), configuredBatchSize, configuredBatchPerConnection);
+        return new BatchPlan(operation, dataType, state.batchSize, state.batchPerConnection);
+    }
+
+    /**
+     * Records the execution of one batch of the given plan.
+     */
+    public void observe(BatchPlan plan, long cells, long nanos) {
+        if (!enabled || plan.dataType() == null || cells <= 0) {
+            return;
+        }
+        State state = states.get(new Key(plan.operation(), plan.dataType()));
+        if (state == null) {
+            return;
+        }
+        synchronized (state) {
+            state.windowCells += cells;
+            state.windowNanos += nanos;
+            state.windowBatches++;
+            state.latencyNanos = state.latencyNanos < 0 ? nanos
+                    : LATENCY_SMOOTHING * nanos + (1 - LATENCY_SMOOTHING) * state.latencyNanos;
+            if (state.windowBatches >= WINDOW) {
+                adjust(plan, state);
+            }
+        }
+    }
+
+    private void adjust(BatchPlan plan, State state) {
+        double throughput = (double) state.windowCells / Math.max(1, state.windowNanos);
+        if (state.latencyNanos > TimeUnit.MILLISECONDS.toNanos(maxbatchlatencyms)) {
+            state.direction = -1;
+        } else if (state.previousThroughput > 0 && throughput < state.previousThroughput * (1 - TOLERANCE)) {
+            state.direction = -state.direction;
+        }
+        state.previousThroughput = throughput;
+        double newBatchSize = state.direction > 0 ? state.batchSize * STEP : state.batchSize / STEP;
+        state.batchSize = (int) Math.max(minbatchsize, Math.min(maxbatchsize, newBatchSize));
+
+        // null until the pool is started by the first connection
+        HikariPoolMXBean pool = datasource.getHikariPoolMXBean();
+        int waiting = pool != null ? pool.getThreadsAwaitingConnection() : 0;
+        if (waiting > 0) {
+            state.batchPerConnection = Math.min(maxbatchperconnection, state.batchPerConnection + 1);
+        } else if (state.batchPerConnection > 1) {
+            state.batchPerConnection = state.batchPerConnection - 1;
+        }
+
+        LOGGER.debug("tuning {} {}: throughput={} values/s, latency={}ms, waiting={} => batchsize={}, batchperconnection={}",
+                plan.operation(), plan.dataType(), (long) (throughput * 1e9), (long) (state.latencyNanos / 1e6), waiting,
+                state.batchSize, state.batchPerConnection);
+        state.windowCells = 0;
+        state.windowNanos = 0;
+        state.windowBatches = 0;
+    }
+}
@@ -0,0 +1,196 @@
+/**
+ * Copyright (c) 2026, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.gridsuite.timeseries.server;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.Striped;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Cache of the decoded columns of the groups (all the points of a time series), shared by the reads
+ * of any subset of time series and any window of the hot groups.
+ * <p>
+ * The columns are compact primitive arrays: double[] for the doubles, the codes of the dictionary
+ * (int[], see TimeSeriesMetadataService.getDictionary) for the dictionary encoded strings, String[]
+ * for the other strings. The least recently used columns are evicted when their total size reaches
+ * timeseries.column-cache.max-bytes (0, the default, disables the cache). The missing columns of a
+ * group are loaded together and only once at a time: the concurrent misses for the same group wait
+ * for the load in progress instead of reading the database again.
+ */
+@Component
+public class TimeSeriesColumnCache {
+
+    private static final int LOAD_LOCK_STRIPES = 64;
+    private static final int MISSING_CODE = -1;
+    // only the columns of groups small enough to keep a few of them are cached
+    private static final int MAX_GROUP_FRACTION = 4;
+
+    private record ColumnKey(UUID group, String name) {
+    }
+
+    // the strings of a dictionary encoded time series
+    private record CodedStrings(int[] codes, List<String> dictionary) {
+    }
+
+    private final long maxbytes;
+    private final Cache<ColumnKey, Object> cache;
+    private final Striped<Lock> loadLocks = Striped.lock(LOAD_LOCK_STRIPES);
+
+    public TimeSeriesColumnCache(MeterRegistry meterRegistry,
+            @Value("${timeseries.column-cache.max-bytes:0}") long maxbytes) {
+        this.maxbytes = maxbytes;
+        this.cache = CacheBuilder.newBuilder()
+                // when disabled, nothing is put in the cache
+                .maximumWeight(maxbytes > 0 ? maxbytes : Long.MAX_VALUE)
+                .weigher((ColumnKey key, Object column) -> (int) Math.min(Integer.MAX_VALUE, weigh(column)))
+                .recordStats()
+                .build();
+        Gauge.builder("timeseries.column-cache.hits", cache, c -> c.stats().hitCount())
+                .description("Columns read from the column cache")
+                .register(meterRegistry);
+        Gauge.builder("timeseries.column-cache.misses", cache, c -> c.stats().missCount())
+                .description("Columns not found in the column cache")
+                .register(meterRegistry);
+        Gauge.builder("timeseries.column-cache.evictions", cache, c -> c.stats().evictionCount())
+                .description("Columns evicted from the column cache")
+                .register(meterRegistry);
+    }
+
+    private static long weigh(Object column) {
+        if (column instanceof double[] doubles) {
+            return 16L + 8L * doubles.length;
+        } else if (column instanceof CodedStrings coded) {
+            return 16L + 4L * coded.codes().length + coded.dictionary().stream().mapToLong(s -> 40L + 2L * s.length()).sum();
+        } else {
+            return 16L + Arrays.stream((String[]) column).mapToLong(s -> s == null ? 8L : 48L + 2L * s.length()).sum();
+        }
+    }
+
+    /**
+     * Returns true if the columns of a group with this number of values (points by time series) are cached.
+     */
+    public boolean accepts(long values) {
+        return maxbytes > 0 && values * Double.BYTES <= maxbytes / MAX_GROUP_FRACTION;
+    }
+
+    private static Object encode(Object column, List<String> dictionary) {
+        if (dictionary == null || !(column instanceof String[] strings)) {
+            return column;
+        }
+        Map<String, Integer> codes = new HashMap<>();
+        for (int i = 0; i < dictionary.size(); i++) {
+            codes.put(dictionary.get(i), i);
+        }
+        int[] res = new int[strings.length];
+        for (int i = 0; i < strings.length; i++) {
+            Integer code = strings[i] != null ? codes.get(strings[i]) : null;
+            if (strings[i] != null && code == null) {
+                // not in the dictionary, not worth encoding
+                return column;
+            }
+            res[i] = code != null ? code : MISSING_CODE;
+        }
+        return new CodedStrings(res, dictionary);
+    }
+
+    /**
+     * Returns a copy of the points [from, to) of a column returned by getColumns, as a double[] or a String[].
+     */
+    public static Object slice(Object column, int from, int to) {
+        if (column instanceof double[] doubles) {
+            return Arrays.copyOfRange(doubles, from, to);
+        } else if (column instanceof CodedStrings coded) {
+            String[] res = new String[to - from];
+            for (int i = from; i < to; i++) {
+                int code = coded.codes()[i];
+                res[i - from] = code == MISSING_CODE ? null : coded.dictionary().get(code);
+            }
+            return res;
+        } else {
+            return Arrays.copyOfRange((String[]) column, from, to);
+        }
+    }
+
+    /**
+     * Returns the columns of the time series of the group, by name. The missing ones are loaded by the loader
+     * (the names to load to their full double[] or String[] column) while holding the load lock of the group.
+     */
+    public Map<String, Object> getColumns(UUID group, List<String> names, Function<String, List<String>> dictionaries,
+            Function<List<String>, Map<String, Object>> loader) {
+        Map<String, Object> res = new LinkedHashMap<>();
+        if (getCached(group, names, res)) {
+            return res;
+        }
+        Lock lock = loadLocks.get(group);
+        lock.lock();
+        try {
+            // loaded by the previous holder of the lock
+            if (getCached(group, names, res)) {
+                return res;
+            }
+            List<String> missing = names.stream().filter(name -> !res.containsKey(name)).toList();
+            for (Map.Entry<String, Object> loaded : loader.apply(missing).entrySet()) {
+                Object column = encode(loaded.getValue(), dictionaries.apply(loaded.getKey()));
+                cache.put(new ColumnKey(group, loaded.getKey()), column);
+                res.put(loaded.getKey(), column);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return res;
+    }
+
+    // Puts the cached columns in res, returns true if all of them are there
+    private boolean getCached(UUID group, List<String> names, Map<String, Object> res) {
+        boolean all = true;
+        for (String name : names) {
+            Object column = cache.getIfPresent(new ColumnKey(group, name));
+            if (column != null) {
+                res.put(name, column);
+            } else {
+                all = false;
+            }
+        }
+        return all;
+    }
+
+    /**
+     * Removes the columns of the group, when its data is modified or deleted. Waits for the load in
+     * progress of the group, which could put the old columns back.
+     */
+    public void invalidate(UUID group) {
+        Lock lock = loadLocks.get(group);
+        lock.lock();
+        try {
+            List<ColumnKey> keys = new ArrayList<>();
+            for (ColumnKey key : cache.asMap().keySet()) {
+                if (key.group().equals(group)) {
+                    keys.add(key);
+                }
+            }
+            cache.invalidateAll(keys);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,15 @@
+/**
+ * Copyright (c) 2026, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.gridsuite.timeseries.server;
+
+/**
+ * Reference of a deduplicated time series to its content (timeseries_content): the point p of the
+ * time series is the point p + offset of the content (the copies of a range of points share the
+ * content of the whole time series).
+ */
+public record TimeSeriesContentRef(String hash, int offset) {
+}
@@ -6,9 +6,15 @@
  */
 package org.gridsuite.timeseries.server;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -20,6 +26,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.google.common.base.Stopwatch;
 import com.powsybl.timeseries.TimeSeries;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -36,9 +43,28 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 public class TimeSeriesController {
 
     private final TimeSeriesService timeSeriesService;
+    private final TimeSeriesMetrics timeSeriesMetrics;
+    private final TimeSeriesJsonWriter timeSeriesJsonWriter;
+    private final TimeSeriesJsonParser timeSeriesJsonParser;
+    private final TimeSeriesMemoryBudget timeSeriesMemoryBudget;
 
-    public TimeSeriesController(TimeSeriesService timeSeriesService) {
+    public TimeSeriesController(TimeSeriesService timeSeriesService, TimeSeriesMetrics timeSeriesMetrics,
+            TimeSeriesJsonWriter timeSeriesJsonWriter, TimeSeriesJsonParser timeSeriesJsonParser,
+            TimeSeriesMemoryBudget timeSeriesMemoryBudget) {
         this.timeSeriesService = timeSeriesService;
+        this.timeSeriesMetrics = timeSeriesMetrics;
+        this.timeSeriesJsonWriter = timeSeriesJsonWriter;
+        this.timeSeriesJsonParser = timeSeriesJsonParser;
+        this.timeSeriesMemoryBudget = timeSeriesMemoryBudget;
+    }
+
+    private TimeSeriesMetrics.Scope scope(String operation, List<TimeSeries> list) {
+        if (list.isEmpty()) {
+            return timeSeriesMetrics.scope(operation, null, 0);
+        }
+        TimeSeries first = list.get(0);
+        return timeSeriesMetrics.scope(operation, first.getMetadata().getDataType(),
+                (long) first.getMetadata().getIndex().getPointCount() * list.size());
     }
 
     @GetMapping(value = "/timeseries-group")
@@ -50,32 +76,205 @@ public class TimeSeriesController {
 
     @PostMapping(value = "/timeseries-group")
     @Operation(summary = "create a time series group")
-    @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "The time series group was successfully created")})
+    @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "The time series group was successfully created"),
+        @ApiResponse(responseCode = "503", description = "The memory budget is exhausted, retry after the Retry-After delay")})
     //TODO better interface with springboot's objectmapper using the time series jackson in powsybl ?
-    public TimeSeriesGroupInfos createTimeSeriesGroup(@RequestBody String timeSeries) {
-        List<TimeSeries> list = TimeSeries.parseJson(timeSeries);
-        return timeSeriesService.createTimeSeriesGroup(list);
+    public TimeSeriesGroupInfos createTimeSeriesGroup(HttpServletRequest request) throws Exception {
+        try (TimeSeriesMemoryBudget.Reservation reservation = timeSeriesMemoryBudget.reserve(
+                timeSeriesMemoryBudget.estimateWrite(request.getContentLengthLong()))) {
+            Stopwatch stopwatch = Stopwatch.createStarted();
+            // read from the stream instead of a String, the series are parsed in parallel
+            List<TimeSeries> list = timeSeriesJsonParser.parseJson(request.getInputStream());
+            timeSeriesMetrics.recordPhase(scope(TimeSeriesMetrics.WRITE, list), TimeSeriesMetrics.PHASE_PARSE, stopwatch);
+            return timeSeriesService.createTimeSeriesGroup(list);
+        }
+    }
+
+    @PostMapping(value = "/timeseries-group/bulk")
+    @Operation(summary = "create several time series groups, the body is a json array of json arrays of time series (one for each group)")
+    @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "The time series groups were successfully created, in the order of the body"),
+        @ApiResponse(responseCode = "503", description = "The memory budget is exhausted, retry after the Retry-After delay")})
+    public List<TimeSeriesGroupInfos> createTimeSeriesGroups(HttpServletRequest request) throws Exception {
+        try (TimeSeriesMemoryBudget.Reservation reservation = timeSeriesMemoryBudget.reserve(
+                timeSeriesMemoryBudget.estimateWrite(request.getContentLengthLong()));
+             TimeSeriesJsonParser.GroupsReader reader = timeSeriesJsonParser.readGroups(request.getInputStream())) {
+            return timeSeriesService.createTimeSeriesGroups(reader);
+        }
     }
 
     @GetMapping(value = "/timeseries-group/{uuid}/metadata")
     @Operation(summary = "Get metadata of a time series groups")
     @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "The metadata of a time series group")})
-    public ResponseEntity<String> getTimeSeriesGroupMetadata(@PathVariable UUID uuid) {
-        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(timeSeriesService.getTimeSeriesGroupMetadataJson(uuid));
+    public ResponseEntity<String> getTimeSeriesGroupMetadata(
+        @PathVariable UUID uuid,
+        @RequestParam(required = false) boolean withStatistics
+    ) {
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(timeSeriesService.getTimeSeriesGroupMetadataJson(uuid, withStatistics));
+    }
+
+    @GetMapping(value = "/timeseries-group/{uuid}/statistics")
+    @Operation(summary = "Get the statistics of the time series of a time series group")
+    @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "The statistics of each time series, by name")})
+    public Map<String, TimeSeriesStatistics> getTimeSeriesGroupStatistics(
+        @PathVariable UUID uuid,
+        @RequestParam(required = false) List<String> timeSeriesNames
+    ) {
+        return timeSeriesService.getTimeSeriesGroupStatistics(uuid, timeSeriesNames);
     }
 
     @GetMapping(value = "/timeseries-group/{uuid}")
     @Operation(summary = "Get data of a time series groups")
-    @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "The data of a time series group")})
-    public ResponseEntity<String> getTimeSeriesGroup(
+    @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "The data of a time series group"),
+        @ApiResponse(responseCode = "503", description = "The memory budget is exhausted, retry after the Retry-After delay")})
+    public void getTimeSeriesGroup(
         @PathVariable UUID uuid,
         //TODO more kinds of filters
         @RequestParam(required = false) boolean tryToCompress,
         @RequestParam(required = false) String time,
+        @RequestParam(required = false) List<String> timeSeriesNames,
+        @RequestParam(required = false) Instant startInstant,
+        @RequestParam(required = false) Instant endInstant,
+        HttpServletResponse response
+    ) throws Exception {
+        TimeSeriesMemoryBudget.Estimate estimate = timeSeriesService.estimateTimeSeriesGroupMemory(uuid, timeSeriesNames, startInstant, endInstant);
+        // the reservation is held until the response is written
+        try (TimeSeriesMemoryBudget.Reservation reservation = timeSeriesMemoryBudget.reserve(estimate.bytes())) {
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            if (estimate.spill()) {
+                // too big for the heap, assembled in a memory mapped file and streamed from it
+                try (TimeSeriesSpillFile spillFile = timeSeriesService.getTimeSeriesGroupSpilled(uuid, time, timeSeriesNames,
+                        startInstant, endInstant, timeSeriesMemoryBudget.getSpillDirectory())) {
+                    if (spillFile == null) {
+                        timeSeriesJsonWriter.writeJson(List.of(), response.getOutputStream());
+                    } else {
+                        timeSeriesJsonWriter.writeJson(spillFile, tryToCompress, response.getOutputStream());
+                    }
+                }
+                return;
+            }
+            List<TimeSeries> list = timeSeriesService.getTimeSeriesGroup(uuid, tryToCompress, time, timeSeriesNames, startInstant, endInstant);
+            Stopwatch stopwatch = Stopwatch.createStarted();
+            // the series are encoded in parallel and written directly to the response in the order of the list
+            timeSeriesJsonWriter.writeJson(list, response.getOutputStream());
+            timeSeriesMetrics.recordPhase(scope(TimeSeriesMetrics.READ, list), TimeSeriesMetrics.PHASE_SERIALIZATION, stopwatch);
+        }
+    }
+
+    @PostMapping(value = "/timeseries-group/{uuid}/calculated")
+    @Operation(summary = "Evaluate calculated time series over the time series of a group")
+    @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "The calculated time series"),
+        @ApiResponse(responseCode = "400", description = "Invalid expressions or unknown time series"),
+        @ApiResponse(responseCode = "503", description = "The memory budget is exhausted, retry after the Retry-After delay")})
+    public void getCalculatedTimeSeries(
+        @PathVariable UUID uuid,
+        // name of each calculated time series to its expression, e.g. {"c": "a + 2 * b"}
+        @RequestBody Map<String, String> definitions,
+        @RequestParam(required = false) boolean tryToCompress,
+        @RequestParam(required = false) Instant startInstant,
+        @RequestParam(required = false) Instant endInstant,
+        HttpServletResponse response
+    ) throws Exception {
+        // the reservation is held until the response is written
+        try (TimeSeriesMemoryBudget.Reservation reservation = timeSeriesMemoryBudget.reserve(
+                timeSeriesService.estimateCalculatedTimeSeriesMemory(uuid, definitions, startInstant, endInstant))) {
+            List<TimeSeries> list = timeSeriesService.getCalculatedTimeSeries(uuid, definitions, tryToCompress, startInstant, endInstant);
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            timeSeriesJsonWriter.writeJson(list, response.getOutputStream());
+        }
+    }
+
+    @GetMapping(value = "/timeseries-group/{uuid}/export")
+    @Operation(summary = "Export all the data of a time series group as CSV or in the columnar format of the archives")
+    @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "The data of the time series group, streamed")})
+    public void exportTimeSeriesGroup(
+        @PathVariable UUID uuid,
+        @RequestParam(required = false, defaultValue = "CSV") TimeSeriesExporter.Format format,
+        HttpServletResponse response
+    ) throws Exception {
+        // the rows are streamed, the memory doesn't depend on the size of the group so the budget is not used
+        response.setContentType(TimeSeriesExporter.getContentType(format));
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader("Content-Disposition", "attachment; filename=\"" + uuid + TimeSeriesExporter.getFileExtension(format) + "\"");
+        timeSeriesService.exportTimeSeriesGroup(uuid, format, response.getOutputStream());
+    }
+
+    @GetMapping(value = "/timeseries-group/{uuid}/values")
+    @Operation(summary = "Get the values of time series of a group at some instants")
+    @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "The values, as an instants x time series matrix")})
+    public TimeSeriesGroupValuesInfos getTimeSeriesGroupValues(
+        @PathVariable UUID uuid,
+        @RequestParam List<Instant> instants,
         @RequestParam(required = false) List<String> timeSeriesNames
     ) {
-        List<TimeSeries> list = timeSeriesService.getTimeSeriesGroup(uuid, tryToCompress, time, timeSeriesNames);
-        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(TimeSeries.toJson(list));
+        return timeSeriesService.getTimeSeriesGroupValues(uuid, instants, timeSeriesNames);
+    }
+
+    @PostMapping(value = "/timeseries-group/align")
+    @Operation(summary = "Get the values of time series of several groups aligned on a target index")
+    @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "The values, as a target instants x time series matrix"),
+        @ApiResponse(responseCode = "400", description = "Invalid target index, unknown time series or policy not supported by the string time series"),
+        @ApiResponse(responseCode = "503", description = "The memory budget is exhausted, retry after the Retry-After delay")})
+    public TimeSeriesGroupValuesInfos alignTimeSeries(@RequestBody TimeSeriesAlignment alignment) {
+        try (TimeSeriesMemoryBudget.Reservation reservation = timeSeriesMemoryBudget.reserve(timeSeriesService.estimateAlignMemory(alignment))) {
+            return timeSeriesService.alignTimeSeries(alignment);
+        }
+    }
+
+    @GetMapping(value = "/timeseries-group/{uuid}/threshold")
+    @Operation(summary = "Get the instants where double time series of a group are above (or below) a threshold")
+    @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "The instants of each time series, by name"),
+        @ApiResponse(responseCode = "400", description = "Unknown time series or not double time series")})
+    public Map<String, List<Instant>> findThresholdInstants(
+        @PathVariable UUID uuid,
+        @RequestParam double threshold,
+        @RequestParam(required = false) boolean below,
+        @RequestParam(required = false) List<String> timeSeriesNames,
+        @RequestParam(required = false) Instant startInstant,
+        @RequestParam(required = false) Instant endInstant
+    ) {
+        return timeSeriesService.findThresholdInstants(uuid, timeSeriesNames, threshold, below, startInstant, endInstant);
+    }
+
+    @GetMapping(value = "/timeseries-group/{uuid}/first-crossing")
+    @Operation(summary = "Get the first instant where double time series of a group are above (or below) a threshold")
+    @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "The first instant of each time series which crosses the threshold, by name"),
+        @ApiResponse(responseCode = "400", description = "Unknown time series or not double time series")})
+    public Map<String, Instant> findFirstCrossing(
+        @PathVariable UUID uuid,
+        @RequestParam double threshold,
+        @RequestParam(required = false) boolean below,
+        @RequestParam(required = false) List<String> timeSeriesNames,
+        @RequestParam(required = false) Instant startInstant,
+        @RequestParam(required = false) Instant endInstant
+    ) {
+        return timeSeriesService.findFirstCrossing(uuid, timeSeriesNames, threshold, below, startInstant, endInstant);
+    }
+
+    @PostMapping(value = "/timeseries-group/{uuid}/copy")
+    @Operation(summary = "Create a time series group with some of the time series and points of a group")
+    @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "The time series group was successfully copied"),
+        @ApiResponse(responseCode = "400", description = "Unknown time series or no point to copy")})
+    public TimeSeriesGroupInfos copyTimeSeriesGroup(
+        @PathVariable UUID uuid,
+        @RequestParam(required = false) List<String> timeSeriesNames,
+        @RequestParam(required = false) Instant startInstant,
+        @RequestParam(required = false) Instant endInstant
+    ) {
+        return timeSeriesService.copyTimeSeriesGroup(uuid, timeSeriesNames, startInstant, endInstant);
+    }
+
+    @PostMapping(value = "/timeseries-group/{uuid}/rehydrate")
+    @Operation(summary = "Move the data of an archived time series group back to the database")
+    @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "The time series group is not archived anymore"),
+        @ApiResponse(responseCode = "503", description = "The memory budget is exhausted, retry after the Retry-After delay")})
+    public void rehydrateTimeSeriesGroup(
+        @PathVariable UUID uuid
+    ) {
+        try (TimeSeriesMemoryBudget.Reservation reservation = timeSeriesMemoryBudget.reserve(timeSeriesService.estimateRehydrateMemory(uuid))) {
+            timeSeriesService.rehydrateTimeSeriesGroup(uuid);
+        }
     }
 
     @DeleteMapping(value = "/timeseries-group/{uuid}")
@@ -11,9 +11,50 @@ import java.util.stream.Collectors;
 
 public final class TimeSeriesDataQueryCatalog {
 
-    public static final String INSERT = "insert into timeseries_group_data ( group_id, time, json_obj ) values (?,?,?);";
+    public static final String INSERT = "insert into timeseries_group_data ( group_id, time, instant, json_obj ) values (?,?,?,?);";
     public static final String COUNT = "select count(*) from timeseries_group_data where group_id=?;";
     public static final String DELETE = "delete from timeseries_group_data where group_id=?";
+    public static final String SELECT_POINT_RANGE = "select min(time), max(time) from timeseries_group_data where group_id=? and instant>=? and instant<?;";
+    public static final String SELECT_FIRST_POINT_INSTANT = "select instant from timeseries_group_data where group_id=? and time=0;";
+    // copy of the rows [from, to) of a group to the rows [0, to - from) of another group
+    public static final String COPY = "insert into timeseries_group_data (group_id, time, instant, json_obj) "
+            + "select ?, time - ?, instant, json_obj from timeseries_group_data where group_id=? and time>=? and time<?;";
+    // same as COPY with only some keys of json_obj
+    public static final String COPY_NAMES = "insert into timeseries_group_data (group_id, time, instant, json_obj) "
+            + "select ?, time - ?, instant, (select coalesce(jsonb_object_agg(key, value), '{}'::jsonb) from jsonb_each(json_obj) where key = any(?)) "
+            + "from timeseries_group_data where group_id=? and time>=? and time<?;";
+    public static final String SELECT_POINTS = "select time, json_obj from timeseries_group_data where group_id=? and time = any(?);";
+    // the zone maps are saved again when the data of a group is saved again (rehydrated)
+    public static final String INSERT_ZONE_MAP = "insert into timeseries_group_zone_map (group_id, name, block_size, mins, maxs) values (?,?,?,?,?) "
+            + "on conflict (group_id, name) do update set block_size=excluded.block_size, mins=excluded.mins, maxs=excluded.maxs;";
+    public static final String SELECT_ZONE_MAPS = "select name, block_size, mins, maxs from timeseries_group_zone_map where group_id=? and name = any(?);";
+    public static final String COPY_ZONE_MAPS = "insert into timeseries_group_zone_map (group_id, name, block_size, mins, maxs) "
+            + "select ?, name, block_size, mins, maxs from timeseries_group_zone_map where group_id=? and name = any(?);";
+    public static final String DELETE_ZONE_MAPS = "delete from timeseries_group_zone_map where group_id=?";
+
+    // the contents of the deduplicated time series, see TimeSeriesDataRepository.doSaveContents.
+    // The first reference inserts the content (its blocks are written in the same transaction), the others
+    // wait for it to be committed and only count.
+    public static final String ACQUIRE_CONTENT = "insert into timeseries_content (hash, data_type, point_count, ref_count) values (?,?,?,1) "
+            + "on conflict (hash) do update set ref_count=timeseries_content.ref_count + 1 returning ref_count;";
+    public static final String INCREMENT_CONTENT = "update timeseries_content set ref_count=ref_count + 1 where hash=?;";
+    public static final String RELEASE_CONTENT = "update timeseries_content set ref_count=ref_count - 1 where hash=? returning ref_count;";
+    public static final String DELETE_CONTENT = "delete from timeseries_content where hash=? and ref_count <= 0;";
+    public static final String INSERT_CONTENT_BLOCK = "insert into timeseries_content_block (hash, block, json_arr) values (?,?,?);";
+    public static final String SELECT_CONTENT_BLOCKS = "select block, json_arr from timeseries_content_block where hash=? and block>=? and block<?;";
+    public static final String SELECT_CONTENT_BLOCK_LIST = "select block, json_arr from timeseries_content_block where hash=? and block = any(?);";
+    public static final String DELETE_CONTENT_BLOCKS = "delete from timeseries_content_block where hash=?;";
+
+    // the groups being archived, see TimeSeriesArchiver.archive. Not mapped in the entity, so that
+    // the saves of the group don't overwrite the claims
+    public static final String CLAIM_ARCHIVE = "update timeseries_group set archive_claim_date=? "
+            + "where id=? and archive_path is null and (archive_claim_date is null or archive_claim_date<?);";
+    public static final String RELEASE_ARCHIVE_CLAIM = "update timeseries_group set archive_claim_date=null where id=?;";
+
+    // reads of the groups on the replicas, see TimeSeriesGroupReplicaRepository
+    public static final String SELECT_GROUP_IDS = "select id from timeseries_group;";
+    public static final String SELECT_GROUP = "select id, index_type, index, metadatas, statistics, last_access_date, archive_path, last_write_date, purge_date "
+            + "from timeseries_group where id=?;";
 
     private static final String SELECTALL = "select time, json_obj from timeseries_group_data where group_id=? and time>=? and time <? order by time;";
 
@@ -6,26 +6,41 @@
  */
 package org.gridsuite.timeseries.server;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ForkJoinPool;
-import java.util.concurrent.ForkJoinTask;
 import java.util.concurrent.TimeUnit;
 import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.datasource.DataSourceUtils;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Stopwatch;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.powsybl.timeseries.AbstractTimeSeries;
 import com.powsybl.timeseries.DoubleDataChunk;
 import com.powsybl.timeseries.DoubleTimeSeries;
 import com.powsybl.timeseries.StoredDoubleTimeSeries;
@@ -50,17 +65,34 @@ public class TimeSeriesDataRepository {
     private final ObjectMapper objectMapper;
     private final HikariDataSource datasource;
     private final TimeSeriesMetadataService timeSeriesMetadataService;
+    private final TimeSeriesTaskExecutor timeSeriesTaskExecutor;
+    private final TimeSeriesMetrics timeSeriesMetrics;
+    private final TimeSeriesBatchTuner timeSeriesBatchTuner;
+    private final TimeSeriesDataSources timeSeriesDataSources;
+
+    // last write date of the reads which must use the primary, see TimeSeriesDataSources
+    private static final Instant READ_FROM_PRIMARY = Instant.MAX;
+    // points by block of the contents of the deduplicated time series, not configurable because
+    // the contents are shared by groups saved at different times
+    private static final int CONTENT_BLOCK_SIZE = 4096;
 
     public TimeSeriesDataRepository(ObjectMapper objectMapper, HikariDataSource datasource,
-            TimeSeriesMetadataService timeSeriesMetadataService) {
+            TimeSeriesMetadataService timeSeriesMetadataService, TimeSeriesTaskExecutor timeSeriesTaskExecutor,
+            TimeSeriesMetrics timeSeriesMetrics, TimeSeriesBatchTuner timeSeriesBatchTuner,
+            TimeSeriesDataSources timeSeriesDataSources) {
         this.objectMapper = objectMapper;
         this.datasource = datasource;
         this.timeSeriesMetadataService = timeSeriesMetadataService;
+        this.timeSeriesTaskExecutor = timeSeriesTaskExecutor;
+        this.timeSeriesMetrics = timeSeriesMetrics;
+        this.timeSeriesBatchTuner = timeSeriesBatchTuner;
+        this.timeSeriesDataSources = timeSeriesDataSources;
     }
 
     // TODO tune these parameters for performance
     // TODO make these parameters in application.yaml
-    // TODO difference between strings and double ?
+    // These are the static values, or the initial values when the adaptive tuning
+    // is enabled (it tunes strings and doubles separately, see TimeSeriesBatchTuner)
     // 30000 values => e.g. 100 rows of 300 cols
     @Value("${timeseries.write-batch-size:30000}")
     private int writebatchsize;
@@ -69,55 +101,175 @@ public class TimeSeriesDataRepository {
     @Value("${timeseries.write-batch-per-connection:3}")
     private int writebatchperconnection;
     // 10000 values => e.g. 17 rows of 300 cols
-    // TODO difference between strings and double ?
     @Value("${timeseries.read-batch-size:5000}")
     private int readbatchsize;
     // 1 batch per connection values => e.g. 17 rows of 300 cols
     @Value("${timeseries.read-batch-per-connection:1}") // TODO do we need this or always 1 ??
     private int readbatchperconnection;
+    // 300000 values => e.g. 1000 rows of 300 cols copied by each task, the copy
+    // doesn't leave the database so the batches can be much bigger
+    @Value("${timeseries.copy-batch-size:300000}")
+    private int copybatchsize;
+    // points by block of the zone maps of the double time series, smaller blocks
+    // skip more points in the searches but make bigger zone maps
+    @Value("${timeseries.zone-map-block-size:256}")
+    private int zonemapblocksize;
+    // the string time series with at most this number of distinct values (and at least two
+    // values for each distinct value) are stored as codes in a dictionary, 0 to disable
+    @Value("${timeseries.string-dictionary-max-size:65536}")
+    private int stringdictionarymaxsize;
+    // the values of each time series are stored once by content (sha-256 of the values) and shared by all
+    // the groups with the same time series, instead of in the rows of each group, see doSaveContents
+    @Value("${timeseries.dedup.enabled:false}")
+    private boolean dedupenabled;
+
+    /**
+     * What save computes from the data of the time series, by name: the statistics of all the time series,
+     * the dictionaries of the dictionary encoded string time series, the lengths of the time series which
+     * don't have all the points and the content references of the deduplicated time series, to store with the
+     * metadatas (see TimeSeriesMetadataService.individualMetadatasWithDictionaries, individualMetadatasWithLengths
+     * and individualMetadatasWithContents).
+     */
+    public record SavedData(Map<String, TimeSeriesStatistics> statistics, Map<String, List<String>> dictionaries,
+            Map<String, Integer> lengths, Map<String, TimeSeriesContentRef> contents) {
+    }
+
+    private Connection getConnection(TimeSeriesMetrics.Scope scope) throws Exception {
+        long start = System.nanoTime();
+        Connection connection = datasource.getConnection();
+        timeSeriesMetrics.recordConnectionAcquire(scope, System.nanoTime() - start);
+        return connection;
+    }
+
+    // Connection for the reads of the data of a group written at lastWriteDate, from a replica when possible
+    private Connection getReadConnection(TimeSeriesMetrics.Scope scope, Instant lastWriteDate) throws Exception {
+        long start = System.nanoTime();
+        Connection connection = timeSeriesDataSources.getReadConnection(lastWriteDate);
+        timeSeriesMetrics.recordConnectionAcquire(scope, System.nanoTime() - start);
+        return connection;
+    }
 
-    public void save(UUID uuid, List<TimeSeries> listTimeSeries) {
+    /**
+     * What a save or a copy wrote on its own connections, outside of the transaction of the caller: the rows
+     * and the zone maps of the groups and the references to the contents. It is undone when the write fails,
+     * or when the transaction of the caller is rolled back.
+     */
+    private final class WriteUndo implements TransactionSynchronization {
+        private final List<UUID> uuids;
+        // once by occurrence, as they are released
+        private final List<String> hashes = Collections.synchronizedList(new ArrayList<>());
+        private boolean undone;
+
+        private WriteUndo(List<UUID> uuids) {
+            this.uuids = uuids;
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(this);
+            }
+        }
+
+        private void undo() {
+            if (undone) {
+                return;
+            }
+            undone = true;
+            try {
+                for (UUID uuid : uuids) {
+                    doDelete(uuid);
+                    doDeleteZoneMaps(uuid);
+                }
+                doReleaseContents(List.copyOf(hashes));
+            } catch (Exception e) {
+                LOGGER.error("Error undoing the write of time series groups " + uuids, e);
+            }
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            if (status == STATUS_ROLLED_BACK) {
+                undo();
+            }
+        }
+    }
+
+    /**
+     * Saves the data of the time series and returns their statistics, dictionaries, lengths and contents.
+     * The missing values are not stored, the rows only have the time series with a value. When the
+     * deduplication is enabled, the rows don't have any value, they are in the contents.
+     * Nothing is left when the save fails or when the transaction of the caller is rolled back.
+     */
+    public SavedData save(UUID uuid, List<TimeSeries> listTimeSeries) {
         try {
-            doSave(uuid, listTimeSeries);
+            return doSave(uuid, listTimeSeries);
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
     }
 
-    // TODO untangle multithreaded scatter/gather from actual work
-    private void doSave(UUID uuid, List<TimeSeries> listTimeSeries) throws Exception {
-
-        int colcount = listTimeSeries.size();
-        int rowcount = listTimeSeries.get(0).getMetadata().getIndex().getPointCount();
-
-        int batchrow = (writebatchsize + colcount - 1) / colcount;
-        int batchcount = (rowcount + batchrow - 1) / batchrow;
+    /**
+     * Same as save for several groups (by id), the rows of all the groups are written in shared batches
+     * so that many small groups are written as fast as a big one.
+     */
+    public Map<UUID, SavedData> saveAll(Map<UUID, List<TimeSeries>> groups) {
+        try {
+            return doSaveAll(groups);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
 
-        int threadcount = (batchcount + writebatchperconnection - 1) / writebatchperconnection;
-        int batchinthread = (batchcount + threadcount - 1) / threadcount;
+    // The rows of a group to write, see doPrepareSave
+    private record PreparedSave(UUID uuid, TimeSeriesIndex index, TimeSeriesDataType dataType, List<String> names,
+            BiFunction<Integer, Integer, Object> dataGetter, Map<String, TimeSeriesZoneMap> zoneMaps, SavedData saved) {
+        int rowcount() {
+            return index.getPointCount();
+        }
 
-        List<Callable<Void>> callables = new ArrayList<>(Collections.nCopies(threadcount, null));
+        int colcount() {
+            return names.size();
+        }
+    }
 
-        LOGGER.debug(
-                "insert start {}, {} instants by {} time series, in batch of {} rows ({} doubles for each batch), numbatch={}, numthreads={}, batchinthread={}",
-                uuid, rowcount, colcount, batchrow, batchrow * colcount, batchcount, threadcount, batchinthread);
-        Stopwatch stopwatch = Stopwatch.createStarted();
+    // Everything before the writes of the rows: the transpose, the statistics, the zone maps, the dictionaries,
+    // the lengths and the contents. The data getter returns the json value of the column col at the row row.
+    private PreparedSave doPrepareSave(UUID uuid, List<TimeSeries> listTimeSeries, WriteUndo undo) throws Exception {
+        int colcount = listTimeSeries.size();
+        TimeSeriesMetadata metadata = listTimeSeries.get(0).getMetadata();
+        TimeSeriesIndex index = metadata.getIndex();
+        int rowcount = index.getPointCount();
+        TimeSeriesMetrics.Scope scope = timeSeriesMetrics.scope(TimeSeriesMetrics.WRITE, metadata.getDataType(), (long) rowcount * colcount);
 
         // TODO here we transpose, which means it's impossible to stream
         // data from the client to the database, the server has to buffer in memory.
         // try to change the API to allow streaming.
         // TODO avoid copying the data (timeSeries toArray())?
-        // TODO, using toArray() doesn't allow to know if the client has missing data
-        // at the end of the time series in the json. For example, [1,2,3, NaN] or [1,2,3] both
-        // return the same toArray() of {1,2,3, Double.NaN}. For Strings, it's {"foo", "bar", null}.
-        // This can have a big impact for a timeSeries with only missing data ( [] vs [null,null, ..., null]
+        // toArray() doesn't allow to know if the client has missing data at the end of the time series
+        // in the json. For example, [1,2,3, NaN] or [1,2,3] both return the same toArray() of {1,2,3, Double.NaN}.
+        // For Strings, it's {"foo", "bar", null}. So the number of points sent by the client (the end of the
+        // last chunk) is kept in the lengths, the points after it are missing instead of NaN when read.
+        Map<String, Integer> lengths = new LinkedHashMap<>();
+        for (TimeSeries timeSeries : listTimeSeries) {
+            int length = getSentLength(timeSeries, rowcount);
+            if (length < rowcount) {
+                lengths.put(timeSeries.getMetadata().getName(), length);
+            }
+        }
         BiFunction<Integer, Integer, Object> stringOrDoubledataGetter;
-        TimeSeriesMetadata metadata = listTimeSeries.get(0).getMetadata();
+        // the statistics and the zone maps are computed on the arrays, in the same pass as the copy
+        Map<String, TimeSeriesStatistics> statistics = new LinkedHashMap<>();
+        Map<String, TimeSeriesZoneMap> zoneMaps = new LinkedHashMap<>();
+        Map<String, List<String>> dictionaries = new LinkedHashMap<>();
+        // double[] or String[] of each time series
+        List<Object> columns = new ArrayList<>(colcount);
+        Stopwatch transposeStopwatch = Stopwatch.createStarted();
         if (TimeSeriesDataType.DOUBLE == metadata.getDataType()) {
             List<double[]> datadouble = new ArrayList<>();
             for (int i = 0; i < listTimeSeries.size(); i++) {
                 // TODO timeSeries raw type
-                datadouble.add(((DoubleTimeSeries) listTimeSeries.get(i)).toArray());
+                double[] values = ((DoubleTimeSeries) listTimeSeries.get(i)).toArray();
+                datadouble.add(values);
+                columns.add(values);
+                statistics.put(listTimeSeries.get(i).getMetadata().getName(), TimeSeriesStatistics.ofDoubles(values));
+                zoneMaps.put(listTimeSeries.get(i).getMetadata().getName(), TimeSeriesZoneMap.of(values, zonemapblocksize));
             }
             stringOrDoubledataGetter = (row, col) -> {
                 double d = datadouble.get(row)[col];
@@ -126,19 +278,99 @@ public class TimeSeriesDataRepository {
             };
         } else if (TimeSeriesDataType.STRING == metadata.getDataType()) {
             List<String[]> datastring = new ArrayList<>();
+            // codes of the values of the dictionary encoded time series, null for the others
+            List<Map<String, Integer>> datacodes = new ArrayList<>();
             for (int i = 0; i < listTimeSeries.size(); i++) {
-
-                datastring.add(((StringTimeSeries) listTimeSeries.get(i)).toArray());
+                String[] values = ((StringTimeSeries) listTimeSeries.get(i)).toArray();
+                datastring.add(values);
+                columns.add(values);
+                String name = listTimeSeries.get(i).getMetadata().getName();
+                TimeSeriesStatistics nameStatistics = TimeSeriesStatistics.ofStrings(values);
+                statistics.put(name, nameStatistics);
+                // the contents are shared by groups, they have the values
+                Map<String, Integer> codes = dedupenabled ? null : makeDictionary(values, nameStatistics.getCount());
+                datacodes.add(codes);
+                if (codes != null) {
+                    dictionaries.put(name, List.copyOf(codes.keySet()));
+                }
             }
-            stringOrDoubledataGetter = (row, col) -> datastring.get(row)[col];
+            stringOrDoubledataGetter = (row, col) -> {
+                String s = datastring.get(row)[col];
+                Map<String, Integer> codes = datacodes.get(row);
+                return s == null || codes == null ? s : codes.get(s);
+            };
         } else {
             throw new RuntimeException("Unsupported save of timeSeries type " + metadata.getDataType());
         }
+        timeSeriesMetrics.recordPhase(scope, TimeSeriesMetrics.PHASE_TRANSPOSE, transposeStopwatch);
+
+        Map<String, TimeSeriesContentRef> contents = Map.of();
+        if (dedupenabled) {
+            contents = doSaveContents(listTimeSeries, columns, metadata.getDataType(), undo.hashes);
+            // the rows are still stored, without values, for the instants of the points
+            stringOrDoubledataGetter = (row, col) -> null;
+        }
+        List<String> names = listTimeSeries.stream().map(timeSeries -> timeSeries.getMetadata().getName()).toList();
+        return new PreparedSave(uuid, index, metadata.getDataType(), names, stringOrDoubledataGetter, zoneMaps,
+                new SavedData(statistics, dictionaries, lengths, contents));
+    }
+
+    // Sets the parameters of the insert of a row, returns the size of its json
+    private long setRow(PreparedStatement ps, PreparedSave prepared, int row) throws Exception {
+        Map<String, Object> tsdata = new HashMap<>();
+        for (int col = 0; col < prepared.colcount(); col++) {
+            Object tsData = prepared.dataGetter().apply(col, row);
+            // sparse rows: the missing values are not stored, a row without
+            // values is still stored ({}) for the instant of its point
+            if (tsData != null) {
+                tsdata.put(prepared.names().get(col), tsData);
+            }
+        }
+        ps.setObject(1, prepared.uuid());
+        ps.setInt(2, row);
+        // TODO durations ?
+        ps.setTimestamp(3, Timestamp.from(prepared.index().getInstantAt(row)));
+        String json = objectMapper.writeValueAsString(tsdata);
+        ps.setObject(4, json, java.sql.Types.OTHER);
+        return json.length();
+    }
+
+    // TODO untangle multithreaded scatter/gather from actual work
+    private SavedData doSave(UUID uuid, List<TimeSeries> listTimeSeries) throws Exception {
+        WriteUndo undo = new WriteUndo(List.of(uuid));
+        try {
+            return doSave(uuid, listTimeSeries, undo);
+        } catch (Exception e) {
+            undo.undo();
+            throw e;
+        }
+    }
+
+    private SavedData doSave(UUID uuid, List<TimeSeries> listTimeSeries, WriteUndo undo) throws Exception {
+        PreparedSave prepared = doPrepareSave(uuid, listTimeSeries, undo);
+        int colcount = prepared.colcount();
+        int rowcount = prepared.rowcount();
+
+        TimeSeriesBatchTuner.BatchPlan plan = timeSeriesBatchTuner.plan(TimeSeriesMetrics.WRITE, prepared.dataType(),
+                writebatchsize, writebatchperconnection);
+        int batchrow = (plan.batchSize() + colcount - 1) / colcount;
+        int batchcount = (rowcount + batchrow - 1) / batchrow;
+
+        int threadcount = (batchcount + plan.batchPerConnection() - 1) / plan.batchPerConnection();
+        int batchinthread = (batchcount + threadcount - 1) / threadcount;
+
+        List<Callable<Void>> callables = new ArrayList<>(Collections.nCopies(threadcount, null));
+
+        LOGGER.debug(
+                "insert start {}, {} instants by {} time series, in batch of {} rows ({} doubles for each batch), numbatch={}, numthreads={}, batchinthread={}",
+                uuid, rowcount, colcount, batchrow, batchrow * colcount, batchcount, threadcount, batchinthread);
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        TimeSeriesMetrics.Scope scope = timeSeriesMetrics.scope(TimeSeriesMetrics.WRITE, prepared.dataType(), (long) rowcount * colcount);
 
         for (int i = 0; i < threadcount; i++) {
             int iCopy = i;
-            callables.set(i, () -> {
-                try (var conn = datasource.getConnection();
+            callables.set(i, timeSeriesMetrics.trackInFlight(scope, () -> {
+                try (var conn = getConnection(scope);
                 ) {
                     conn.setAutoCommit(false);
                     try (var ps = conn.prepareStatement(TimeSeriesDataQueryCatalog.INSERT);) {
@@ -147,29 +379,22 @@ public class TimeSeriesDataRepository {
                         int remainingrows = rowcount % (batchinthread * batchrow);
                         int threadrowcount = iCopy == threadcount - 1 && remainingrows > 0 ? remainingrows
                                 : batchinthread * batchrow;
+                        long bytes = 0;
                         for (int l = 0; l < threadrowcount; l++) {
-                            int row = threadrowstart + l;
-                            Map<String, Object> tsdata = new HashMap<>();
-                            for (int m = 0; m < colcount; m++) {
-                                int col = m;
-                                String tsName = listTimeSeries.get(col).getMetadata().getName();
-                                Object tsData = stringOrDoubledataGetter.apply(col, row);
-                                tsdata.put(tsName, tsData);
-                            }
-                            ps.setObject(1, uuid);
-                            // TODO instants/durations ?
-                            // ps.setObject(1,
-                            //   Timestamp.from(listTimeSeries.get(0).getMetadata().getIndex().getInstantAt(row)));
-                            ps.setInt(2, row);
-                            ps.setObject(3, objectMapper.writeValueAsString(tsdata), java.sql.Types.OTHER);
+                            bytes += setRow(ps, prepared, threadrowstart + l);
                             ps.addBatch();
 
                             if (l == threadrowcount - 1 || (l % batchrow) == batchrow - 1) {
+                                long batchStart = System.nanoTime();
                                 ps.executeBatch();
+                                long batchNanos = System.nanoTime() - batchStart;
+                                timeSeriesMetrics.recordPhase(scope, TimeSeriesMetrics.PHASE_DB_BATCH, batchNanos);
+                                timeSeriesBatchTuner.observe(plan, (long) (l % batchrow + 1) * colcount, batchNanos);
                             }
                         }
 
                         conn.commit();
+                        timeSeriesMetrics.countData(scope, threadrowcount, (long) threadrowcount * colcount, bytes);
                     } catch (Exception e) {
                         LOGGER.error("Error saving timeSeries data", e);
                         conn.rollback();
@@ -179,66 +404,494 @@ public class TimeSeriesDataRepository {
                     }
                 }
                 return null;
-            });
+            }));
+        }
+        timeSeriesTaskExecutor.invokeAll(callables, datasource.getMaximumPoolSize());
+        doSaveZoneMaps(List.of(prepared));
+        LOGGER.debug("insert done {}, took {}ms", uuid, stopwatch.elapsed(TimeUnit.MILLISECONDS));
+        return prepared.saved();
+    }
+
+    // TODO untangle multithreaded scatter/gather from actual work
+    private Map<UUID, SavedData> doSaveAll(Map<UUID, List<TimeSeries>> groups) throws Exception {
+        WriteUndo undo = new WriteUndo(List.copyOf(groups.keySet()));
+        try {
+            return doSaveAll(groups, undo);
+        } catch (Exception e) {
+            undo.undo();
+            throw e;
         }
-        //TODO improve multithread impl ? use better APIs than forkjoinpool ? don't create the pool for each request ?
-        if (threadcount > 1) {
-            List<ForkJoinTask<Void>> tasks = new ArrayList<>(Collections.nCopies(threadcount, null));
-            int size = datasource.getMaximumPoolSize();
-            LOGGER.debug("insert in forkjoinpool size={}", size);
-            ForkJoinPool pool = new ForkJoinPool(size);
-            for (int i = 0; i < threadcount; i++) {
-                tasks.set(i, pool.submit(callables.get(i)));
+    }
+
+    private Map<UUID, SavedData> doSaveAll(Map<UUID, List<TimeSeries>> groups, WriteUndo undo) throws Exception {
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        Map<UUID, SavedData> res = new LinkedHashMap<>();
+        Map<TimeSeriesDataType, List<PreparedSave>> preparedByType = new EnumMap<>(TimeSeriesDataType.class);
+        for (Map.Entry<UUID, List<TimeSeries>> group : groups.entrySet()) {
+            PreparedSave prepared = doPrepareSave(group.getKey(), group.getValue(), undo);
+            preparedByType.computeIfAbsent(prepared.dataType(), ignored -> new ArrayList<>()).add(prepared);
+            res.put(group.getKey(), prepared.saved());
+        }
+        // the batches are tuned by data type
+        for (Map.Entry<TimeSeriesDataType, List<PreparedSave>> prepared : preparedByType.entrySet()) {
+            doInsertPacked(prepared.getValue(), prepared.getKey());
+            doSaveZoneMaps(prepared.getValue());
+        }
+        LOGGER.debug("insert done for {} groups, took {}ms", groups.size(), stopwatch.elapsed(TimeUnit.MILLISECONDS));
+        return res;
+    }
+
+    // Writes the rows of the groups one after the other, cut in batches of the batch size in values
+    // (a batch can have the rows of several groups) which are spread over the connections as in doSave.
+    private void doInsertPacked(List<PreparedSave> groups, TimeSeriesDataType dataType) throws Exception {
+        TimeSeriesBatchTuner.BatchPlan plan = timeSeriesBatchTuner.plan(TimeSeriesMetrics.WRITE, dataType,
+                writebatchsize, writebatchperconnection);
+        // the first row of each batch, as {group, row}, and the end of the last batch
+        List<int[]> batchstarts = new ArrayList<>();
+        long batchvalues = 0;
+        long cellcount = 0;
+        for (int g = 0; g < groups.size(); g++) {
+            PreparedSave group = groups.get(g);
+            for (int row = 0; row < group.rowcount(); row++) {
+                if (batchvalues == 0) {
+                    batchstarts.add(new int[] {g, row});
+                }
+                // a row without values still costs a row
+                batchvalues += Math.max(1, group.colcount());
+                if (batchvalues >= plan.batchSize()) {
+                    batchvalues = 0;
+                }
             }
-            for (int i = 0; i < threadcount; i++) {
-                tasks.get(i).get();
+            cellcount += (long) group.rowcount() * group.colcount();
+        }
+        batchstarts.add(new int[] {groups.size(), 0});
+        int batchcount = batchstarts.size() - 1;
+        if (batchcount == 0) {
+            return;
+        }
+        int threadcount = (batchcount + plan.batchPerConnection() - 1) / plan.batchPerConnection();
+        int batchinthread = (batchcount + threadcount - 1) / threadcount;
+        LOGGER.debug("packed insert start, {} groups, {} values in batch of {} values, numbatch={}, numthreads={}, batchinthread={}",
+                groups.size(), cellcount, plan.batchSize(), batchcount, threadcount, batchinthread);
+        TimeSeriesMetrics.Scope scope = timeSeriesMetrics.scope(TimeSeriesMetrics.WRITE, dataType, cellcount);
+
+        List<Callable<Void>> callables = new ArrayList<>(threadcount);
+        for (int i = 0; i < threadcount; i++) {
+            int firstbatch = i * batchinthread;
+            int lastbatch = Math.min(batchcount, firstbatch + batchinthread);
+            callables.add(timeSeriesMetrics.trackInFlight(scope, () -> {
+                try (var conn = getConnection(scope);
+                ) {
+                    conn.setAutoCommit(false);
+                    try (var ps = conn.prepareStatement(TimeSeriesDataQueryCatalog.INSERT);) {
+                        long bytes = 0;
+                        long threadrows = 0;
+                        long threadvalues = 0;
+                        for (int batch = firstbatch; batch < lastbatch; batch++) {
+                            int[] end = batchstarts.get(batch + 1);
+                            int g = batchstarts.get(batch)[0];
+                            int row = batchstarts.get(batch)[1];
+                            long values = 0;
+                            while (g < end[0] || g == end[0] && row < end[1]) {
+                                PreparedSave group = groups.get(g);
+                                bytes += setRow(ps, group, row);
+                                ps.addBatch();
+                                values += group.colcount();
+                                threadrows++;
+                                if (++row == group.rowcount()) {
+                                    g++;
+                                    row = 0;
+                                }
+                            }
+                            long batchStart = System.nanoTime();
+                            ps.executeBatch();
+                            long batchNanos = System.nanoTime() - batchStart;
+                            timeSeriesMetrics.recordPhase(scope, TimeSeriesMetrics.PHASE_DB_BATCH, batchNanos);
+                            timeSeriesBatchTuner.observe(plan, values, batchNanos);
+                            threadvalues += values;
+                        }
+                        conn.commit();
+                        timeSeriesMetrics.countData(scope, threadrows, threadvalues, bytes);
+                    } catch (Exception e) {
+                        LOGGER.error("Error saving timeSeries data", e);
+                        conn.rollback();
+                        throw new RuntimeException(e);
+                    } finally {
+                        conn.setAutoCommit(true);
+                    }
+                }
+                return null;
+            }));
+        }
+        timeSeriesTaskExecutor.invokeAll(callables, datasource.getMaximumPoolSize());
+    }
+
+    // The sha-256 of the values, all the NaN are the same missing value
+    private static String hashContent(TimeSeriesDataType dataType, Object values) {
+        Hasher hasher = Hashing.sha256().newHasher().putString(dataType.name(), StandardCharsets.UTF_8);
+        if (values instanceof double[] doubles) {
+            hasher.putInt(doubles.length);
+            for (double value : doubles) {
+                hasher.putDouble(Double.isNaN(value) ? Double.NaN : value);
             }
         } else {
-            LOGGER.debug("insert in http thread");
-            callables.get(0).call();
+            String[] strings = (String[]) values;
+            hasher.putInt(strings.length);
+            for (String value : strings) {
+                hasher.putBoolean(value != null);
+                if (value != null) {
+                    hasher.putInt(value.length());
+                    hasher.putString(value, StandardCharsets.UTF_8);
+                }
+            }
         }
-        long b = System.nanoTime();
-        LOGGER.debug("insert done {}, took {}ms", uuid, stopwatch.elapsed(TimeUnit.MILLISECONDS));
+        return hasher.hash().toString();
     }
 
-    public List<TimeSeries> findById(TimeSeriesIndex index, Map<String, Object> individualMetadatas, UUID uuid, boolean tryToCompress, String time, List<String> timeSeriesNames) {
+    // Same json values as the rows: NaN is not valid JSON, serialized as null
+    private static Object[] contentBlock(Object values, int from, int to) {
+        Object[] block = new Object[to - from];
+        for (int i = from; i < to; i++) {
+            if (values instanceof double[] doubles) {
+                block[i - from] = Double.isNaN(doubles[i]) ? null : doubles[i];
+            } else {
+                block[i - from] = ((String[]) values)[i];
+            }
+        }
+        return block;
+    }
+
+    // Takes a reference to the content with these values, the first reference writes it. Returns true if
+    // the content was written. The concurrent saves of the same content wait for the first one to commit.
+    private boolean doAcquireContent(String hash, TimeSeriesDataType dataType, Object values, int pointcount) throws Exception {
+        try (var conn = datasource.getConnection();) {
+            conn.setAutoCommit(false);
+            try {
+                boolean created;
+                try (var ps = conn.prepareStatement(TimeSeriesDataQueryCatalog.ACQUIRE_CONTENT);) {
+                    ps.setString(1, hash);
+                    ps.setString(2, dataType.name());
+                    ps.setInt(3, pointcount);
+                    try (var resultSet = ps.executeQuery();) {
+                        resultSet.next();
+                        created = resultSet.getInt(1) == 1;
+                    }
+                }
+                if (created) {
+                    try (var ps = conn.prepareStatement(TimeSeriesDataQueryCatalog.INSERT_CONTENT_BLOCK);) {
+                        for (int from = 0; from < pointcount; from += CONTENT_BLOCK_SIZE) {
+                            ps.setString(1, hash);
+                            ps.setInt(2, from / CONTENT_BLOCK_SIZE);
+                            ps.setObject(3, objectMapper.writeValueAsString(contentBlock(values, from, Math.min(pointcount, from + CONTENT_BLOCK_SIZE))),
+                                    java.sql.Types.OTHER);
+                            ps.addBatch();
+                        }
+                        ps.executeBatch();
+                    }
+                }
+                conn.commit();
+                return created;
+            } catch (Exception e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    // Saves the values of each time series as a content shared by all the time series with the same
+    // values (in all the groups) and returns the references to the contents, by name. The references
+    // are added to acquired as soon as they are taken, to be released if the save fails.
+    private Map<String, TimeSeriesContentRef> doSaveContents(List<TimeSeries> listTimeSeries, List<Object> columns,
+            TimeSeriesDataType dataType, List<String> acquired) throws Exception {
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        int pointcount = listTimeSeries.get(0).getMetadata().getIndex().getPointCount();
+        Map<String, TimeSeriesContentRef> contents = new LinkedHashMap<>();
+        List<Callable<Boolean>> callables = new ArrayList<>(columns.size());
+        for (int col = 0; col < columns.size(); col++) {
+            Object values = columns.get(col);
+            String hash = hashContent(dataType, values);
+            contents.put(listTimeSeries.get(col).getMetadata().getName(), new TimeSeriesContentRef(hash, 0));
+            callables.add(() -> {
+                boolean created = doAcquireContent(hash, dataType, values, pointcount);
+                acquired.add(hash);
+                return created;
+            });
+        }
+        long created = timeSeriesTaskExecutor.invokeAll(callables, datasource.getMaximumPoolSize()).stream().filter(Boolean::booleanValue).count();
+        LOGGER.debug("contents saved, {} new, {} shared, took {}ms", created, columns.size() - created, stopwatch.elapsed(TimeUnit.MILLISECONDS));
+        return contents;
+    }
+
+    // All or none: a content which doesn't exist anymore (the group referencing it was deleted meanwhile)
+    // fails the whole acquisition
+    private void doAcquireContents(List<String> hashes) throws Exception {
+        try (var conn = datasource.getConnection();) {
+            conn.setAutoCommit(false);
+            try (var ps = conn.prepareStatement(TimeSeriesDataQueryCatalog.INCREMENT_CONTENT);) {
+                for (String hash : hashes) {
+                    ps.setString(1, hash);
+                    ps.addBatch();
+                }
+                int[] counts = ps.executeBatch();
+                for (int i = 0; i < counts.length; i++) {
+                    if (counts[i] != 1) {
+                        throw new IllegalStateException("Content " + hashes.get(i) + " not found");
+                    }
+                }
+                conn.commit();
+            } catch (Exception e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * Takes a reference to each content (once by occurrence), for the copies of deduplicated time series.
+     * Fails without taking any if a content doesn't exist. They are released if the transaction of the
+     * caller is rolled back.
+     */
+    public void acquireContents(List<String> hashes) {
         try {
-            return doFindById(index, individualMetadatas, uuid, tryToCompress, time, timeSeriesNames);
+            doAcquireContents(hashes);
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
+        new WriteUndo(List.of()).hashes.addAll(hashes);
     }
 
-    // TODO untangle multithreaded scatter/gather from actual work
-    private List<TimeSeries> doFindById(TimeSeriesIndex index, Map<String, Object> individualMetadatas, UUID uuid, boolean tryToCompress, String time, List<String> timeSeriesNames) throws Exception {
-        Stopwatch stopwatch = Stopwatch.createStarted();
+    private void doReleaseContents(List<String> hashes) throws Exception {
+        try (var conn = datasource.getConnection();) {
+            for (String hash : hashes) {
+                conn.setAutoCommit(false);
+                try {
+                    int refCount;
+                    try (var ps = conn.prepareStatement(TimeSeriesDataQueryCatalog.RELEASE_CONTENT);) {
+                        ps.setString(1, hash);
+                        try (var resultSet = ps.executeQuery();) {
+                            refCount = resultSet.next() ? resultSet.getInt(1) : 0;
+                        }
+                    }
+                    if (refCount <= 0) {
+                        try (var ps = conn.prepareStatement(TimeSeriesDataQueryCatalog.DELETE_CONTENT_BLOCKS);) {
+                            ps.setString(1, hash);
+                            ps.executeUpdate();
+                        }
+                        try (var ps = conn.prepareStatement(TimeSeriesDataQueryCatalog.DELETE_CONTENT);) {
+                            ps.setString(1, hash);
+                            ps.executeUpdate();
+                        }
+                    }
+                    conn.commit();
+                } catch (Exception e) {
+                    conn.rollback();
+                    throw e;
+                } finally {
+                    conn.setAutoCommit(true);
+                }
+            }
+        }
+    }
 
-        int colcount = timeSeriesNames != null ? timeSeriesNames.size() : individualMetadatas.size();
-        int rowcount = index.getPointCount();
+    /**
+     * Releases a reference to each content (once by occurrence), the contents without references are deleted.
+     */
+    public void releaseContents(List<String> hashes) {
+        try {
+            doReleaseContents(hashes);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Releases the references once the transaction of the caller, which removes them from a group, is
+     * committed, so that a rolled back removal keeps them. Releases them at once when there is no transaction.
+     */
+    public void releaseContentsAfterCommit(List<String> hashes) {
+        if (hashes.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            releaseContents(hashes);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                try {
+                    doReleaseContents(hashes);
+                } catch (Exception e) {
+                    // the group doesn't reference them anymore, at worst they are leaked
+                    LOGGER.error("Error releasing the time series contents " + hashes, e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Receives the values (not missing) of a content, at the points of the group.
+     */
+    @FunctionalInterface
+    private interface ContentConsumer {
+        void accept(int point, Object value);
+    }
+
+    // Reads the values of the points [from, to) of a deduplicated time series from the blocks of its content
+    private void readContent(Connection connection, TimeSeriesContentRef content, int from, int to, ContentConsumer consumer) throws Exception {
+        if (from >= to) {
+            return;
+        }
+        try (var ps = connection.prepareStatement(TimeSeriesDataQueryCatalog.SELECT_CONTENT_BLOCKS);) {
+            ps.setString(1, content.hash());
+            ps.setInt(2, (from + content.offset()) / CONTENT_BLOCK_SIZE);
+            ps.setInt(3, (to + content.offset() - 1) / CONTENT_BLOCK_SIZE + 1);
+            try (var resultSet = ps.executeQuery();) {
+                while (resultSet.next()) {
+                    // the point of the first value of the block
+                    int blockpoint = resultSet.getInt(1) * CONTENT_BLOCK_SIZE - content.offset();
+                    List<Object> values = objectMapper.readValue(resultSet.getString(2), List.class);
+                    for (int i = Math.max(0, from - blockpoint); i < Math.min(values.size(), to - blockpoint); i++) {
+                        if (values.get(i) != null) {
+                            consumer.accept(blockpoint + i, values.get(i));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    // Same as readContent for some points only
+    private void readContentPoints(Connection connection, TimeSeriesContentRef content, int[] points, ContentConsumer consumer) throws Exception {
+        Map<Integer, List<Object>> blocks = new HashMap<>();
+        try (var ps = connection.prepareStatement(TimeSeriesDataQueryCatalog.SELECT_CONTENT_BLOCK_LIST);) {
+            ps.setString(1, content.hash());
+            ps.setArray(2, connection.createArrayOf("integer",
+                    Arrays.stream(points).map(point -> (point + content.offset()) / CONTENT_BLOCK_SIZE).distinct().boxed().toArray()));
+            try (var resultSet = ps.executeQuery();) {
+                while (resultSet.next()) {
+                    blocks.put(resultSet.getInt(1), objectMapper.readValue(resultSet.getString(2), List.class));
+                }
+            }
+        }
+        for (int point : points) {
+            int contentpoint = point + content.offset();
+            List<Object> values = blocks.get(contentpoint / CONTENT_BLOCK_SIZE);
+            if (values != null && contentpoint % CONTENT_BLOCK_SIZE < values.size() && values.get(contentpoint % CONTENT_BLOCK_SIZE) != null) {
+                consumer.accept(point, values.get(contentpoint % CONTENT_BLOCK_SIZE));
+            }
+        }
+    }
+
+    // Reads the points [from, to) of the deduplicated time series, one task by time series. The consumers
+    // are called concurrently for different time series.
+    private void readContents(Map<String, TimeSeriesContentRef> contents, int from, int to, Instant lastWriteDate,
+            Function<String, ContentConsumer> consumers) throws Exception {
+        List<Callable<Void>> callables = new ArrayList<>(contents.size());
+        for (Map.Entry<String, TimeSeriesContentRef> entry : contents.entrySet()) {
+            ContentConsumer consumer = consumers.apply(entry.getKey());
+            callables.add(() -> {
+                try (var connection = timeSeriesDataSources.getReadConnection(lastWriteDate);) {
+                    readContent(connection, entry.getValue(), from, to, consumer);
+                }
+                return null;
+            });
+        }
+        timeSeriesTaskExecutor.invokeAll(callables, timeSeriesDataSources.getReadMaximumPoolSize(lastWriteDate));
+    }
+
+    // The number of points sent by the client: the end of its last chunk (all the points for the
+    // time series without chunks, e.g. calculated).
+    private static int getSentLength(TimeSeries timeSeries, int rowcount) {
+        if (timeSeries instanceof AbstractTimeSeries<?, ?, ?> stored) {
+            return Math.min(rowcount, stored.getChunks().stream()
+                    .mapToInt(chunk -> chunk.getOffset() + chunk.getLength()).max().orElse(0));
+        }
+        return rowcount;
+    }
 
-        int batchrow = (readbatchsize + colcount - 1) / colcount;
+    // Returns the codes of the distinct values in the order of their first occurrence, or null
+    // when the time series has too many distinct values to be worth encoding.
+    private Map<String, Integer> makeDictionary(String[] values, long count) {
+        Map<String, Integer> codes = new LinkedHashMap<>();
+        for (String value : values) {
+            if (value != null && codes.putIfAbsent(value, codes.size()) == null
+                    && (codes.size() > stringdictionarymaxsize || codes.size() * 2L > count)) {
+                return null;
+            }
+        }
+        return codes.isEmpty() ? null : codes;
+    }
+
+    public List<TimeSeries> findById(TimeSeriesIndex index, Map<String, Object> individualMetadatas, UUID uuid, boolean tryToCompress, String time, List<String> timeSeriesNames) {
+        return findById(index, 0, individualMetadatas, uuid, tryToCompress, time, timeSeriesNames, READ_FROM_PRIMARY);
+    }
+
+    /**
+     * Reads the points [pointOffset, pointOffset + index.getPointCount()) of the group,
+     * the returned time series have the given index. The data is read from the replicas
+     * when it was written (lastWriteDate) long enough ago, see TimeSeriesDataSources.
+     */
+    public List<TimeSeries> findById(TimeSeriesIndex index, int pointOffset, Map<String, Object> individualMetadatas, UUID uuid, boolean tryToCompress, String time, List<String> timeSeriesNames,
+            Instant lastWriteDate) {
+        try {
+            return doFindById(index, pointOffset, individualMetadatas, uuid, tryToCompress, time, timeSeriesNames, lastWriteDate);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Receives the decoded rows read by one worker.
+     */
+    @FunctionalInterface
+    private interface RowConsumer<T> {
+        void accept(T threadState, int row, Map<Object, Object> values);
+    }
+
+    // TODO untangle multithreaded scatter/gather from actual work
+    // Reads the rows [pointOffset, pointOffset + rowcount) in parallel batches, each worker
+    // passes its rows to the consumer with its own state and the states are returned in order.
+    private <T> List<T> readRows(UUID uuid, int pointOffset, int rowcount, int colcount, List<String> timeSeriesNames,
+            TimeSeriesDataType dataType, Instant lastWriteDate, Supplier<T> threadStateSupplier, RowConsumer<T> rowConsumer) throws Exception {
+        TimeSeriesBatchTuner.BatchPlan plan = timeSeriesBatchTuner.plan(TimeSeriesMetrics.READ, dataType,
+                readbatchsize, readbatchperconnection);
+        int batchrow = (plan.batchSize() + colcount - 1) / colcount;
         int batchcount = (rowcount + batchrow - 1) / batchrow;
 
-        int threadcount = (batchcount + readbatchperconnection - 1) / readbatchperconnection;
+        int threadcount = (batchcount + plan.batchPerConnection() - 1) / plan.batchPerConnection();
         int batchinthread = (batchcount + threadcount - 1) / threadcount;
 
         LOGGER.debug(
-                "select start {}, {} instants by {}/{} time series, in batch of {} rows ({} doubles for each batch), numbatch={}, numthreads={}, batchinthread={}",
-                uuid, rowcount, timeSeriesNames != null ? Integer.toString(timeSeriesNames.size()) : "all", individualMetadatas.size(),
-                batchrow, batchrow * colcount, batchcount, threadcount, batchinthread);
+                "select start {}, {} instants by {} time series, in batch of {} rows ({} doubles for each batch), numbatch={}, numthreads={}, batchinthread={}",
+                uuid, rowcount, colcount, batchrow, batchrow * colcount, batchcount, threadcount, batchinthread);
+
+        TimeSeriesMetrics.Scope scope = timeSeriesMetrics.scope(TimeSeriesMetrics.READ, dataType, (long) rowcount * colcount);
 
-        List<Callable<Map<Object, Object>>> callables = new ArrayList<>(Collections.nCopies(threadcount, null));
+        List<Callable<T>> callables = new ArrayList<>(Collections.nCopies(threadcount, null));
         for (int i = 0; i < threadcount; i++) {
             int iCopy = i;
-            callables.set(i, () -> {
-                Map<Object, Object> threadres = new LinkedHashMap<>();
-                try (var connection = datasource.getConnection();) {
+            callables.set(i, timeSeriesMetrics.trackInFlight(scope, () -> {
+                T threadState = threadStateSupplier.get();
+                long bytes = 0;
+                long decodeNanos = 0;
+                long threadrows = 0;
+                try (var connection = getReadConnection(scope, lastWriteDate);) {
                     for (int l = 0; l < batchinthread; l++) {
                         int threadrowstart = iCopy * batchinthread * batchrow;
                         int remainingrows = rowcount % (batchinthread * batchrow);
                         int threadrowcount = iCopy == threadcount - 1 && remainingrows > 0 ? remainingrows
                                 : batchinthread * batchrow;
                         int threadrowend = threadrowstart + threadrowcount;
+                        int batchrowstart = threadrowstart + l * batchrow;
+                        int batchrowend = Math.min(threadrowend, batchrowstart + batchrow);
+                        if (batchrowstart >= batchrowend) {
+                            break;
+                        }
                         //TODO, add filter on cols by individual timeSeries tag ? to select a tagged subgroup?
                         // if we add subgroup tagging, then we can allow double and strings in the same group,
                         // because we can then do aggregates (min, max, mean, kpercentile) etc in compatible subgroups
@@ -248,94 +901,615 @@ public class TimeSeriesDataRepository {
                                 TimeSeriesDataQueryCatalog.makeSelect(timeSeriesNames));
                         ) {
                             ps.setObject(1, uuid);
-                            // TODO instants/durations ?
-                            ps.setInt(2, threadrowstart);
-                            ps.setInt(3, threadrowend);
+                            ps.setInt(2, pointOffset + batchrowstart);
+                            ps.setInt(3, pointOffset + batchrowend);
+                            long batchStart = System.nanoTime();
+                            int batchrows = 0;
                             try (var resultSet = ps.executeQuery();) {
                                 while (resultSet.next()) {
-                                    // TODO avoid copying the data by writing directly from each thread to the final
-                                    // structure ?
                                     // TODO instants/durations ?
-                                    threadres.put(resultSet.getInt(1), objectMapper.readValue(resultSet.getString(2), Map.class));
+                                    String json = resultSet.getString(2);
+                                    bytes += json.length();
+                                    long decodeStart = System.nanoTime();
+                                    Map<Object, Object> values = objectMapper.readValue(json, Map.class);
+                                    decodeNanos += System.nanoTime() - decodeStart;
+                                    rowConsumer.accept(threadState, resultSet.getInt(1), values);
+                                    batchrows++;
                                 }
                             }
+                            long batchNanos = System.nanoTime() - batchStart;
+                            timeSeriesMetrics.recordPhase(scope, TimeSeriesMetrics.PHASE_DB_BATCH, batchNanos);
+                            timeSeriesBatchTuner.observe(plan, (long) batchrows * colcount, batchNanos);
+                            threadrows += batchrows;
                         }
                     }
                 }
-                return threadres;
-            });
+                timeSeriesMetrics.recordPhase(scope, TimeSeriesMetrics.PHASE_DECODE, decodeNanos);
+                timeSeriesMetrics.countData(scope, threadrows, threadrows * colcount, bytes);
+                return threadState;
+            }));
         }
+        return timeSeriesTaskExecutor.invokeAll(callables, timeSeriesDataSources.getReadMaximumPoolSize(lastWriteDate));
+    }
 
-        Map<Object, Object> res;
-        if (threadcount > 1) {
-            List<ForkJoinTask<Map<Object, Object>>> tasks = new ArrayList<>(Collections.nCopies(threadcount, null));
-            int size = datasource.getMaximumPoolSize();
-            LOGGER.debug("select in forkjoinpool size={}", size);
-            ForkJoinPool pool = new ForkJoinPool(size);
-            for (int i = 0; i < threadcount; i++) {
-                tasks.set(i, pool.submit(callables.get(i)));
+    // TODO untangle multithreaded scatter/gather from actual work
+    private List<TimeSeries> doFindById(TimeSeriesIndex index, int pointOffset, Map<String, Object> individualMetadatas, UUID uuid, boolean tryToCompress, String time, List<String> timeSeriesNames,
+            Instant lastWriteDate) throws Exception {
+        Stopwatch stopwatch = Stopwatch.createStarted();
+
+        int colcount = timeSeriesNames != null ? timeSeriesNames.size() : individualMetadatas.size();
+        int rowcount = index.getPointCount();
+        TimeSeriesDataType dataType = timeSeriesMetadataService.getDataType(individualMetadatas);
+        TimeSeriesMetrics.Scope scope = timeSeriesMetrics.scope(TimeSeriesMetrics.READ, dataType, (long) rowcount * colcount);
+
+        List<String> names = timeSeriesNames != null ? timeSeriesNames : List.copyOf(individualMetadatas.keySet());
+        Map<String, Object> data = new LinkedHashMap<>();
+        Map<String, TimeSeriesContentRef> contents = new HashMap<>();
+        for (String name : names) {
+            if (individualMetadatas.containsKey(name)) {
+                if (TimeSeriesDataType.DOUBLE == dataType) {
+                    double[] doubles = new double[rowcount];
+                    Arrays.fill(doubles, Double.NaN);
+                    data.put(name, doubles);
+                } else {
+                    data.put(name, new String[rowcount]);
+                }
+                TimeSeriesContentRef content = timeSeriesMetadataService.getContent(individualMetadatas, name);
+                if (content != null) {
+                    contents.put(name, content);
+                }
             }
-            res = new LinkedHashMap<>();
-            for (int i = 0; i < threadcount; i++) {
-                // TODO avoid copying the data by writing directly from each thread to the final
-                // structure ?
-                res.putAll(tasks.get(i).get());
+        }
+
+        // the rows don't have the values of the deduplicated time series, they are not
+        // read when all the time series are deduplicated
+        Map<Object, Object> res = Map.of();
+        if (contents.size() < data.size()) {
+            // TODO avoid copying the data by writing directly from each thread to the final
+            // structure ? (done for big double reads, see findByIdSpilled)
+            List<Map<Object, Object>> threadresults = readRows(uuid, pointOffset, rowcount, colcount, timeSeriesNames, dataType, lastWriteDate,
+                LinkedHashMap::new, (threadres, row, values) -> threadres.put(row, values));
+            int threadcount = threadresults.size();
+            Stopwatch mergeStopwatch = Stopwatch.createStarted();
+            if (threadcount > 1) {
+                res = new LinkedHashMap<>();
+                for (int i = 0; i < threadcount; i++) {
+                    // TODO avoid copying the data by writing directly from each thread to the final
+                    // structure ?
+                    res.putAll(threadresults.get(i));
+                }
+            } else {
+                res = threadresults.get(0);
             }
-        } else {
-            LOGGER.debug("select in http thread");
-            res = callables.get(0).call();
+            timeSeriesMetrics.recordPhase(scope, TimeSeriesMetrics.PHASE_MERGE, mergeStopwatch);
         }
+        // each task writes the values of its time series at their place
+        readContents(contents, pointOffset, pointOffset + rowcount, lastWriteDate, name -> {
+            Object values = data.get(name);
+            return values instanceof double[] doubles
+                ? (point, value) -> doubles[point - pointOffset] = ((Number) value).doubleValue()
+                : (point, value) -> ((String[]) values)[point - pointOffset] = (String) value;
+        });
         LOGGER.debug("select done, {} took {}ms", uuid, stopwatch.elapsed(TimeUnit.MILLISECONDS));
 
         // TODO same as save, avoid the transpose to allow stream from database to
         // clients ?
-        // TODO avoid this extra copy to an intermediate transposed map
-        Map<String, List<Object>> data = new HashMap<>();
+        // The rows are sparse (see doSave): the values are put at their point, the points
+        // without a value in the row stay missing (NaN or null)
+        Stopwatch transposeStopwatch = Stopwatch.createStarted();
         for (Map.Entry<Object, Object> entry : res.entrySet()) {
+            int point = (Integer) entry.getKey() - pointOffset;
             Map<Object, Object> dict = (Map<Object, Object>) entry.getValue();
             for (Map.Entry<Object, Object> entryPoint : dict.entrySet()) {
-                String tsname = (String) entryPoint.getKey();
+                Object values = data.get((String) entryPoint.getKey());
                 // TODO more types
                 Object val = entryPoint.getValue();
-                data.computeIfAbsent(tsname, _ignored -> new ArrayList<>()).add(val);
+                if (values == null || val == null) {
+                    continue;
+                }
+                if (values instanceof double[] doubles) {
+                    doubles[point] = ((Number) val).doubleValue();
+                } else {
+                    ((String[]) values)[point] = (String) TimeSeriesMetadataService.decode(
+                            timeSeriesMetadataService.getDictionary(individualMetadatas, (String) entryPoint.getKey()), val);
+                }
             }
         }
+        timeSeriesMetrics.recordPhase(scope, TimeSeriesMetrics.PHASE_TRANSPOSE, transposeStopwatch);
+        long compressNanos = 0;
         List<TimeSeries> ret = new ArrayList<>();
-        for (Map.Entry<String, List<Object>> entry : data.entrySet()) {
+        for (Map.Entry<String, Object> entry : data.entrySet()) {
             TimeSeriesMetadata metadata = timeSeriesMetadataService.getMetadata(index, individualMetadatas, entry.getKey());
-            // TODO remove duplication
-            if (TimeSeriesDataType.DOUBLE == metadata.getDataType()) {
-                double[] doubles = entry.getValue().stream().map(Double.class::cast)
-                        .mapToDouble(d -> d == null ? Double.NaN : d).toArray();
-
-                // TODO should be in the timeSeries API ?
-                DoubleDataChunk ddc = new UncompressedDoubleDataChunk(0, doubles);
-                // TODO get compress mode from the metadata sent by the client
-                if (tryToCompress) {
-                    ddc = ddc.tryToCompress();
+            int length = timeSeriesMetadataService.getLength(individualMetadatas, entry.getKey(), pointOffset, pointOffset + rowcount);
+            long compressStart = System.nanoTime();
+            // TODO get compress mode from the metadata sent by the client
+            // TODO index from client
+            ret.add(makeTimeSeries(metadata, entry.getValue(), length, tryToCompress));
+            compressNanos += System.nanoTime() - compressStart;
+        }
+        if (tryToCompress) {
+            timeSeriesMetrics.recordPhase(scope, TimeSeriesMetrics.PHASE_COMPRESSION, compressNanos);
+        }
+        return ret;
+    }
+
+    /**
+     * Makes a time series of the first length values (double[] or String[]) of all the points of the
+     * metadata index, the points after it were not sent by the client and have no chunk.
+     */
+    static TimeSeries makeTimeSeries(TimeSeriesMetadata metadata, Object values, int length, boolean tryToCompress) {
+        // TODO should be in the timeSeries API ?
+        // TODO more types
+        if (TimeSeriesDataType.DOUBLE == metadata.getDataType()) {
+            if (length == 0) {
+                return new StoredDoubleTimeSeries(metadata, List.of());
+            }
+            double[] doubles = (double[]) values;
+            DoubleDataChunk ddc = new UncompressedDoubleDataChunk(0, length < doubles.length ? Arrays.copyOf(doubles, length) : doubles);
+            return new StoredDoubleTimeSeries(metadata, List.of(tryToCompress ? ddc.tryToCompress() : ddc));
+        } else if (TimeSeriesDataType.STRING == metadata.getDataType()) {
+            if (length == 0) {
+                return new StringTimeSeries(metadata, List.of());
+            }
+            String[] strings = (String[]) values;
+            StringDataChunk sdc = new UncompressedStringDataChunk(0, length < strings.length ? Arrays.copyOf(strings, length) : strings);
+            return new StringTimeSeries(metadata, List.of(tryToCompress ? sdc.tryToCompress() : sdc));
+        } else {
+            throw new RuntimeException("Unsupported read of timeSeries type " + metadata.getDataType());
+        }
+    }
+
+    /**
+     * Same as findById for double time series, but assembles the time series in a memory mapped
+     * spill file in the directory instead of the heap. The caller must close the file.
+     */
+    public TimeSeriesSpillFile findByIdSpilled(TimeSeriesIndex index, int pointOffset, Map<String, Object> individualMetadatas, UUID uuid,
+            String time, List<String> timeSeriesNames, Path directory, Instant lastWriteDate) {
+        try {
+            return doFindByIdSpilled(index, pointOffset, individualMetadatas, uuid, time, timeSeriesNames, directory, lastWriteDate);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private TimeSeriesSpillFile doFindByIdSpilled(TimeSeriesIndex index, int pointOffset, Map<String, Object> individualMetadatas, UUID uuid,
+            String time, List<String> timeSeriesNames, Path directory, Instant lastWriteDate) throws Exception {
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        // like findById, the unknown time series are not read and the ones requested several times are read once
+        List<String> names = timeSeriesNames != null
+                ? timeSeriesNames.stream().filter(individualMetadatas::containsKey).distinct().toList()
+                : List.copyOf(individualMetadatas.keySet());
+        List<TimeSeriesMetadata> metadatas = new ArrayList<>(names.size());
+        int[] lengths = new int[names.size()];
+        Map<String, Integer> cols = new HashMap<>();
+        Map<String, TimeSeriesContentRef> contents = new HashMap<>();
+        for (String name : names) {
+            TimeSeriesMetadata metadata = timeSeriesMetadataService.getMetadata(index, individualMetadatas, name);
+            if (TimeSeriesDataType.DOUBLE != metadata.getDataType()) {
+                throw new RuntimeException("Unsupported spilled read of timeSeries type " + metadata.getDataType());
+            }
+            lengths[metadatas.size()] = timeSeriesMetadataService.getLength(individualMetadatas, name, pointOffset, pointOffset + index.getPointCount());
+            cols.put(name, metadatas.size());
+            metadatas.add(metadata);
+            TimeSeriesContentRef content = timeSeriesMetadataService.getContent(individualMetadatas, name);
+            if (content != null) {
+                contents.put(name, content);
+            }
+        }
+
+        TimeSeriesSpillFile spillFile = TimeSeriesSpillFile.create(directory, metadatas, lengths);
+        try {
+            // each worker writes its rows at their place, no merge nor transpose
+            if (contents.size() < cols.size()) {
+                readRows(uuid, pointOffset, index.getPointCount(), names.size(), timeSeriesNames != null ? names : null,
+                    TimeSeriesDataType.DOUBLE, lastWriteDate, () -> spillFile, (file, row, values) -> {
+                        for (Map.Entry<Object, Object> entryPoint : values.entrySet()) {
+                            Integer col = cols.get((String) entryPoint.getKey());
+                            // the rows are sparse, null values are left missing (NaN) too
+                            if (col != null && entryPoint.getValue() != null) {
+                                file.put(col, row - pointOffset, ((Number) entryPoint.getValue()).doubleValue());
+                            }
+                        }
+                    });
+            }
+            readContents(contents, pointOffset, pointOffset + index.getPointCount(), lastWriteDate, name -> {
+                int col = cols.get(name);
+                return (point, value) -> spillFile.put(col, point - pointOffset, ((Number) value).doubleValue());
+            });
+        } catch (Exception e) {
+            spillFile.close();
+            throw e;
+        }
+        LOGGER.debug("select spilled done, {} took {}ms", uuid, stopwatch.elapsed(TimeUnit.MILLISECONDS));
+        return spillFile;
+    }
+
+    // Uses the instant column (and its index) to find the points of the range.
+    private int[] doFindPointRange(UUID uuid, TimeSeriesIndex index, Instant start, Instant end, Instant lastWriteDate) throws Exception {
+        try (var connection = timeSeriesDataSources.getReadConnection(lastWriteDate);) {
+            try (var ps = connection.prepareStatement(TimeSeriesDataQueryCatalog.SELECT_POINT_RANGE);) {
+                ps.setObject(1, uuid);
+                ps.setTimestamp(2, Timestamp.from(start));
+                ps.setTimestamp(3, Timestamp.from(end));
+                try (var resultSet = ps.executeQuery();) {
+                    resultSet.next();
+                    int min = resultSet.getInt(1);
+                    if (!resultSet.wasNull()) {
+                        return new int[] {min, resultSet.getInt(2) + 1};
+                    }
                 }
-                // TODO more types
-                // TODO index from client
-                TimeSeries timeSeries = new StoredDoubleTimeSeries(metadata, List.of(ddc));
-                ret.add(timeSeries);
-            } else if (TimeSeriesDataType.STRING == metadata.getDataType()) {
-                String[] strings = entry.getValue().toArray(new String[0]);
-
-                // TODO should be in the timeSeries API ?
-                StringDataChunk ddc = new UncompressedStringDataChunk(0, strings);
-                // TODO get compress mode from the metadata sent by the client
-                if (tryToCompress) {
-                    ddc = ddc.tryToCompress();
+            }
+            // Either there is no point in the range, or the group was saved before the instant
+            // column existed (null instants), in which case the range is mapped with the index.
+            try (var ps = connection.prepareStatement(TimeSeriesDataQueryCatalog.SELECT_FIRST_POINT_INSTANT);) {
+                ps.setObject(1, uuid);
+                try (var resultSet = ps.executeQuery();) {
+                    if (resultSet.next() && resultSet.getTimestamp(1) == null) {
+                        return new int[] {TimeSeriesIndexes.ceilingIndexOf(index, start), TimeSeriesIndexes.ceilingIndexOf(index, end)};
+                    }
                 }
-                // TODO more types
-                // TODO index from client
-                TimeSeries timeSeries = new StringTimeSeries(metadata, List.of(ddc));
-                ret.add(timeSeries);
-            } else {
-                throw new RuntimeException("Unsupported read of timeSeries type " + metadata.getDataType());
             }
         }
-        return ret;
+        return new int[] {0, 0};
+    }
+
+    /**
+     * Returns the points [from, to) of the group with an instant in [start, end).
+     */
+    public int[] findPointRange(UUID uuid, TimeSeriesIndex index, Instant start, Instant end, Instant lastWriteDate) {
+        try {
+            return doFindPointRange(uuid, index, start, end, lastWriteDate);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    // Only the rows of the points are read (primary key lookups), all the time series
+    // are returned for these rows, the json_build_object projection of makeSelect is
+    // limited to 50 time series and doesn't bring much for a few rows.
+    private Map<Integer, Map<String, Object>> doFindPoints(UUID uuid, int[] points, Map<String, TimeSeriesContentRef> contents,
+            Instant lastWriteDate) throws Exception {
+        Map<Integer, Map<String, Object>> res = new HashMap<>();
+        try (var connection = timeSeriesDataSources.getReadConnection(lastWriteDate);
+             var ps = connection.prepareStatement(TimeSeriesDataQueryCatalog.SELECT_POINTS);
+        ) {
+            ps.setObject(1, uuid);
+            ps.setArray(2, connection.createArrayOf("integer", Arrays.stream(points).boxed().toArray()));
+            try (var resultSet = ps.executeQuery();) {
+                while (resultSet.next()) {
+                    res.put(resultSet.getInt(1), objectMapper.readValue(resultSet.getString(2), Map.class));
+                }
+            }
+            for (Map.Entry<String, TimeSeriesContentRef> content : contents.entrySet()) {
+                readContentPoints(connection, content.getValue(), points,
+                    (point, value) -> res.computeIfAbsent(point, ignored -> new HashMap<>()).put(content.getKey(), value));
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Returns the points of the group, with the values of the deduplicated time series from their contents
+     * (see TimeSeriesMetadataService.getContents).
+     */
+    public Map<Integer, Map<String, Object>> findPoints(UUID uuid, int[] points, Map<String, TimeSeriesContentRef> contents, Instant lastWriteDate) {
+        try {
+            return doFindPoints(uuid, points, contents, lastWriteDate);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    // Sequential read of a range of rows in a single query, for background jobs
+    // which process a group block by block (see TimeSeriesArchiver) and for the
+    // searches which only read the candidate blocks of the zone maps.
+    private Map<Integer, Map<String, Object>> doFindRows(UUID uuid, int from, int to, List<String> timeSeriesNames,
+            Map<String, TimeSeriesContentRef> contents, Instant lastWriteDate) throws Exception {
+        Map<Integer, Map<String, Object>> res = new HashMap<>();
+        try (var connection = timeSeriesDataSources.getReadConnection(lastWriteDate);
+             var ps = connection.prepareStatement(TimeSeriesDataQueryCatalog.makeSelect(timeSeriesNames));
+        ) {
+            ps.setObject(1, uuid);
+            ps.setInt(2, from);
+            ps.setInt(3, to);
+            try (var resultSet = ps.executeQuery();) {
+                while (resultSet.next()) {
+                    res.put(resultSet.getInt(1), objectMapper.readValue(resultSet.getString(2), Map.class));
+                }
+            }
+            for (Map.Entry<String, TimeSeriesContentRef> content : contents.entrySet()) {
+                if (timeSeriesNames == null || timeSeriesNames.contains(content.getKey())) {
+                    readContent(connection, content.getValue(), from, to,
+                        (point, value) -> res.computeIfAbsent(point, ignored -> new HashMap<>()).put(content.getKey(), value));
+                }
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Returns the rows [from, to) of the group by point.
+     */
+    public Map<Integer, Map<String, Object>> findRows(UUID uuid, int from, int to, Map<String, TimeSeriesContentRef> contents) {
+        // the archiver deletes the rows after reading them, they must be complete
+        return findRows(uuid, from, to, null, contents, READ_FROM_PRIMARY);
+    }
+
+    /**
+     * Returns the rows [from, to) of the group by point, with only the given time series (all of them when null).
+     * The values of the deduplicated time series are read from their contents (see TimeSeriesMetadataService.getContents).
+     */
+    public Map<Integer, Map<String, Object>> findRows(UUID uuid, int from, int to, List<String> timeSeriesNames,
+            Map<String, TimeSeriesContentRef> contents, Instant lastWriteDate) {
+        try {
+            return doFindRows(uuid, from, to, timeSeriesNames, contents, lastWriteDate);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Receives the rows of an export, in order.
+     */
+    @FunctionalInterface
+    public interface RowExporter {
+        void accept(int row, Map<String, Object> values) throws IOException;
+    }
+
+    // One ordered query over all the rows, fetched by batches of rows through a cursor, so the memory doesn't depend
+    // on the size of the group. The deduplicated time series are read by windows of a content block alongside.
+    private void doExportRows(UUID uuid, int from, int to, int colcount, Map<String, TimeSeriesContentRef> contents, Instant lastWriteDate,
+            RowExporter exporter) throws Exception {
+        Map<Integer, Map<String, Object>> window = new HashMap<>();
+        int windowEnd = 0;
+        try (var connection = timeSeriesDataSources.getReadConnection(lastWriteDate);
+             var contentConnection = contents.isEmpty() ? null : timeSeriesDataSources.getReadConnection(lastWriteDate);
+        ) {
+            // the postgresql driver only uses a cursor (fetch size) in a transaction
+            connection.setAutoCommit(false);
+            try (var ps = connection.prepareStatement(TimeSeriesDataQueryCatalog.makeSelect(null));) {
+                ps.setFetchSize(Math.max(1, readbatchsize / Math.max(1, colcount)));
+                ps.setObject(1, uuid);
+                ps.setInt(2, from);
+                ps.setInt(3, to);
+                try (var resultSet = ps.executeQuery();) {
+                    while (resultSet.next()) {
+                        int row = resultSet.getInt(1);
+                        Map<String, Object> values = objectMapper.readValue(resultSet.getString(2), Map.class);
+                        if (contentConnection != null) {
+                            if (row >= windowEnd) {
+                                window.clear();
+                                windowEnd = Math.min(to, (row / CONTENT_BLOCK_SIZE + 1) * CONTENT_BLOCK_SIZE);
+                                for (Map.Entry<String, TimeSeriesContentRef> content : contents.entrySet()) {
+                                    readContent(contentConnection, content.getValue(), row, windowEnd,
+                                        (point, value) -> window.computeIfAbsent(point, ignored -> new HashMap<>()).put(content.getKey(), value));
+                                }
+                            }
+                            values.putAll(window.getOrDefault(row, Map.of()));
+                        }
+                        exporter.accept(row, values);
+                    }
+                }
+            } finally {
+                // ends the read only transaction
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * Passes the rows [from, to) of the group to the exporter in order, without reading the whole group
+     * in memory. The values are by name, the strings are not decoded (see TimeSeriesMetadataService.decode).
+     */
+    public void exportRows(UUID uuid, int from, int to, int colcount, Map<String, TimeSeriesContentRef> contents, Instant lastWriteDate,
+            RowExporter exporter) {
+        try {
+            doExportRows(uuid, from, to, colcount, contents, lastWriteDate, exporter);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    // The zone maps of several groups are saved in one batch
+    private void doSaveZoneMaps(List<PreparedSave> groups) throws Exception {
+        if (groups.stream().allMatch(group -> group.zoneMaps().isEmpty())) {
+            return;
+        }
+        try (var connection = datasource.getConnection();
+             var ps = connection.prepareStatement(TimeSeriesDataQueryCatalog.INSERT_ZONE_MAP);
+        ) {
+            for (PreparedSave group : groups) {
+                doAddZoneMaps(connection, ps, group.uuid(), group.zoneMaps());
+            }
+            ps.executeBatch();
+        }
+    }
+
+    private static void doAddZoneMaps(Connection connection, PreparedStatement ps, UUID uuid, Map<String, TimeSeriesZoneMap> zoneMaps) throws Exception {
+        for (Map.Entry<String, TimeSeriesZoneMap> entry : zoneMaps.entrySet()) {
+            TimeSeriesZoneMap zoneMap = entry.getValue();
+            ps.setObject(1, uuid);
+            ps.setString(2, entry.getKey());
+            ps.setInt(3, zoneMap.blockSize());
+            ps.setArray(4, connection.createArrayOf("float8", Arrays.stream(zoneMap.mins()).boxed().toArray()));
+            ps.setArray(5, connection.createArrayOf("float8", Arrays.stream(zoneMap.maxs()).boxed().toArray()));
+            ps.addBatch();
+        }
+    }
+
+    private static double[] toDoubles(java.sql.Array array) throws Exception {
+        Object[] values = (Object[]) array.getArray();
+        double[] res = new double[values.length];
+        for (int i = 0; i < values.length; i++) {
+            res[i] = values[i] == null ? Double.NaN : ((Number) values[i]).doubleValue();
+        }
+        return res;
+    }
+
+    private Map<String, TimeSeriesZoneMap> doFindZoneMaps(UUID uuid, List<String> timeSeriesNames, Instant lastWriteDate) throws Exception {
+        Map<String, TimeSeriesZoneMap> res = new HashMap<>();
+        try (var connection = timeSeriesDataSources.getReadConnection(lastWriteDate);
+             var ps = connection.prepareStatement(TimeSeriesDataQueryCatalog.SELECT_ZONE_MAPS);
+        ) {
+            ps.setObject(1, uuid);
+            ps.setArray(2, connection.createArrayOf("text", timeSeriesNames.toArray()));
+            try (var resultSet = ps.executeQuery();) {
+                while (resultSet.next()) {
+                    res.put(resultSet.getString(1), new TimeSeriesZoneMap(resultSet.getInt(2),
+                            toDoubles(resultSet.getArray(3)), toDoubles(resultSet.getArray(4))));
+                }
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Returns the zone maps of the time series, by name. The string time series and the groups
+     * saved before the zone maps existed don't have any.
+     */
+    public Map<String, TimeSeriesZoneMap> findZoneMaps(UUID uuid, List<String> timeSeriesNames, Instant lastWriteDate) {
+        try {
+            return doFindZoneMaps(uuid, timeSeriesNames, lastWriteDate);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void doCopyZoneMaps(UUID sourceUuid, UUID targetUuid, List<String> timeSeriesNames) throws Exception {
+        try (var connection = datasource.getConnection();
+             var ps = connection.prepareStatement(TimeSeriesDataQueryCatalog.COPY_ZONE_MAPS);
+        ) {
+            ps.setObject(1, targetUuid);
+            ps.setObject(2, sourceUuid);
+            ps.setArray(3, connection.createArrayOf("text", timeSeriesNames.toArray()));
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Copies the zone maps of the time series of a group to another group with the same points.
+     */
+    public void copyZoneMaps(UUID sourceUuid, UUID targetUuid, List<String> timeSeriesNames) {
+        try {
+            doCopyZoneMaps(sourceUuid, targetUuid, timeSeriesNames);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void doDeleteZoneMaps(UUID uuid) throws Exception {
+        try (var conn = datasource.getConnection();
+                var ps = conn.prepareStatement(TimeSeriesDataQueryCatalog.DELETE_ZONE_MAPS);
+           ) {
+            ps.setObject(1, uuid);
+            ps.executeUpdate();
+        }
+    }
+
+    // Not done by delete: the archived groups keep their zone maps. In the transaction of the caller when there is one.
+    public void deleteZoneMaps(UUID uuid) {
+        try {
+            doDeleteInTransaction(TimeSeriesDataQueryCatalog.DELETE_ZONE_MAPS, uuid);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    // The rows are copied inside the database with INSERT ... SELECT, in parallel ranges of rows.
+    private void doCopy(UUID sourceUuid, UUID targetUuid, int from, int to, List<String> timeSeriesNames, int colcount,
+            TimeSeriesDataType dataType) throws Exception {
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        int rowcount = to - from;
+        int batchrow = Math.max(1, copybatchsize / Math.max(1, colcount));
+        int batchcount = (rowcount + batchrow - 1) / batchrow;
+        LOGGER.debug("copy start {} to {}, {} instants by {} time series, in batch of {} rows, numbatch={}",
+                sourceUuid, targetUuid, rowcount, colcount, batchrow, batchcount);
+        TimeSeriesMetrics.Scope scope = timeSeriesMetrics.scope(TimeSeriesMetrics.COPY, dataType, (long) rowcount * colcount);
+
+        List<Callable<Void>> callables = new ArrayList<>(batchcount);
+        for (int i = 0; i < batchcount; i++) {
+            int batchrowstart = from + i * batchrow;
+            int batchrowend = Math.min(to, batchrowstart + batchrow);
+            callables.add(timeSeriesMetrics.trackInFlight(scope, () -> {
+                try (var connection = getConnection(scope);
+                     var ps = connection.prepareStatement(timeSeriesNames == null
+                             ? TimeSeriesDataQueryCatalog.COPY : TimeSeriesDataQueryCatalog.COPY_NAMES);
+                ) {
+                    int param = 1;
+                    ps.setObject(param++, targetUuid);
+                    ps.setInt(param++, from);
+                    if (timeSeriesNames != null) {
+                        ps.setArray(param++, connection.createArrayOf("text", timeSeriesNames.toArray()));
+                    }
+                    ps.setObject(param++, sourceUuid);
+                    ps.setInt(param++, batchrowstart);
+                    ps.setInt(param, batchrowend);
+                    long batchStart = System.nanoTime();
+                    int rows = ps.executeUpdate();
+                    timeSeriesMetrics.recordPhase(scope, TimeSeriesMetrics.PHASE_DB_BATCH, System.nanoTime() - batchStart);
+                    timeSeriesMetrics.countData(scope, rows, (long) rows * colcount, 0);
+                }
+                return null;
+            }));
+        }
+        timeSeriesTaskExecutor.invokeAll(callables, datasource.getMaximumPoolSize());
+        LOGGER.debug("copy done {} to {}, took {}ms", sourceUuid, targetUuid, stopwatch.elapsed(TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Copies the rows [from, to) of the source group to the rows [0, to - from) of the target group,
+     * with only the given time series (all of them when null).
+     */
+    public void copy(UUID sourceUuid, UUID targetUuid, int from, int to, List<String> timeSeriesNames, int colcount,
+            TimeSeriesDataType dataType) {
+        // the batches are committed separately, don't leave a partial copy, nor the copy of a rolled back transaction
+        WriteUndo undo = new WriteUndo(List.of(targetUuid));
+        try {
+            doCopy(sourceUuid, targetUuid, from, to, timeSeriesNames, colcount, dataType);
+        } catch (Exception e) {
+            undo.undo();
+            throw new RuntimeException(e);
+        }
+    }
+
+    private boolean doClaimArchive(UUID uuid, Instant claimDate, Instant now) throws Exception {
+        try (var conn = datasource.getConnection();
+                var ps = conn.prepareStatement(TimeSeriesDataQueryCatalog.CLAIM_ARCHIVE);
+           ) {
+            ps.setTimestamp(1, Timestamp.from(claimDate));
+            ps.setObject(2, uuid);
+            ps.setTimestamp(3, Timestamp.from(now));
+            return ps.executeUpdate() == 1;
+        }
+    }
+
+    /**
+     * Claims a group which is not archived and not claimed (or whose claim expired) until the claim
+     * date, so that only one instance archives it. Returns false when the group is not claimed.
+     */
+    public boolean claimArchive(UUID uuid, Instant claimDate, Instant now) {
+        try {
+            return doClaimArchive(uuid, claimDate, now);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void doReleaseArchiveClaim(UUID uuid) throws Exception {
+        try (var conn = datasource.getConnection();
+                var ps = conn.prepareStatement(TimeSeriesDataQueryCatalog.RELEASE_ARCHIVE_CLAIM);
+           ) {
+            ps.setObject(1, uuid);
+            ps.executeUpdate();
+        }
+    }
+
+    public void releaseArchiveClaim(UUID uuid) {
+        try {
+            doReleaseArchiveClaim(uuid);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
     }
 
     private void doDelete(UUID uuid) throws Exception {
@@ -347,9 +1521,23 @@ public class TimeSeriesDataRepository {
         }
     }
 
+    // On the connection of the transaction of the caller when there is one, so that the deletion is rolled back with it
+    private void doDeleteInTransaction(String query, UUID uuid) throws Exception {
+        Connection conn = DataSourceUtils.getConnection(datasource);
+        try (var ps = conn.prepareStatement(query);) {
+            ps.setObject(1, uuid);
+            ps.executeUpdate();
+        } finally {
+            DataSourceUtils.releaseConnection(conn, datasource);
+        }
+    }
+
+    /**
+     * Deletes the rows of the group, in the transaction of the caller when there is one.
+     */
     public void delete(UUID uuid) {
         try {
-            doDelete(uuid);
+            doDeleteInTransaction(TimeSeriesDataQueryCatalog.DELETE, uuid);
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
@@ -0,0 +1,127 @@
+/**
+ * Copyright (c) 2026, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.gridsuite.timeseries.server;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Routing of the reads between the primary datasource and optional read replicas.
+ * <p>
+ * The replicas (timeseries.replicas.urls, comma separated jdbc urls, with the credentials of the primary)
+ * have their own connection pools, the reads take their connections from the replicas in turn so that a
+ * big read is spread over all of them. The data of a group written less than timeseries.replicas.max-lag-ms
+ * ago may not be replicated yet, it is read from the primary. When no replica gives a connection, the
+ * primary is used. The writes always use the primary.
+ */
+@Component
+public class TimeSeriesDataSources {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TimeSeriesDataSources.class);
+
+    private final HikariDataSource primary;
+    private final List<HikariDataSource> replicas = new ArrayList<>();
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final Duration maxLag;
+
+    public TimeSeriesDataSources(HikariDataSource primary,
+            @Value("${timeseries.replicas.urls:}") String urls,
+            @Value("${timeseries.replicas.max-lag-ms:60000}") long maxlagms,
+            // 0 means the same size as the pool of the primary
+            @Value("${timeseries.replicas.maximum-pool-size:0}") int maximumpoolsize,
+            // short, to fall back quickly when a replica is down
+            @Value("${timeseries.replicas.connection-timeout-ms:2000}") long connectiontimeoutms) {
+        this.primary = primary;
+        this.maxLag = Duration.ofMillis(maxlagms);
+        for (String url : urls.split(",")) {
+            if (url.isBlank()) {
+                continue;
+            }
+            HikariConfig config = new HikariConfig();
+            config.setJdbcUrl(url.trim());
+            config.setUsername(primary.getUsername());
+            config.setPassword(primary.getPassword());
+            config.setMaximumPoolSize(maximumpoolsize > 0 ? maximumpoolsize : primary.getMaximumPoolSize());
+            config.setConnectionTimeout(connectiontimeoutms);
+            config.setPoolName("timeseries-replica-" + replicas.size());
+            config.setReadOnly(true);
+            // don't fail the startup when a replica is down
+            config.setInitializationFailTimeout(-1);
+            replicas.add(new HikariDataSource(config));
+            LOGGER.info("Reads routed to replica {}", url.trim());
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        replicas.forEach(HikariDataSource::close);
+    }
+
+    public boolean hasReplicas() {
+        return !replicas.isEmpty();
+    }
+
+    /**
+     * Returns the date before which the writes are on the replicas.
+     */
+    public Instant getReplicatedBefore() {
+        return Instant.now().minus(maxLag);
+    }
+
+    /**
+     * Returns true if the data written at this date (null for old data) can be read from the replicas.
+     */
+    public boolean isReplicated(Instant lastWriteDate) {
+        return lastWriteDate == null || lastWriteDate.isBefore(getReplicatedBefore());
+    }
+
+    /**
+     * Returns a connection to read the data of a group written at this date (null for old data),
+     * from a replica when possible.
+     */
+    public Connection getReadConnection(Instant lastWriteDate) throws SQLException {
+        if (replicas.isEmpty() || !isReplicated(lastWriteDate)) {
+            return primary.getConnection();
+        }
+        int first = Math.floorMod(nextReplica.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            HikariDataSource replica = replicas.get((first + i) % replicas.size());
+            try {
+                return replica.getConnection();
+            } catch (SQLException e) {
+                LOGGER.warn("No connection from replica {}, trying the next one: {}", replica.getPoolName(), e.getMessage());
+            }
+        }
+        LOGGER.warn("No connection from the replicas, reading from the primary");
+        return primary.getConnection();
+    }
+
+    /**
+     * Returns the number of connections the reads of the data of a group written at this date can use at the same time.
+     */
+    public int getReadMaximumPoolSize(Instant lastWriteDate) {
+        if (replicas.isEmpty() || !isReplicated(lastWriteDate)) {
+            return primary.getMaximumPoolSize();
+        }
+        return replicas.stream().mapToInt(HikariDataSource::getMaximumPoolSize).sum();
+    }
+}
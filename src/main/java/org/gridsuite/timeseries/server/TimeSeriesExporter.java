@@ -0,0 +1,231 @@
+/**
+ * Copyright (c) 2026, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.gridsuite.timeseries.server;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.stereotype.Component;
+
+import com.powsybl.timeseries.TimeSeriesDataType;
+import com.powsybl.timeseries.TimeSeriesIndex;
+
+/**
+ * Exports the data of a group without the transpose of the reads: the rows are streamed in order
+ * from the database (or from the archive) to the output, the memory doesn't depend on the size of the group.
+ * <p>
+ * The CSV has the layout of the powsybl time series CSV: a "Time" column with the instants in ISO format,
+ * then a column for each time series, separated by ';', empty for the missing values. The columnar export
+ * is the format of the archives (TimeSeriesArchiveFormat), the rows are buffered by blocks.
+ */
+@Component
+public class TimeSeriesExporter {
+
+    public enum Format {
+        CSV,
+        COLUMNAR,
+    }
+
+    private static final char CSV_SEPARATOR = ';';
+    private static final int BUFFER_SIZE = 1 << 16;
+    // number of values of the blocks of the columnar export
+    private static final int COLUMNAR_BLOCK_VALUES = 1 << 20;
+
+    /**
+     * Receives the rows in order, the values are in the order of the names, null when missing.
+     * The array is reused for the next row.
+     */
+    @FunctionalInterface
+    private interface RowVisitor {
+        void accept(int row, Object[] values) throws IOException;
+    }
+
+    private final TimeSeriesDataRepository timeSeriesDataRepository;
+    private final TimeSeriesMetadataService timeSeriesMetadataService;
+
+    public TimeSeriesExporter(TimeSeriesDataRepository timeSeriesDataRepository, TimeSeriesMetadataService timeSeriesMetadataService) {
+        this.timeSeriesDataRepository = timeSeriesDataRepository;
+        this.timeSeriesMetadataService = timeSeriesMetadataService;
+    }
+
+    public static String getContentType(Format format) {
+        return format == Format.CSV ? "text/csv" : "application/octet-stream";
+    }
+
+    public static String getFileExtension(Format format) {
+        return format == Format.CSV ? ".csv" : ".tsar";
+    }
+
+    public void export(TimeSeriesGroupEntity tsGroup, Format format, OutputStream outputStream) throws IOException {
+        TimeSeriesIndex index = timeSeriesMetadataService.indexFromJson(tsGroup.getIndexType(), tsGroup.getIndex());
+        Map<String, Object> individualMetadatas = timeSeriesMetadataService.individualMetadatasMapFromJson(tsGroup.getMetadatas());
+        List<String> names = List.copyOf(individualMetadatas.keySet());
+        if (format == Format.CSV) {
+            writeCsv(tsGroup, index, individualMetadatas, names, outputStream);
+        } else {
+            writeColumnar(tsGroup, index, individualMetadatas, names, outputStream);
+        }
+    }
+
+    private void forEachRow(TimeSeriesGroupEntity tsGroup, TimeSeriesIndex index, Map<String, Object> individualMetadatas,
+            List<String> names, RowVisitor visitor) throws IOException {
+        Object[] values = new Object[names.size()];
+        if (tsGroup.getArchivePath() != null) {
+            // the archives have the columns of the names of the metadatas, decoded
+            try (InputStream inputStream = Files.newInputStream(Path.of(tsGroup.getArchivePath()));
+                 TimeSeriesArchiveFormat.Reader reader = new TimeSeriesArchiveFormat.Reader(inputStream)) {
+                int blockstart = reader.getNextRow();
+                Object[] columns;
+                while ((columns = reader.readBlock()) != null) {
+                    for (int row = blockstart; row < reader.getNextRow(); row++) {
+                        for (int col = 0; col < columns.length; col++) {
+                            if (columns[col] instanceof double[] doubles) {
+                                double value = doubles[row - blockstart];
+                                values[col] = Double.isNaN(value) ? null : value;
+                            } else {
+                                values[col] = ((String[]) columns[col])[row - blockstart];
+                            }
+                        }
+                        visitor.accept(row, values);
+                    }
+                    blockstart = reader.getNextRow();
+                }
+            }
+            return;
+        }
+        List<List<String>> dictionaries = new ArrayList<>(names.size());
+        for (String name : names) {
+            dictionaries.add(timeSeriesMetadataService.getDictionary(individualMetadatas, name));
+        }
+        timeSeriesDataRepository.exportRows(tsGroup.getId(), 0, index.getPointCount(), names.size(),
+                timeSeriesMetadataService.getContents(individualMetadatas), tsGroup.getLastWriteDate(), (row, rowValues) -> {
+                    for (int col = 0; col < values.length; col++) {
+                        values[col] = TimeSeriesMetadataService.decode(dictionaries.get(col), rowValues.get(names.get(col)));
+                    }
+                    visitor.accept(row, values);
+                });
+    }
+
+    private static void writeCsvString(Writer writer, String value) throws IOException {
+        if (value.indexOf(CSV_SEPARATOR) < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            writer.write(value);
+        } else {
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+    }
+
+    private void writeCsv(TimeSeriesGroupEntity tsGroup, TimeSeriesIndex index, Map<String, Object> individualMetadatas,
+            List<String> names, OutputStream outputStream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), BUFFER_SIZE);
+        writer.write("Time");
+        for (String name : names) {
+            writer.write(CSV_SEPARATOR);
+            writeCsvString(writer, name);
+        }
+        writer.write('\n');
+        forEachRow(tsGroup, index, individualMetadatas, names, (row, values) -> {
+            writer.write(index.getInstantAt(row).toString());
+            for (Object value : values) {
+                writer.write(CSV_SEPARATOR);
+                if (value instanceof Number number) {
+                    writer.write(Double.toString(number.doubleValue()));
+                } else if (value != null) {
+                    writeCsvString(writer, value.toString());
+                }
+            }
+            writer.write('\n');
+        });
+        writer.flush();
+    }
+
+    private void writeColumnar(TimeSeriesGroupEntity tsGroup, TimeSeriesIndex index, Map<String, Object> individualMetadatas,
+            List<String> names, OutputStream outputStream) throws IOException {
+        TimeSeriesDataType dataType = timeSeriesMetadataService.getDataType(individualMetadatas);
+        int rowcount = index.getPointCount();
+        int blocksize = Math.max(1, Math.min(TimeSeriesArchiveFormat.DEFAULT_BLOCK_SIZE, COLUMNAR_BLOCK_VALUES / Math.max(1, names.size())));
+        // the contents are references to the shared values in this database, the file has the values
+        TimeSeriesArchiveFormat.Header header = new TimeSeriesArchiveFormat.Header(tsGroup.getIndexType(), tsGroup.getIndex(),
+                timeSeriesMetadataService.individualMetadatasWithContents(tsGroup.getMetadatas(), Map.of()),
+                names, dataType, rowcount, blocksize);
+        try (TimeSeriesArchiveFormat.Writer writer = new TimeSeriesArchiveFormat.Writer(outputStream, header)) {
+            ColumnarBlocks blocks = new ColumnarBlocks(writer, dataType, names.size(), rowcount, blocksize);
+            forEachRow(tsGroup, index, individualMetadatas, names, blocks::accept);
+            blocks.finish();
+        }
+    }
+
+    // The current block of the columnar export, written when the rows reach the next block. The values
+    // of the rows which are not visited are missing.
+    private static final class ColumnarBlocks {
+        private final TimeSeriesArchiveFormat.Writer writer;
+        private final TimeSeriesDataType dataType;
+        private final int rowcount;
+        private final int blocksize;
+        private final Object[] columns;
+        private int blockstart;
+
+        private ColumnarBlocks(TimeSeriesArchiveFormat.Writer writer, TimeSeriesDataType dataType, int colcount, int rowcount, int blocksize) {
+            this.writer = writer;
+            this.dataType = dataType;
+            this.rowcount = rowcount;
+            this.blocksize = blocksize;
+            this.columns = new Object[colcount];
+            newBlock();
+        }
+
+        private void newBlock() {
+            int blockrows = Math.max(0, Math.min(blocksize, rowcount - blockstart));
+            for (int col = 0; col < columns.length; col++) {
+                if (dataType == TimeSeriesDataType.DOUBLE) {
+                    double[] values = new double[blockrows];
+                    Arrays.fill(values, Double.NaN);
+                    columns[col] = values;
+                } else {
+                    columns[col] = new String[blockrows];
+                }
+            }
+        }
+
+        private void writeBlock() throws IOException {
+            writer.writeBlock(columns);
+            blockstart += blocksize;
+            newBlock();
+        }
+
+        void accept(int row, Object[] values) throws IOException {
+            while (row >= blockstart + blocksize) {
+                writeBlock();
+            }
+            for (int col = 0; col < columns.length; col++) {
+                if (columns[col] instanceof double[] doubles) {
+                    doubles[row - blockstart] = values[col] == null ? Double.NaN : ((Number) values[col]).doubleValue();
+                } else {
+                    ((String[]) columns[col])[row - blockstart] = (String) values[col];
+                }
+            }
+        }
+
+        void finish() throws IOException {
+            while (blockstart < rowcount) {
+                writeBlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,306 @@
+/**
+ * Copyright (c) 2026, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.gridsuite.timeseries.server;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Expression of a calculated time series over the double time series of a group, e.g. {@code a + 2 * b}
+ * or {@code max(c, d)}, with the operators of the powsybl calculated time series:
+ * <ul>
+ *     <li>numbers and time series names (names with other characters than letters, digits, '_' and '.'
+ *     are written between double quotes)</li>
+ *     <li>{@code + - * /}, unary {@code -}, and the comparisons {@code < <= > >= == !=} (1 or 0)</li>
+ *     <li>{@code abs(x)}, {@code min(x, y)}, {@code max(x, y)}</li>
+ * </ul>
+ * The expression is evaluated on whole arrays of values (one loop for each operator) instead of point by point.
+ */
+public final class TimeSeriesExpression {
+
+    /**
+     * Node of the parsed expression.
+     */
+    private interface Node {
+        double[] evaluate(Map<String, double[]> values, int length);
+
+        void collectNames(Set<String> names);
+    }
+
+    private record Constant(double value) implements Node {
+        @Override
+        public double[] evaluate(Map<String, double[]> values, int length) {
+            double[] res = new double[length];
+            Arrays.fill(res, value);
+            return res;
+        }
+
+        @Override
+        public void collectNames(Set<String> names) {
+        }
+    }
+
+    private record Name(String name) implements Node {
+        @Override
+        public double[] evaluate(Map<String, double[]> values, int length) {
+            return values.get(name);
+        }
+
+        @Override
+        public void collectNames(Set<String> names) {
+            names.add(name);
+        }
+    }
+
+    private record Unary(DoubleUnaryOperator operator, Node child) implements Node {
+        @Override
+        public double[] evaluate(Map<String, double[]> values, int length) {
+            double[] operand = child.evaluate(values, length);
+            double[] res = new double[length];
+            for (int i = 0; i < length; i++) {
+                res[i] = operator.applyAsDouble(operand[i]);
+            }
+            return res;
+        }
+
+        @Override
+        public void collectNames(Set<String> names) {
+            child.collectNames(names);
+        }
+    }
+
+    private record Binary(DoubleBinaryOperator operator, Node left, Node right) implements Node {
+        @Override
+        public double[] evaluate(Map<String, double[]> values, int length) {
+            double[] leftOperand = left.evaluate(values, length);
+            double[] rightOperand = right.evaluate(values, length);
+            double[] res = new double[length];
+            for (int i = 0; i < length; i++) {
+                res[i] = operator.applyAsDouble(leftOperand[i], rightOperand[i]);
+            }
+            return res;
+        }
+
+        @Override
+        public void collectNames(Set<String> names) {
+            left.collectNames(names);
+            right.collectNames(names);
+        }
+    }
+
+    private static double bool(boolean b) {
+        return b ? 1 : 0;
+    }
+
+    private static final Map<String, DoubleBinaryOperator> COMPARISONS = Map.of(
+            "<", (a, b) -> bool(a < b),
+            "<=", (a, b) -> bool(a <= b),
+            ">", (a, b) -> bool(a > b),
+            ">=", (a, b) -> bool(a >= b),
+            "==", (a, b) -> bool(a == b),
+            "!=", (a, b) -> bool(a != b));
+
+    private final String expression;
+    private final Node root;
+
+    private TimeSeriesExpression(String expression, Node root) {
+        this.expression = expression;
+        this.root = root;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the expression is not valid
+     */
+    public static TimeSeriesExpression parse(String expression) {
+        Parser parser = new Parser(expression);
+        Node root = parser.parseComparison();
+        parser.skipWhitespaces();
+        if (parser.pos < expression.length()) {
+            throw parser.error("Unexpected character");
+        }
+        return new TimeSeriesExpression(expression, root);
+    }
+
+    public Set<String> getNames(Set<String> names) {
+        root.collectNames(names);
+        return names;
+    }
+
+    /**
+     * Evaluates the expression with the values of the time series (all of the given length).
+     */
+    public double[] evaluate(Map<String, double[]> values, int length) {
+        double[] res = root.evaluate(values, length);
+        // a single name returns the values of the time series themselves
+        return root instanceof Name ? res.clone() : res;
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+
+    // recursive descent, from the lowest to the highest precedence
+    private static final class Parser {
+        private final String expression;
+        private int pos;
+
+        private Parser(String expression) {
+            this.expression = expression;
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at position " + pos + " in expression '" + expression + "'");
+        }
+
+        private void skipWhitespaces() {
+            while (pos < expression.length() && Character.isWhitespace(expression.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        private boolean accept(String token) {
+            skipWhitespaces();
+            if (expression.startsWith(token, pos)) {
+                pos += token.length();
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(String token) {
+            if (!accept(token)) {
+                throw error("Expected '" + token + "'");
+            }
+        }
+
+        private Node parseComparison() {
+            Node left = parseSum();
+            // longest operators first
+            for (String operator : List.of("<=", ">=", "==", "!=", "<", ">")) {
+                if (accept(operator)) {
+                    return new Binary(COMPARISONS.get(operator), left, parseSum());
+                }
+            }
+            return left;
+        }
+
+        private Node parseSum() {
+            Node node = parseProduct();
+            while (true) {
+                if (accept("+")) {
+                    node = new Binary(Double::sum, node, parseProduct());
+                } else if (accept("-")) {
+                    node = new Binary((a, b) -> a - b, node, parseProduct());
+                } else {
+                    return node;
+                }
+            }
+        }
+
+        private Node parseProduct() {
+            Node node = parseUnary();
+            while (true) {
+                if (accept("*")) {
+                    node = new Binary((a, b) -> a * b, node, parseUnary());
+                } else if (accept("/")) {
+                    node = new Binary((a, b) -> a / b, node, parseUnary());
+                } else {
+                    return node;
+                }
+            }
+        }
+
+        private Node parseUnary() {
+            if (accept("-")) {
+                return new Unary(a -> -a, parseUnary());
+            } else if (accept("+")) {
+                return parseUnary();
+            }
+            return parsePrimary();
+        }
+
+        private List<Node> parseArguments() {
+            expect("(");
+            List<Node> arguments = new ArrayList<>();
+            do {
+                arguments.add(parseComparison());
+            } while (accept(","));
+            expect(")");
+            return arguments;
+        }
+
+        private Node parseFunction(String function) {
+            int start = pos;
+            List<Node> arguments = parseArguments();
+            int arity = "abs".equals(function) ? 1 : 2;
+            if (arguments.size() != arity) {
+                pos = start;
+                throw error("Function " + function + " expects " + arity + " arguments");
+            }
+            return switch (function) {
+                case "abs" -> new Unary(Math::abs, arguments.get(0));
+                case "min" -> new Binary(Math::min, arguments.get(0), arguments.get(1));
+                default -> new Binary(Math::max, arguments.get(0), arguments.get(1));
+            };
+        }
+
+        private Node parsePrimary() {
+            skipWhitespaces();
+            if (pos >= expression.length()) {
+                throw error("Unexpected end");
+            }
+            char c = expression.charAt(pos);
+            if (c == '(') {
+                pos++;
+                Node node = parseComparison();
+                expect(")");
+                return node;
+            } else if (c == '"') {
+                int end = expression.indexOf('"', pos + 1);
+                if (end < 0) {
+                    throw error("Unterminated name");
+                }
+                String name = expression.substring(pos + 1, end);
+                pos = end + 1;
+                return new Name(name);
+            } else if (Character.isDigit(c) || c == '.') {
+                int start = pos;
+                while (pos < expression.length() && (Character.isDigit(expression.charAt(pos)) || expression.charAt(pos) == '.'
+                        || expression.charAt(pos) == 'e' || expression.charAt(pos) == 'E'
+                        || (expression.charAt(pos) == '-' || expression.charAt(pos) == '+') && "eE".indexOf(expression.charAt(pos - 1)) >= 0)) {
+                    pos++;
+                }
+                try {
+                    return new Constant(Double.parseDouble(expression.substring(start, pos)));
+                } catch (NumberFormatException e) {
+                    pos = start;
+                    throw error("Invalid number");
+                }
+            } else if (Character.isLetter(c) || c == '_') {
+                int start = pos;
+                while (pos < expression.length() && (Character.isLetterOrDigit(expression.charAt(pos))
+                        || expression.charAt(pos) == '_' || expression.charAt(pos) == '.')) {
+                    pos++;
+                }
+                String identifier = expression.substring(start, pos);
+                skipWhitespaces();
+                if (pos < expression.length() && expression.charAt(pos) == '('
+                        && ("abs".equals(identifier) || "min".equals(identifier) || "max".equals(identifier))) {
+                    return parseFunction(identifier);
+                }
+                return new Name(identifier);
+            }
+            throw error("Unexpected character");
+        }
+    }
+}
@@ -0,0 +1,40 @@
+/**
+ * Copyright (c) 2026, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.gridsuite.timeseries.server;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * A group deleted recently: it may still be on the read replicas, it is removed from the listing
+ * until they are up to date, see TimeSeriesDataSources.
+ */
+@NoArgsConstructor // for hibernate
+@AllArgsConstructor
+@Getter
+@Setter
+@Entity
+@Table(name = "timeseries_group_deletion")
+public class TimeSeriesGroupDeletionEntity {
+
+    @Id
+    @Column(name = "id")
+    private UUID id;
+
+    @Column(name = "deletion_date")
+    private Instant deletionDate;
+}
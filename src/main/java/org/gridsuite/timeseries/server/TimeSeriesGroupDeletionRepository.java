@@ -0,0 +1,25 @@
+/**
+ * Copyright (c) 2026, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.gridsuite.timeseries.server;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * The groups deleted recently, see TimeSeriesGroupDeletionEntity.
+ */
+@Repository
+public interface TimeSeriesGroupDeletionRepository extends JpaRepository<TimeSeriesGroupDeletionEntity, UUID> {
+
+    List<TimeSeriesGroupDeletionEntity> findByDeletionDateAfter(Instant deletionDate);
+
+    void deleteByDeletionDateBefore(Instant deletionDate);
+}
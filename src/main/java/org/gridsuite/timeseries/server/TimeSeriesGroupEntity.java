@@ -6,6 +6,7 @@
  */
 package org.gridsuite.timeseries.server;
 
+import java.time.Instant;
 import java.util.UUID;
 
 import jakarta.persistence.Column;
@@ -32,7 +33,7 @@ import lombok.Setter;
 public class TimeSeriesGroupEntity {
 
     public TimeSeriesGroupEntity(String indexType, String index, String metadatas) {
-        this(null, indexType, index, metadatas);
+        this(null, indexType, index, metadatas, null, Instant.now(), null, Instant.now(), null);
     }
 
     @Id
@@ -52,6 +53,33 @@ public class TimeSeriesGroupEntity {
     // TODO proper modeling of this data instead of json string
     private String metadatas;
 
+    // statistics of each time series (json object by name, see TimeSeriesStatistics), null for the groups
+    // saved before the statistics until they are computed
+    @Column(name = "statistics", columnDefinition = "CLOB")
+    // TODO proper modeling of this data instead of json string
+    private String statistics;
+
+    // updated at most once per hour by the reads, see TimeSeriesService
+    @Column(name = "last_access_date")
+    private Instant lastAccessDate;
+
+    // path of the archive file when the data of the group is archived instead of in timeseries_group_data,
+    // see TimeSeriesArchiver
+    @Column(name = "archive_path")
+    private String archivePath;
+
+    // last write of the data of the group (creation, archive, rehydration), the recently written
+    // groups are not read from the replicas, see TimeSeriesDataSources. Null for the groups saved
+    // before this column.
+    @Column(name = "last_write_date")
+    private Instant lastWriteDate;
+
+    // when the rows of an archived group are deleted from timeseries_group_data, they are kept for a
+    // while for the reads which started before the group was archived, see TimeSeriesArchiver. Null
+    // when the group has no rows to purge.
+    @Column(name = "purge_date")
+    private Instant purgeDate;
+
     // TODO Maybe add metadata here about this group ?
     // - name ?
     // - number of timeSeries ?
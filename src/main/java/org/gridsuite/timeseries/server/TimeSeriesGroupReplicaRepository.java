@@ -0,0 +1,83 @@
+/**
+ * Copyright (c) 2026, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.gridsuite.timeseries.server;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.springframework.stereotype.Repository;
+
+/**
+ * Reads of the groups (timeseries_group) on the read replicas, for the listing and the metadata only
+ * requests. The entities are detached, they must not be modified. The JPA repository
+ * (TimeSeriesGroupRepository) is bound to the primary and is used for everything else.
+ */
+@Repository
+public class TimeSeriesGroupReplicaRepository {
+
+    private final TimeSeriesDataSources timeSeriesDataSources;
+
+    public TimeSeriesGroupReplicaRepository(TimeSeriesDataSources timeSeriesDataSources) {
+        this.timeSeriesDataSources = timeSeriesDataSources;
+    }
+
+    private static Instant toInstant(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toInstant() : null;
+    }
+
+    private List<UUID> doFindAllIds() throws Exception {
+        List<UUID> res = new ArrayList<>();
+        try (var connection = timeSeriesDataSources.getReadConnection(null);
+             var ps = connection.prepareStatement(TimeSeriesDataQueryCatalog.SELECT_GROUP_IDS);
+             var resultSet = ps.executeQuery();
+        ) {
+            while (resultSet.next()) {
+                res.add(resultSet.getObject(1, UUID.class));
+            }
+        }
+        return res;
+    }
+
+    public List<UUID> findAllIds() {
+        try {
+            return doFindAllIds();
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private Optional<TimeSeriesGroupEntity> doFindById(UUID uuid) throws Exception {
+        try (var connection = timeSeriesDataSources.getReadConnection(null);
+             var ps = connection.prepareStatement(TimeSeriesDataQueryCatalog.SELECT_GROUP);
+        ) {
+            ps.setObject(1, uuid);
+            try (var resultSet = ps.executeQuery();) {
+                if (!resultSet.next()) {
+                    return Optional.empty();
+                }
+                return Optional.of(new TimeSeriesGroupEntity(resultSet.getObject(1, UUID.class), resultSet.getString(2),
+                        resultSet.getString(3), resultSet.getString(4), resultSet.getString(5), toInstant(resultSet.getTimestamp(6)),
+                        resultSet.getString(7), toInstant(resultSet.getTimestamp(8)), toInstant(resultSet.getTimestamp(9))));
+            }
+        }
+    }
+
+    /**
+     * Returns the group as seen by a replica, empty when it is not there (yet).
+     */
+    public Optional<TimeSeriesGroupEntity> findById(UUID uuid) {
+        try {
+            return doFindById(uuid);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
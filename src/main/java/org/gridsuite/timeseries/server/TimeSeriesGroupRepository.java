@@ -6,9 +6,14 @@
  */
 package org.gridsuite.timeseries.server;
 
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 /**
@@ -16,4 +21,21 @@ import java.util.UUID;
  */
 @Repository
 public interface TimeSeriesGroupRepository extends JpaRepository<TimeSeriesGroupEntity, UUID> {
+
+    List<TimeSeriesGroupEntity> findByArchivePathIsNullAndLastAccessDateBefore(Instant lastAccessDate);
+
+    List<TimeSeriesGroupEntity> findByLastWriteDateAfter(Instant lastWriteDate);
+
+    List<TimeSeriesGroupEntity> findByPurgeDateBefore(Instant purgeDate);
+
+    // the last write of a group, without loading its metadata
+    interface LastWrite {
+        Instant getLastWriteDate();
+    }
+
+    Optional<LastWrite> findLastWriteById(UUID id);
+
+    // the purge of the rows of an archived group and its rehydration or deletion are serialized
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<TimeSeriesGroupEntity> findWithLockById(UUID id);
 }
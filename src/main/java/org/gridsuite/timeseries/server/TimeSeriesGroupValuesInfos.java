@@ -0,0 +1,28 @@
+/**
+ * Copyright (c) 2026, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.gridsuite.timeseries.server;
+
+import java.time.Instant;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Values of some time series of a group at some instants, values.get(i).get(j) is
+ * the value of timeSeriesNames.get(j) at instants.get(i) (null for missing values).
+ */
+@AllArgsConstructor
+@Getter
+public class TimeSeriesGroupValuesInfos {
+
+    private List<Instant> instants;
+
+    private List<String> timeSeriesNames;
+
+    private List<List<Object>> values;
+}
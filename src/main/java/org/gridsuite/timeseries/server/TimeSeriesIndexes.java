@@ -0,0 +1,90 @@
+/**
+ * Copyright (c) 2026, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.gridsuite.timeseries.server;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import com.powsybl.timeseries.IrregularTimeSeriesIndex;
+import com.powsybl.timeseries.RegularTimeSeriesIndex;
+import com.powsybl.timeseries.TimeSeriesIndex;
+
+/**
+ * Mapping between instants and points (the time column of timeseries_group_data) of an index.
+ */
+public final class TimeSeriesIndexes {
+
+    /**
+     * Returns the point of the index at exactly this instant, or -1 if there is none.
+     * This is computed directly for regular indexes and by binary search for the other
+     * indexes (their instants are sorted).
+     */
+    public static int indexOf(TimeSeriesIndex index, Instant instant) {
+        if (index instanceof RegularTimeSeriesIndex regularIndex) {
+            Duration offset = Duration.between(regularIndex.getStartInstant(), instant);
+            Duration step = regularIndex.getTimeStep();
+            if (offset.isNegative()) {
+                return -1;
+            }
+            long point = offset.dividedBy(step);
+            return point < index.getPointCount() && step.multipliedBy(point).equals(offset) ? (int) point : -1;
+        }
+        int low = 0;
+        int high = index.getPointCount() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = index.getInstantAt(mid).compareTo(instant);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the first point of the index at or after this instant, or the point count if there is none.
+     */
+    public static int ceilingIndexOf(TimeSeriesIndex index, Instant instant) {
+        int low = 0;
+        int high = index.getPointCount();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (index.getInstantAt(mid).isBefore(instant)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns an index with the points [from, to) of the given index. The infinite index is only
+     * returned whole, the windows on it are rejected by TimeSeriesService.
+     */
+    public static TimeSeriesIndex subIndex(TimeSeriesIndex index, int from, int to) {
+        if (from == 0 && to == index.getPointCount()) {
+            return index;
+        }
+        // a regular index needs at least 2 points, a single point is returned as an irregular index
+        if (index instanceof RegularTimeSeriesIndex regularIndex && to - from > 1) {
+            return new RegularTimeSeriesIndex(index.getInstantAt(from), index.getInstantAt(to - 1), regularIndex.getTimeStep());
+        }
+        Instant[] instants = new Instant[to - from];
+        for (int i = 0; i < instants.length; i++) {
+            instants[i] = index.getInstantAt(from + i);
+        }
+        return new IrregularTimeSeriesIndex(instants);
+    }
+
+    private TimeSeriesIndexes() {
+    }
+}
@@ -0,0 +1,205 @@
+/**
+ * Copyright (c) 2026, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.gridsuite.timeseries.server;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.powsybl.commons.json.JsonUtil;
+import com.powsybl.timeseries.TimeSeries;
+import com.powsybl.timeseries.TimeSeriesIndex;
+
+/**
+ * Parses a json array of time series, same as TimeSeries.parseJson(json), but splits
+ * the top level array into ranges of time series which are parsed concurrently on the
+ * shared executor. The time series are checked to all have the same index while parsing.
+ */
+@Component
+public class TimeSeriesJsonParser {
+
+    // below this size, a single range in the calling thread is faster
+    private static final int MIN_RANGE_BYTES = 1 << 20;
+    // more ranges than cores to balance time series of different sizes
+    private static final int RANGES_PER_CORE = 4;
+    private static final byte[] OPENING_BRACKET = {'['};
+    private static final byte[] CLOSING_BRACKET = {']'};
+
+    private final TimeSeriesTaskExecutor timeSeriesTaskExecutor;
+
+    public TimeSeriesJsonParser(TimeSeriesTaskExecutor timeSeriesTaskExecutor) {
+        this.timeSeriesTaskExecutor = timeSeriesTaskExecutor;
+    }
+
+    private static ResponseStatusException badRequest(String message) {
+        //TODO better separation of service API and controller API: don't speak http here
+        return new ResponseStatusException(HttpStatus.BAD_REQUEST, message);
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+
+    /**
+     * Splits the top level json array in ranges [start, end) of the bytes, each range containing
+     * whole elements separated by commas. Only the structure is scanned (strings, escapes and nesting),
+     * the values are validated later by the actual parsing. UTF-8 multibyte sequences never contain
+     * ascii bytes so they can't be confused with the structural characters.
+     */
+    static List<int[]> split(byte[] bytes, int length, int targetRangeBytes) {
+        int pos = 0;
+        while (pos < length && isWhitespace(bytes[pos])) {
+            pos++;
+        }
+        if (pos == length || bytes[pos] != '[') {
+            throw badRequest("Expected a json array of time series");
+        }
+        List<int[]> ranges = new ArrayList<>();
+        int rangeStart = pos + 1;
+        int depth = 0;
+        boolean inString = false;
+        for (pos = pos + 1; pos < length; pos++) {
+            byte b = bytes[pos];
+            if (inString) {
+                if (b == '\\') {
+                    pos++;
+                } else if (b == '"') {
+                    inString = false;
+                }
+            } else if (b == '"') {
+                inString = true;
+            } else if (b == '{' || b == '[') {
+                depth++;
+            } else if (b == '}' || b == ']') {
+                if (depth == 0) {
+                    ranges.add(new int[] {rangeStart, pos});
+                    return ranges;
+                }
+                depth--;
+            } else if (b == ',' && depth == 0 && pos - rangeStart >= targetRangeBytes) {
+                ranges.add(new int[] {rangeStart, pos});
+                rangeStart = pos + 1;
+            }
+        }
+        throw badRequest("Unterminated json array of time series");
+    }
+
+    private static List<TimeSeries> parseRange(byte[] bytes, int start, int end) throws Exception {
+        // the range is wrapped in brackets to be parsed as a json array of time series
+        InputStream input = new SequenceInputStream(Collections.enumeration(List.of(
+                new ByteArrayInputStream(OPENING_BRACKET),
+                new ByteArrayInputStream(bytes, start, end - start),
+                new ByteArrayInputStream(CLOSING_BRACKET))));
+        List<TimeSeries> list;
+        try (JsonParser parser = JsonUtil.createJsonFactory().createParser(input)) {
+            list = TimeSeries.parseJson(parser);
+        }
+        checkSameIndex(list, 0);
+        return list;
+    }
+
+    private static void checkSameIndex(List<TimeSeries> list, int from) {
+        if (list.isEmpty()) {
+            return;
+        }
+        TimeSeries first = list.get(0);
+        TimeSeriesIndex index = first.getMetadata().getIndex();
+        for (int i = from; i < list.size(); i++) {
+            TimeSeries ts = list.get(i);
+            if (!index.equals(ts.getMetadata().getIndex())) {
+                //TODO better messages (return all problems at once?)
+                throw badRequest("Different index for " + first.getMetadata().getName()
+                        + " and " + ts.getMetadata().getName());
+            }
+        }
+    }
+
+    public List<TimeSeries> parseJson(InputStream inputStream) throws Exception {
+        byte[] bytes = inputStream.readAllBytes();
+        int cores = Runtime.getRuntime().availableProcessors();
+        int targetRangeBytes = Math.max(MIN_RANGE_BYTES, bytes.length / (cores * RANGES_PER_CORE));
+        List<int[]> ranges = split(bytes, bytes.length, targetRangeBytes);
+
+        List<Callable<List<TimeSeries>>> callables = new ArrayList<>(ranges.size());
+        for (int[] range : ranges) {
+            callables.add(() -> parseRange(bytes, range[0], range[1]));
+        }
+        List<List<TimeSeries>> parsed = timeSeriesTaskExecutor.invokeAll(callables, cores);
+
+        List<TimeSeries> list = new ArrayList<>();
+        for (List<TimeSeries> rangeList : parsed) {
+            list.addAll(rangeList);
+        }
+        if (list.isEmpty()) {
+            throw badRequest("No time series");
+        }
+        // each range was checked while parsing, check the ranges against each other
+        List<TimeSeries> firsts = parsed.stream().filter(l -> !l.isEmpty()).map(l -> l.get(0)).toList();
+        checkSameIndex(firsts, 1);
+        return list;
+    }
+
+    /**
+     * Reads a json array of groups, each group being a json array of time series as in parseJson,
+     * one group at a time: only the current group is in memory.
+     */
+    public GroupsReader readGroups(InputStream inputStream) throws IOException {
+        return new GroupsReader(JsonUtil.createJsonFactory().createParser(inputStream));
+    }
+
+    public static final class GroupsReader implements AutoCloseable {
+
+        private final JsonParser parser;
+        private boolean started;
+
+        private GroupsReader(JsonParser parser) {
+            this.parser = parser;
+        }
+
+        /**
+         * Returns the time series of the next group, or null after the last group.
+         */
+        public List<TimeSeries> next() throws IOException {
+            if (!started) {
+                started = true;
+                if (parser.nextToken() != JsonToken.START_ARRAY) {
+                    throw badRequest("Expected a json array of groups of time series");
+                }
+            }
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.END_ARRAY) {
+                return null;
+            }
+            if (token != JsonToken.START_ARRAY) {
+                throw badRequest("Expected a json array of time series");
+            }
+            // reads the time series up to the end of the array of the group
+            List<TimeSeries> list = TimeSeries.parseJson(parser);
+            if (list.isEmpty()) {
+                throw badRequest("No time series");
+            }
+            checkSameIndex(list, 1);
+            return list;
+        }
+
+        @Override
+        public void close() throws IOException {
+            parser.close();
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/**
+ * Copyright (c) 2026, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.gridsuite.timeseries.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.powsybl.commons.json.JsonUtil;
+import com.powsybl.timeseries.DoubleDataChunk;
+import com.powsybl.timeseries.TimeSeries;
+import com.powsybl.timeseries.TimeSeriesMetadata;
+import com.powsybl.timeseries.UncompressedDoubleDataChunk;
+
+/**
+ * Writes a list of time series as a json array, same as TimeSeries.toJson(list), but
+ * encodes blocks of time series concurrently in their own buffers on the shared executor
+ * and then writes the buffers in the order of the list.
+ */
+@Component
+public class TimeSeriesJsonWriter {
+
+    // below this number of values, a single block in the calling thread is faster
+    private static final long MIN_PARALLEL_CELLS = 100_000L;
+    // more blocks than cores to balance time series of different sizes
+    private static final int BLOCKS_PER_CORE = 4;
+    // number of values of the chunks streamed from a spill file
+    private static final int SPILL_CHUNK_SIZE = 1 << 16;
+
+    private final TimeSeriesTaskExecutor timeSeriesTaskExecutor;
+
+    public TimeSeriesJsonWriter(TimeSeriesTaskExecutor timeSeriesTaskExecutor) {
+        this.timeSeriesTaskExecutor = timeSeriesTaskExecutor;
+    }
+
+    private static byte[] encode(List<TimeSeries> block) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (JsonGenerator generator = JsonUtil.createJsonFactory().createGenerator(buffer)) {
+            for (int i = 0; i < block.size(); i++) {
+                if (i > 0) {
+                    generator.writeRaw(',');
+                }
+                block.get(i).writeJson(generator);
+            }
+        }
+        return buffer.toByteArray();
+    }
+
+    public void writeJson(List<TimeSeries> list, OutputStream outputStream) throws Exception {
+        writeJson(list, outputStream, MIN_PARALLEL_CELLS);
+    }
+
+    // the threshold is lowered by the tests to encode small lists in several blocks
+    void writeJson(List<TimeSeries> list, OutputStream outputStream, long minParallelCells) throws Exception {
+        int cores = Runtime.getRuntime().availableProcessors();
+        long cells = list.isEmpty() ? 0 : (long) list.get(0).getMetadata().getIndex().getPointCount() * list.size();
+        int blockcount = cells < minParallelCells ? 1 : Math.min(list.size(), cores * BLOCKS_PER_CORE);
+        int blocksize = list.isEmpty() ? 0 : (list.size() + blockcount - 1) / blockcount;
+
+        List<Callable<byte[]>> callables = new ArrayList<>(blockcount);
+        for (int start = 0; start < list.size(); start += blocksize) {
+            List<TimeSeries> block = list.subList(start, Math.min(list.size(), start + blocksize));
+            callables.add(() -> encode(block));
+        }
+        List<byte[]> buffers = timeSeriesTaskExecutor.invokeAll(callables, cores);
+
+        outputStream.write('[');
+        for (int i = 0; i < buffers.size(); i++) {
+            if (i > 0) {
+                outputStream.write(',');
+            }
+            outputStream.write(buffers.get(i));
+            // release the buffers as soon as they are written
+            buffers.set(i, null);
+        }
+        outputStream.write(']');
+        outputStream.flush();
+    }
+
+    /**
+     * Writes the time series of a spill file as a json array, same as TimeSeries.toJson(list).
+     * The time series are streamed one chunk at a time (so they are written with several chunks)
+     * to only keep one chunk in the heap.
+     */
+    public void writeJson(TimeSeriesSpillFile spillFile, boolean tryToCompress, OutputStream outputStream) throws IOException {
+        int rowcount = spillFile.getRowCount();
+        double[] buffer = new double[Math.min(SPILL_CHUNK_SIZE, rowcount)];
+        try (JsonGenerator generator = JsonUtil.createJsonFactory().createGenerator(outputStream)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartArray();
+            List<TimeSeriesMetadata> metadatas = spillFile.getMetadatas();
+            for (int col = 0; col < metadatas.size(); col++) {
+                generator.writeStartObject();
+                generator.writeFieldName("metadata");
+                metadatas.get(col).writeJson(generator);
+                generator.writeFieldName("chunks");
+                generator.writeStartArray();
+                // the points after the length of the column were not sent by the client, no chunk for them
+                int colrowcount = spillFile.getLength(col);
+                for (int offset = 0; offset < colrowcount; offset += SPILL_CHUNK_SIZE) {
+                    int length = Math.min(SPILL_CHUNK_SIZE, colrowcount - offset);
+                    double[] values = length == buffer.length ? buffer : new double[length];
+                    spillFile.read(col, offset, values);
+                    // the chunk is written before the buffer is reused
+                    DoubleDataChunk chunk = new UncompressedDoubleDataChunk(offset, values);
+                    if (tryToCompress) {
+                        chunk = chunk.tryToCompress();
+                    }
+                    chunk.writeJson(generator);
+                }
+                generator.writeEndArray();
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+        }
+        outputStream.flush();
+    }
+}
@@ -0,0 +1,184 @@
+/**
+ * Copyright (c) 2026, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.gridsuite.timeseries.server;
+
+import java.nio.file.Path;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.powsybl.timeseries.TimeSeriesDataType;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Admission control of the large reads and writes against a global memory budget.
+ * <p>
+ * The memory footprint of each request is estimated before it does any work and is reserved
+ * for the whole request (including the serialization of the response). Requests wait in a
+ * fair queue until enough of the budget is released, and are rejected with a 503 and a
+ * Retry-After header when they have waited too long. A request bigger than the whole budget
+ * is admitted alone.
+ * <p>
+ * Reads of double time series bigger than the spill threshold are downgraded to the spilled path
+ * (assembled in a memory mapped file and streamed to the response, see {@link TimeSeriesSpillFile})
+ * which only needs a bounded amount of heap.
+ */
+@Component
+public class TimeSeriesMemoryBudget {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TimeSeriesMemoryBudget.class);
+
+    // reservations are counted in KiB to fit large budgets in the permits of the semaphore
+    private static final int UNIT = 1024;
+
+    // rough footprint of a cell on the read path: jsonb rows parsed into maps of boxed values,
+    // transposed into lists, then the arrays of the time series and the serialized json
+    private static final long READ_DOUBLE_BYTES_PER_CELL = 96;
+    private static final long READ_STRING_BYTES_PER_CELL = 128;
+    // rough footprint of the write path for each byte of the body: the raw body, the arrays of
+    // the parsed time series and the json of the rows of the batches
+    private static final long WRITE_BYTES_PER_BODY_BYTE = 4;
+    // heap of the spilled path: the batches of the workers and the chunk of the writer
+    private static final long SPILLED_READ_BYTES = 64L << 20;
+
+    @Value("${timeseries.memory-budget.enabled:true}")
+    private boolean enabled;
+    @Value("${timeseries.memory-budget.max-wait-ms:30000}")
+    private long maxwaitms;
+    @Value("${timeseries.memory-budget.retry-after-seconds:5}")
+    private long retryafterseconds;
+    // 0 disables the spilled path
+    @Value("${timeseries.memory-budget.spill-threshold-bytes:1073741824}")
+    private long spillthresholdbytes;
+    @Value("${timeseries.memory-budget.spill-directory:${java.io.tmpdir}}")
+    private Path spilldirectory;
+    // size assumed for the bodies without a content length (chunked), which can't be estimated before they are read
+    @Value("${timeseries.memory-budget.unknown-body-bytes:268435456}")
+    private long unknownbodybytes;
+
+    private final long budgetBytes;
+    private final int budgetUnits;
+    private final Semaphore semaphore;
+    private final AtomicLong reservedBytes = new AtomicLong();
+    private final Counter rejected;
+
+    public TimeSeriesMemoryBudget(MeterRegistry meterRegistry,
+            // 0 means half of the max heap
+            @Value("${timeseries.memory-budget.bytes:0}") long configuredBudgetBytes) {
+        this.budgetBytes = configuredBudgetBytes > 0 ? configuredBudgetBytes : Runtime.getRuntime().maxMemory() / 2;
+        this.budgetUnits = (int) Math.min(Integer.MAX_VALUE, Math.max(1, budgetBytes / UNIT));
+        this.semaphore = new Semaphore(budgetUnits, true);
+        Gauge.builder("timeseries.memory.budget", () -> budgetBytes)
+                .description("Memory budget of the reads and writes")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("timeseries.memory.reserved", reservedBytes, AtomicLong::get)
+                .description("Memory currently reserved by the reads and writes")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("timeseries.memory.rejected")
+                .description("Requests rejected because the memory budget was exhausted")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Reserved memory of a request, released when closed.
+     */
+    public final class Reservation implements AutoCloseable {
+        private final long bytes;
+        private final int units;
+        private boolean closed;
+
+        private Reservation(long bytes, int units) {
+            this.bytes = bytes;
+            this.units = units;
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                semaphore.release(units);
+                reservedBytes.addAndGet(-bytes);
+            }
+        }
+    }
+
+    /**
+     * 503 with a Retry-After header.
+     */
+    public static class BudgetExceededException extends ResponseStatusException {
+        private final long retryAfterSeconds;
+
+        public BudgetExceededException(String reason, long retryAfterSeconds) {
+            super(HttpStatus.SERVICE_UNAVAILABLE, reason);
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            HttpHeaders headers = new HttpHeaders();
+            headers.set(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+            return headers;
+        }
+    }
+
+    /**
+     * Memory to reserve for a request, and whether a read must use the spilled path.
+     */
+    public record Estimate(long bytes, boolean spill) {
+    }
+
+    public Estimate estimateRead(TimeSeriesDataType dataType, long cells, boolean spillable) {
+        long bytes = cells * (dataType == TimeSeriesDataType.STRING ? READ_STRING_BYTES_PER_CELL : READ_DOUBLE_BYTES_PER_CELL);
+        if (spillable && dataType == TimeSeriesDataType.DOUBLE && spillthresholdbytes > 0 && bytes > spillthresholdbytes) {
+            return new Estimate(Math.min(bytes, SPILLED_READ_BYTES), true);
+        }
+        return new Estimate(bytes, false);
+    }
+
+    public Path getSpillDirectory() {
+        return spilldirectory;
+    }
+
+    public long estimateWrite(long contentLength) {
+        return (contentLength >= 0 ? contentLength : unknownbodybytes) * WRITE_BYTES_PER_BODY_BYTE;
+    }
+
+    public Reservation reserve(long bytes) {
+        if (!enabled || bytes <= 0) {
+            return new Reservation(0, 0);
+        }
+        // a request bigger than the budget waits for the whole budget, so it runs alone
+        int units = (int) Math.min(budgetUnits, Math.max(1, (bytes + UNIT - 1) / UNIT));
+        boolean acquired;
+        try {
+            acquired = semaphore.tryAcquire(units, maxwaitms, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+        if (!acquired) {
+            rejected.increment();
+            LOGGER.debug("memory budget exhausted: requested={} reserved={} budget={}", bytes, reservedBytes.get(), budgetBytes);
+            throw new BudgetExceededException("Memory budget exhausted, retry later", retryafterseconds);
+        }
+        reservedBytes.addAndGet(bytes);
+        return new Reservation(bytes, units);
+    }
+}
@@ -45,6 +45,12 @@ import com.powsybl.timeseries.TimeSeriesMetadata;
  *   <li>indexToJson and indexFromJson
  *   <li>individualTimeSeriesMetadatasToJson and individualMetadatasListFromJson
  *   <p>
+ *   The individual metadatas of the dictionary encoded string time series also contain their dictionary
+ *   (see individualMetadatasWithDictionaries and getDictionary), which is not part of the business objects.
+ *   The same goes for the number of points sent by the client of the time series which don't have all the points
+ *   (see individualMetadatasWithLengths and getLength), and for the reference of the deduplicated time series
+ *   to their content (see individualMetadatasWithContents and getContent).
+ *   <p>
  *   Note: individualMetadatasListFromJson for now is very low level, a higher level
  *   version is timeSeriesMetadataListFromJson which returns business objects,
  *   or individualMetadatasMapFromJson which returns a map of map (instead of a list of maps).
@@ -60,6 +66,10 @@ import com.powsybl.timeseries.TimeSeriesMetadata;
 @Service
 public class TimeSeriesMetadataService {
 
+    private static final String DICTIONARY = "dictionary";
+    private static final String LENGTH = "length";
+    private static final String CONTENT = "content";
+
     private final ObjectMapper objectMapper;
 
     public TimeSeriesMetadataService(ObjectMapper objectMapper) {
@@ -128,6 +138,16 @@ public class TimeSeriesMetadataService {
         writeIndividualMetadatas(timeSeriesList.stream().map(TimeSeries::getMetadata).collect(Collectors.toList()), generator);
     }
 
+    public String individualMetadatasToJson(List<TimeSeriesMetadata> metadatas) {
+        return JsonUtil.toJson(generator -> {
+            try {
+                writeIndividualMetadatas(metadatas, generator);
+            } catch (IOException e) {
+                throw new RuntimeException("Error serializing metadatas", e);
+            }
+        });
+    }
+
     public String individualTimeSeriesMetadatasToJson(List<TimeSeries> timeSeriesList) {
         return JsonUtil.toJson(generator -> {
             try {
@@ -170,6 +190,134 @@ public class TimeSeriesMetadataService {
         return timeSeriesMetadataFromParsed(index, individualMetadata);
     }
 
+    // Sets the key in the individual metadatas which have a value, removes it from the others
+    private String individualMetadatasWith(String metadatas, String key, Map<String, ?> values) {
+        List<Map<String, Object>> list = individualMetadatasListFromJson(metadatas);
+        for (Map<String, Object> individualMetadata : list) {
+            Object value = values.get((String) individualMetadata.get("name"));
+            if (value != null) {
+                individualMetadata.put(key, value);
+            } else {
+                individualMetadata.remove(key);
+            }
+        }
+        try {
+            return objectMapper.writeValueAsString(list);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Error serializing metadatas", e);
+        }
+    }
+
+    /**
+     * Returns the individual metadatas json with the dictionaries of the time series (the dictionaries
+     * of the other time series are removed).
+     */
+    public String individualMetadatasWithDictionaries(String metadatas, Map<String, List<String>> dictionaries) {
+        return individualMetadatasWith(metadatas, DICTIONARY, dictionaries);
+    }
+
+    /**
+     * Returns the individual metadatas json with the lengths of the time series (the lengths of the
+     * other time series, which have all the points, are removed).
+     */
+    public String individualMetadatasWithLengths(String metadatas, Map<String, Integer> lengths) {
+        return individualMetadatasWith(metadatas, LENGTH, lengths);
+    }
+
+    /**
+     * Returns the individual metadatas json with the content references of the deduplicated time series
+     * (the references of the other time series are removed).
+     */
+    public String individualMetadatasWithContents(String metadatas, Map<String, TimeSeriesContentRef> contents) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        contents.forEach((name, content) -> values.put(name, Map.of("hash", content.hash(), "offset", content.offset())));
+        return individualMetadatasWith(metadatas, CONTENT, values);
+    }
+
+    /**
+     * Returns the dictionary of a dictionary encoded string time series, or null.
+     */
+    public List<String> getDictionary(Map<String, Object> individualMetadatas, String name) {
+        Map<String, Object> individualMetadata = (Map) individualMetadatas.get(name);
+        return individualMetadata != null ? (List<String>) individualMetadata.get(DICTIONARY) : null;
+    }
+
+    public Map<String, List<String>> getDictionaries(Map<String, Object> individualMetadatas) {
+        Map<String, List<String>> dictionaries = new LinkedHashMap<>();
+        for (String name : individualMetadatas.keySet()) {
+            List<String> dictionary = getDictionary(individualMetadatas, name);
+            if (dictionary != null) {
+                dictionaries.put(name, dictionary);
+            }
+        }
+        return dictionaries;
+    }
+
+    /**
+     * Returns the number of points sent by the client of a time series, or null when it sent all the points.
+     * The points after it are missing from the time series, unlike the points sent with a missing value.
+     */
+    public Integer getLength(Map<String, Object> individualMetadatas, String name) {
+        Map<String, Object> individualMetadata = (Map) individualMetadatas.get(name);
+        return individualMetadata != null ? (Integer) individualMetadata.get(LENGTH) : null;
+    }
+
+    /**
+     * Returns the number of points sent by the client in the points [from, to) of a time series.
+     */
+    public int getLength(Map<String, Object> individualMetadatas, String name, int from, int to) {
+        Integer length = getLength(individualMetadatas, name);
+        return length != null ? Math.max(0, Math.min(to, length) - from) : to - from;
+    }
+
+    public Map<String, Integer> getLengths(Map<String, Object> individualMetadatas) {
+        Map<String, Integer> lengths = new LinkedHashMap<>();
+        for (String name : individualMetadatas.keySet()) {
+            Integer length = getLength(individualMetadatas, name);
+            if (length != null) {
+                lengths.put(name, length);
+            }
+        }
+        return lengths;
+    }
+
+    /**
+     * Returns the content reference of a deduplicated time series, or null when its values are in the rows of the group.
+     */
+    public TimeSeriesContentRef getContent(Map<String, Object> individualMetadatas, String name) {
+        Map<String, Object> individualMetadata = (Map) individualMetadatas.get(name);
+        Map<String, Object> content = individualMetadata != null ? (Map) individualMetadata.get(CONTENT) : null;
+        return content != null ? new TimeSeriesContentRef((String) content.get("hash"), ((Number) content.get("offset")).intValue()) : null;
+    }
+
+    public Map<String, TimeSeriesContentRef> getContents(Map<String, Object> individualMetadatas) {
+        Map<String, TimeSeriesContentRef> contents = new LinkedHashMap<>();
+        for (String name : individualMetadatas.keySet()) {
+            TimeSeriesContentRef content = getContent(individualMetadatas, name);
+            if (content != null) {
+                contents.put(name, content);
+            }
+        }
+        return contents;
+    }
+
+    /**
+     * Decodes a value of a string time series as stored in the database: codes are the positions
+     * in the dictionary, the other values are returned as is.
+     */
+    public static Object decode(List<String> dictionary, Object value) {
+        return dictionary != null && value instanceof Number code ? dictionary.get(code.intValue()) : value;
+    }
+
+    // all the time series of a group have the same data type (see TimeSeriesDataRepository::doSave)
+    public TimeSeriesDataType getDataType(Map<String, Object> individualMetadatas) {
+        if (individualMetadatas.isEmpty()) {
+            return null;
+        }
+        Map<String, Object> individualMetadata = (Map) individualMetadatas.values().iterator().next();
+        return TimeSeriesDataType.valueOf((String) individualMetadata.get("dataType"));
+    }
+
     public List<TimeSeriesMetadata> timeSeriesMetadataListFromJson(
             TimeSeriesIndex index,
             String individualMetadatasJson) {
@@ -179,6 +327,23 @@ public class TimeSeriesMetadataService {
     }
 
     public String allMetadatasToJson(UUID uuid, TimeSeriesIndex index, List<TimeSeriesMetadata> individualMetadatasList) {
+        return allMetadatasToJson(uuid, index, individualMetadatasList, null);
+    }
+
+    /**
+     * Same as allMetadatasToJson with the statistics json (see TimeSeriesStatistics) when not null.
+     */
+    public String allMetadatasToJson(UUID uuid, TimeSeriesIndex index, List<TimeSeriesMetadata> individualMetadatasList,
+            String statisticsJson) {
+        return allMetadatasToJson(uuid, index, individualMetadatasList, statisticsJson, Map.of());
+    }
+
+    /**
+     * Same as allMetadatasToJson with the statistics json when not null and the content hashes of the
+     * deduplicated time series, by name, when there are some.
+     */
+    public String allMetadatasToJson(UUID uuid, TimeSeriesIndex index, List<TimeSeriesMetadata> individualMetadatasList,
+            String statisticsJson, Map<String, TimeSeriesContentRef> contents) {
         return JsonUtil.toJson(generator -> {
             try {
                 generator.writeStartObject();
@@ -188,6 +353,17 @@ public class TimeSeriesMetadataService {
                 writeIndex(index, generator);
                 generator.writeFieldName("metadatas");
                 writeIndividualMetadatas(individualMetadatasList, generator);
+                if (statisticsJson != null) {
+                    generator.writeFieldName("statistics");
+                    generator.writeRawValue(statisticsJson);
+                }
+                if (!contents.isEmpty()) {
+                    generator.writeObjectFieldStart("contents");
+                    for (Map.Entry<String, TimeSeriesContentRef> content : contents.entrySet()) {
+                        generator.writeStringField(content.getKey(), content.getValue().hash());
+                    }
+                    generator.writeEndObject();
+                }
                 generator.writeEndObject();
             } catch (IOException e) {
                 throw new RuntimeException("Error serializing metadatas", e);
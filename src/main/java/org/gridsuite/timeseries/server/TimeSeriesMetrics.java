@@ -0,0 +1,148 @@
+/**
+ * Copyright (c) 2026, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.gridsuite.timeseries.server;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.stereotype.Component;
+
+import com.google.common.base.Stopwatch;
+import com.powsybl.timeseries.TimeSeriesDataType;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Micrometer meters of the ingest and read paths.
+ * <p>
+ * All the meters are tagged with a {@link Scope}: the operation (write or read), the data type
+ * of the group and a size class of the group (number of cells, i.e. rows x cols) so that
+ * small and huge requests don't end up in the same histograms.
+ */
+@Component
+public class TimeSeriesMetrics {
+
+    public static final String WRITE = "write";
+    public static final String READ = "read";
+    public static final String COPY = "copy";
+
+    public static final String PHASE_PARSE = "parse";
+    public static final String PHASE_METADATA = "metadata";
+    public static final String PHASE_TRANSPOSE = "transpose";
+    public static final String PHASE_DB_BATCH = "db-batch";
+    public static final String PHASE_DECODE = "decode";
+    public static final String PHASE_MERGE = "merge";
+    public static final String PHASE_COMPRESSION = "compression";
+    public static final String PHASE_SERIALIZATION = "serialization";
+
+    private static final long SMALL_CELLS = 100_000L;
+    private static final long MEDIUM_CELLS = 10_000_000L;
+
+    private final MeterRegistry meterRegistry;
+    private final Map<Scope, AtomicInteger> inFlightTasks = new ConcurrentHashMap<>();
+
+    public TimeSeriesMetrics(MeterRegistry meterRegistry, HikariDataSource datasource) {
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("timeseries.connection.pending", datasource, ds -> {
+            // null until the pool is started by the first connection
+            HikariPoolMXBean pool = ds.getHikariPoolMXBean();
+            return pool == null ? 0 : pool.getThreadsAwaitingConnection();
+        }).description("Threads waiting for a database connection").register(meterRegistry);
+    }
+
+    public record Scope(String operation, String dataType, String sizeClass) {
+    }
+
+    public static String sizeClass(long cells) {
+        if (cells < SMALL_CELLS) {
+            return "small";
+        } else if (cells < MEDIUM_CELLS) {
+            return "medium";
+        } else {
+            return "large";
+        }
+    }
+
+    public Scope scope(String operation, TimeSeriesDataType dataType, long cells) {
+        return new Scope(operation, dataType != null ? dataType.name() : "unknown", sizeClass(cells));
+    }
+
+    private Timer timer(String name, String description, Scope scope, String phase) {
+        Timer.Builder builder = Timer.builder(name)
+                .description(description)
+                .tag("operation", scope.operation())
+                .tag("dataType", scope.dataType())
+                .tag("sizeClass", scope.sizeClass())
+                .publishPercentileHistogram();
+        if (phase != null) {
+            builder.tag("phase", phase);
+        }
+        return builder.register(meterRegistry);
+    }
+
+    public void recordPhase(Scope scope, String phase, long nanos) {
+        timer("timeseries.phase", "Time spent in each phase of the ingest and read paths", scope, phase)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordPhase(Scope scope, String phase, Stopwatch stopwatch) {
+        recordPhase(scope, phase, stopwatch.elapsed(TimeUnit.NANOSECONDS));
+    }
+
+    public void recordConnectionAcquire(Scope scope, long nanos) {
+        timer("timeseries.connection.acquire", "Time waiting for a database connection", scope, null)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private Counter counter(String name, String description, Scope scope) {
+        return Counter.builder(name)
+                .description(description)
+                .tag("operation", scope.operation())
+                .tag("dataType", scope.dataType())
+                .tag("sizeClass", scope.sizeClass())
+                .register(meterRegistry);
+    }
+
+    public void countData(Scope scope, long rows, long cells, long bytes) {
+        counter("timeseries.rows", "Rows written to or read from the database", scope).increment(rows);
+        counter("timeseries.cells", "Values written to or read from the database", scope).increment(cells);
+        counter("timeseries.bytes", "Json bytes written to or read from the database", scope).increment(bytes);
+    }
+
+    private AtomicInteger inFlight(Scope scope) {
+        return inFlightTasks.computeIfAbsent(scope, s -> {
+            AtomicInteger value = new AtomicInteger();
+            Gauge.builder("timeseries.tasks.inflight", value, AtomicInteger::get)
+                    .description("Scatter tasks currently running")
+                    .tag("operation", s.operation())
+                    .tag("dataType", s.dataType())
+                    .tag("sizeClass", s.sizeClass())
+                    .register(meterRegistry);
+            return value;
+        });
+    }
+
+    public <T> Callable<T> trackInFlight(Scope scope, Callable<T> callable) {
+        AtomicInteger value = inFlight(scope);
+        return () -> {
+            value.incrementAndGet();
+            try {
+                return callable.call();
+            } finally {
+                value.decrementAndGet();
+            }
+        };
+    }
+}
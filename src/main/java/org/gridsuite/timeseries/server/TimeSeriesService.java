@@ -6,23 +6,49 @@
  */
 package org.gridsuite.timeseries.server;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Value;
 
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.Lists;
+import com.powsybl.timeseries.DoubleDataChunk;
+import com.powsybl.timeseries.DoubleTimeSeries;
+import com.powsybl.timeseries.InfiniteTimeSeriesIndex;
+import com.powsybl.timeseries.StoredDoubleTimeSeries;
+import com.powsybl.timeseries.StringTimeSeries;
 import com.powsybl.timeseries.TimeSeries;
+import com.powsybl.timeseries.TimeSeriesDataType;
 import com.powsybl.timeseries.TimeSeriesIndex;
 import com.powsybl.timeseries.TimeSeriesMetadata;
+import com.powsybl.timeseries.UncompressedDoubleDataChunk;
 
 /**
  * @author Jon Schuhmacher <jon.harper at rte-france.com>
@@ -33,73 +59,352 @@ public class TimeSeriesService {
     private final TimeSeriesGroupRepository timeSeriesGroupRepository;
     private final TimeSeriesDataRepository timeSeriesDataRepository;
     private final TimeSeriesMetadataService timeSeriesMetadataService;
+    private final TimeSeriesMetrics timeSeriesMetrics;
+    private final TimeSeriesMemoryBudget timeSeriesMemoryBudget;
+    private final TimeSeriesArchiver timeSeriesArchiver;
+    private final TimeSeriesExporter timeSeriesExporter;
+    private final TimeSeriesColumnCache timeSeriesColumnCache;
+    private final TimeSeriesGroupReplicaRepository timeSeriesGroupReplicaRepository;
+    private final TimeSeriesGroupDeletionRepository timeSeriesGroupDeletionRepository;
+    private final TimeSeriesDataSources timeSeriesDataSources;
+
+    private static final Duration LAST_ACCESS_DATE_RESOLUTION = Duration.ofHours(1);
+    // points read at once by the searches
+    private static final int SEARCH_READ_ROWS = 65536;
+    // the json_build_object projection of makeSelect is limited to 50 time series
+    private static final int SEARCH_MAX_SELECTED_NAMES = 50;
+
+    // the groups of a bulk creation are created by packs of about this number of values,
+    // so that the parsed time series of a big body are not all in memory at once
+    @Value("${timeseries.bulk-pack-values:10000000}")
+    private long bulkpackvalues;
 
     // TODO to remove when metadata are properly modeled
     private final ObjectMapper objectmapper;
 
     public List<TimeSeriesGroupInfos> getAllTimeSeriesGroupsInfos() {
+        if (timeSeriesDataSources.hasReplicas()) {
+            // the groups written or deleted recently may not be replicated yet, they are added or
+            // removed from the primary
+            Instant replicatedBefore = timeSeriesDataSources.getReplicatedBefore();
+            Set<UUID> ids = new LinkedHashSet<>(timeSeriesGroupReplicaRepository.findAllIds());
+            timeSeriesGroupDeletionRepository.findByDeletionDateAfter(replicatedBefore)
+                    .forEach(deletion -> ids.remove(deletion.getId()));
+            timeSeriesGroupRepository.findByLastWriteDateAfter(replicatedBefore)
+                    .forEach(tsGroup -> ids.add(tsGroup.getId()));
+            return ids.stream().map(TimeSeriesGroupInfos::new).collect(Collectors.toList());
+        }
         return timeSeriesGroupRepository.findAll().stream()
                 .map(tsGroup -> TimeSeriesGroupInfos.fromEntity(tsGroup))
                 .collect(Collectors.toList());
     }
 
+    // The metadata only reads use the replicas when there are some, except for the groups
+    // which are not there yet or whose last write is not replicated yet: the last write date
+    // of the replica is compared to the one of the primary, which is read without the metadata
+    private TimeSeriesGroupEntity findByIdForMetadataRead(UUID uuid) {
+        Optional<TimeSeriesGroupEntity> tsGroup = timeSeriesDataSources.hasReplicas()
+                ? timeSeriesGroupReplicaRepository.findById(uuid) : Optional.empty();
+        return tsGroup.filter(replicated -> replicated.getStatistics() != null
+                // the statistics of the old groups are computed and stored on the primary
+                && timeSeriesGroupRepository.findLastWriteById(uuid)
+                    .filter(lastWrite -> Objects.equals(lastWrite.getLastWriteDate(), replicated.getLastWriteDate()))
+                    .isPresent())
+            .orElseGet(() -> timeSeriesGroupRepository.findById(uuid).orElseThrow());
+    }
+
     public TimeSeriesService(TimeSeriesGroupRepository timeSeriesGroupRepository,
             TimeSeriesDataRepository timeSeriesDataRepository, TimeSeriesMetadataService timeSeriesMetadataService,
-            ObjectMapper objectMapper) {
+            TimeSeriesMetrics timeSeriesMetrics, TimeSeriesMemoryBudget timeSeriesMemoryBudget, TimeSeriesArchiver timeSeriesArchiver,
+            TimeSeriesGroupReplicaRepository timeSeriesGroupReplicaRepository, TimeSeriesGroupDeletionRepository timeSeriesGroupDeletionRepository,
+            TimeSeriesDataSources timeSeriesDataSources,
+            TimeSeriesExporter timeSeriesExporter, TimeSeriesColumnCache timeSeriesColumnCache, ObjectMapper objectMapper) {
         this.timeSeriesGroupRepository = timeSeriesGroupRepository;
         this.timeSeriesDataRepository = timeSeriesDataRepository;
         this.timeSeriesMetadataService = timeSeriesMetadataService;
+        this.timeSeriesMetrics = timeSeriesMetrics;
+        this.timeSeriesMemoryBudget = timeSeriesMemoryBudget;
+        this.timeSeriesArchiver = timeSeriesArchiver;
+        this.timeSeriesExporter = timeSeriesExporter;
+        this.timeSeriesColumnCache = timeSeriesColumnCache;
+        this.timeSeriesGroupReplicaRepository = timeSeriesGroupReplicaRepository;
+        this.timeSeriesGroupDeletionRepository = timeSeriesGroupDeletionRepository;
+        this.timeSeriesDataSources = timeSeriesDataSources;
         this.objectmapper = objectMapper;
     }
 
-    private void synchronizeIndex(List<TimeSeries> timeSeries) {
-        // For now this just throws when the index is not the same for all
-        TimeSeriesIndex index = timeSeries.get(0).getMetadata().getIndex();
-        for (TimeSeries ts : timeSeries) {
-            try {
-                ts.synchronize(index);
-            } catch (UnsupportedOperationException e) {
-                //TODO better messages (return all problems at once?)
-                //TODO use better API than catching UnsupportedOperationException
-                //TODO better separation of service API and controller API: don't speak http here
-                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
-                        "Different index for " + timeSeries.get(0).getMetadata().getName()
-                        + "and " + ts.getMetadata().getName());
-            }
+    @Transactional
+    public TimeSeriesGroupInfos createTimeSeriesGroup(List<TimeSeries> timeSeries) {
+        TimeSeriesGroupEntity tsGroup = timeSeriesGroupRepository.save(newTimeSeriesGroupEntity(timeSeries));
+        TimeSeriesDataRepository.SavedData saved = timeSeriesDataRepository.save(tsGroup.getId(), timeSeries);
+        setSavedData(tsGroup, saved);
+        return TimeSeriesGroupInfos.fromEntity(tsGroup);
+    }
+
+    /**
+     * Creates several groups at once: the entities are saved in one batch and the data of all the groups
+     * is written in shared batches (see TimeSeriesDataRepository.saveAll). Returns the groups in the same order.
+     */
+    @Transactional
+    public List<TimeSeriesGroupInfos> createTimeSeriesGroups(List<List<TimeSeries>> groups) {
+        List<TimeSeriesGroupEntity> tsGroups = timeSeriesGroupRepository.saveAll(groups.stream().map(this::newTimeSeriesGroupEntity).toList());
+        Map<UUID, List<TimeSeries>> groupsById = new LinkedHashMap<>();
+        for (int i = 0; i < groups.size(); i++) {
+            groupsById.put(tsGroups.get(i).getId(), groups.get(i));
         }
+        Map<UUID, TimeSeriesDataRepository.SavedData> saved = timeSeriesDataRepository.saveAll(groupsById);
+        tsGroups.forEach(tsGroup -> setSavedData(tsGroup, saved.get(tsGroup.getId())));
+        return tsGroups.stream().map(TimeSeriesGroupInfos::fromEntity).toList();
     }
 
+    /**
+     * Same as createTimeSeriesGroups for the groups of a reader, created by packs so that the parsed
+     * time series are not all in memory at once. All or none: the packs are in the same transaction, the
+     * rows of the packs already written are deleted when a later group fails.
+     */
     @Transactional
-    public TimeSeriesGroupInfos createTimeSeriesGroup(List<TimeSeries> timeSeries) {
-        synchronizeIndex(timeSeries);
+    public List<TimeSeriesGroupInfos> createTimeSeriesGroups(TimeSeriesJsonParser.GroupsReader reader) {
+        List<TimeSeriesGroupInfos> res = new ArrayList<>();
+        List<List<TimeSeries>> pack = new ArrayList<>();
+        long packValues = 0;
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        List<TimeSeries> list;
+        try {
+            while ((list = reader.next()) != null) {
+                TimeSeriesIndex index = list.get(0).getMetadata().getIndex();
+                timeSeriesMetrics.recordPhase(timeSeriesMetrics.scope(TimeSeriesMetrics.WRITE, list.get(0).getMetadata().getDataType(),
+                        (long) index.getPointCount() * list.size()), TimeSeriesMetrics.PHASE_PARSE, stopwatch);
+                pack.add(list);
+                packValues += (long) index.getPointCount() * list.size();
+                if (packValues >= bulkpackvalues) {
+                    res.addAll(createTimeSeriesGroups(pack));
+                    pack = new ArrayList<>();
+                    packValues = 0;
+                }
+                stopwatch.reset().start();
+            }
+        } catch (IOException e) {
+            // unchecked, to roll back
+            throw new UncheckedIOException(e);
+        }
+        if (!pack.isEmpty()) {
+            res.addAll(createTimeSeriesGroups(pack));
+        }
+        return res;
+    }
 
+    private TimeSeriesGroupEntity newTimeSeriesGroupEntity(List<TimeSeries> timeSeries) {
+        // the time series are checked to have the same index by TimeSeriesJsonParser
         // TODO proper modeling instead of json
+        Stopwatch stopwatch = Stopwatch.createStarted();
         TimeSeriesIndex index = timeSeries.get(0).getMetadata().getIndex();
         String indexType = index.getType();
         String indexJson = timeSeriesMetadataService.indexToJson(index);
         String metadatasJson = timeSeriesMetadataService.individualTimeSeriesMetadatasToJson(timeSeries);
+        timeSeriesMetrics.recordPhase(timeSeriesMetrics.scope(TimeSeriesMetrics.WRITE, timeSeries.get(0).getMetadata().getDataType(),
+                (long) index.getPointCount() * timeSeries.size()), TimeSeriesMetrics.PHASE_METADATA, stopwatch);
+        return new TimeSeriesGroupEntity(indexType, indexJson, metadatasJson);
+    }
 
-        TimeSeriesGroupEntity tsGroup = timeSeriesGroupRepository.save(new TimeSeriesGroupEntity(indexType, indexJson, metadatasJson));
-        timeSeriesDataRepository.save(tsGroup.getId(), timeSeries);
-        return TimeSeriesGroupInfos.fromEntity(tsGroup);
+    private void setSavedData(TimeSeriesGroupEntity tsGroup, TimeSeriesDataRepository.SavedData saved) {
+        tsGroup.setStatistics(statisticsToJson(saved.statistics()));
+        if (!saved.dictionaries().isEmpty()) {
+            tsGroup.setMetadatas(timeSeriesMetadataService.individualMetadatasWithDictionaries(tsGroup.getMetadatas(), saved.dictionaries()));
+        }
+        if (!saved.lengths().isEmpty()) {
+            tsGroup.setMetadatas(timeSeriesMetadataService.individualMetadatasWithLengths(tsGroup.getMetadatas(), saved.lengths()));
+        }
+        if (!saved.contents().isEmpty()) {
+            tsGroup.setMetadatas(timeSeriesMetadataService.individualMetadatasWithContents(tsGroup.getMetadatas(), saved.contents()));
+        }
+    }
+
+    // TODO to remove when metadata are properly modeled
+    private String statisticsToJson(Map<String, TimeSeriesStatistics> statistics) {
+        try {
+            return objectmapper.writeValueAsString(statistics);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Error serializing statistics", e);
+        }
+    }
+
+    private Map<String, TimeSeriesStatistics> statisticsFromJson(String statistics) {
+        try {
+            return objectmapper.readValue(statistics, new TypeReference<LinkedHashMap<String, TimeSeriesStatistics>>() { });
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Error restoring statistics", e);
+        }
+    }
+
+    // The groups saved before the statistics existed don't have them, they are computed
+    // once from the data and stored. The time series are read by batches within the memory budget.
+    private Map<String, TimeSeriesStatistics> getStatistics(TimeSeriesGroupEntity tsGroup) {
+        if (tsGroup.getStatistics() == null) {
+            TimeSeriesIndex index = timeSeriesMetadataService.indexFromJson(tsGroup.getIndexType(), tsGroup.getIndex());
+            Map<String, Object> individualMetadatas = timeSeriesMetadataService.individualMetadatasMapFromJson(tsGroup.getMetadatas());
+            TimeSeriesDataType dataType = timeSeriesMetadataService.getDataType(individualMetadatas);
+            Map<String, TimeSeriesStatistics> statistics = new LinkedHashMap<>();
+            for (List<String> names : Lists.partition(List.copyOf(individualMetadatas.keySet()), SEARCH_MAX_SELECTED_NAMES)) {
+                long bytes = timeSeriesMemoryBudget.estimateRead(dataType, (long) index.getPointCount() * names.size(), false).bytes();
+                try (TimeSeriesMemoryBudget.Reservation reservation = timeSeriesMemoryBudget.reserve(bytes)) {
+                    for (TimeSeries ts : getTimeSeriesGroup(tsGroup.getId(), false, null, names)) {
+                        statistics.put(ts.getMetadata().getName(), ts instanceof DoubleTimeSeries doubleTs
+                                ? TimeSeriesStatistics.ofDoubles(doubleTs.toArray())
+                                : TimeSeriesStatistics.ofStrings(((StringTimeSeries) ts).toArray()));
+                    }
+                }
+            }
+            tsGroup.setStatistics(statisticsToJson(statistics));
+            return statistics;
+        }
+        return statisticsFromJson(tsGroup.getStatistics());
     }
 
     @Transactional
     public String getTimeSeriesGroupMetadataJson(UUID uuid) {
-        TimeSeriesGroupEntity timeSeriesGroupEntity = timeSeriesGroupRepository.findById(uuid).orElseThrow();
+        return getTimeSeriesGroupMetadataJson(uuid, false);
+    }
+
+    @Transactional
+    public String getTimeSeriesGroupMetadataJson(UUID uuid, boolean withStatistics) {
+        TimeSeriesGroupEntity timeSeriesGroupEntity = findByIdForMetadataRead(uuid);
         TimeSeriesIndex index = timeSeriesMetadataService.indexFromJson(timeSeriesGroupEntity.getIndexType(), timeSeriesGroupEntity.getIndex());
         List<TimeSeriesMetadata> metadatas = timeSeriesMetadataService.timeSeriesMetadataListFromJson(index, timeSeriesGroupEntity.getMetadatas());
-        return timeSeriesMetadataService.allMetadatasToJson(timeSeriesGroupEntity.getId(), index, metadatas);
+        String statisticsJson = null;
+        if (withStatistics) {
+            getStatistics(timeSeriesGroupEntity);
+            statisticsJson = timeSeriesGroupEntity.getStatistics();
+        }
+        // the deduplicated time series show the hash of their content
+        return timeSeriesMetadataService.allMetadatasToJson(timeSeriesGroupEntity.getId(), index, metadatas, statisticsJson,
+                timeSeriesMetadataService.getContents(timeSeriesMetadataService.individualMetadatasMapFromJson(timeSeriesGroupEntity.getMetadatas())));
+    }
+
+    /**
+     * Returns the statistics of the time series (all of them when null or empty) of a group, by name,
+     * from the summary stored with the group.
+     */
+    @Transactional
+    public Map<String, TimeSeriesStatistics> getTimeSeriesGroupStatistics(UUID uuid, List<String> timeSeriesNames) {
+        TimeSeriesGroupEntity tsGroup = findByIdForMetadataRead(uuid);
+        Map<String, TimeSeriesStatistics> statistics = getStatistics(tsGroup);
+        if (timeSeriesNames == null || timeSeriesNames.isEmpty()) {
+            return statistics;
+        }
+        Map<String, TimeSeriesStatistics> res = new LinkedHashMap<>();
+        for (String name : timeSeriesNames) {
+            TimeSeriesStatistics nameStatistics = statistics.get(name);
+            if (nameStatistics == null) {
+                //TODO better separation of service API and controller API: don't speak http here
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown time series " + name);
+            }
+            res.put(name, nameStatistics);
+        }
+        return res;
     }
 
     @Transactional
     public List<TimeSeries> getTimeSeriesGroup(UUID uuid, boolean tryToCompress, String time, List<String> timeSeriesNames) {
+        return getTimeSeriesGroup(uuid, tryToCompress, time, timeSeriesNames, null, null);
+    }
+
+    private int[] findPointRange(TimeSeriesGroupEntity tsGroup, TimeSeriesIndex index, Instant startInstant, Instant endInstant) {
+        if (index instanceof InfiniteTimeSeriesIndex) {
+            //TODO better separation of service API and controller API: don't speak http here
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "A window is not supported for the infinite index");
+        }
+        Instant start = startInstant != null ? startInstant : index.getInstantAt(0);
+        Instant end = endInstant != null ? endInstant : index.getInstantAt(index.getPointCount() - 1).plusNanos(1);
+        if (tsGroup.getArchivePath() != null) {
+            // no rows, the range is mapped with the index
+            return new int[] {TimeSeriesIndexes.ceilingIndexOf(index, start), TimeSeriesIndexes.ceilingIndexOf(index, end)};
+        }
+        return timeSeriesDataRepository.findPointRange(tsGroup.getId(), index, start, end, tsGroup.getLastWriteDate());
+    }
+
+    // Same as TimeSeriesDataRepository.findById from the column cache: the whole columns are cached
+    // and the points of the range are copied from them
+    private List<TimeSeries> findByIdCached(TimeSeriesGroupEntity tsGroup, TimeSeriesIndex index, TimeSeriesIndex rangeIndex, int[] range,
+            Map<String, Object> individualMetadatas, boolean tryToCompress, List<String> timeSeriesNames) {
+        List<String> names = timeSeriesNames != null
+                ? timeSeriesNames.stream().filter(individualMetadatas::containsKey).distinct().toList()
+                : List.copyOf(individualMetadatas.keySet());
+        Map<String, Object> columns = timeSeriesColumnCache.getColumns(tsGroup.getId(), names,
+            name -> timeSeriesMetadataService.getDictionary(individualMetadatas, name),
+            missing -> {
+                Map<String, Object> loaded = new HashMap<>();
+                // all the points, all the time series at once when they are all missing, else only the missing
+                // ones (the cache accepted their number) by slices of the number of names which can be selected
+                List<List<String>> slices = missing.size() == individualMetadatas.size()
+                        ? Collections.singletonList(null) : Lists.partition(missing, SEARCH_MAX_SELECTED_NAMES);
+                for (List<String> slice : slices) {
+                    for (TimeSeries ts : timeSeriesDataRepository.findById(index, 0, individualMetadatas, tsGroup.getId(), false, null,
+                            slice, tsGroup.getLastWriteDate())) {
+                        loaded.put(ts.getMetadata().getName(), ts instanceof DoubleTimeSeries doubleTimeSeries
+                            ? doubleTimeSeries.toArray() : ((StringTimeSeries) ts).toArray());
+                    }
+                }
+                return loaded;
+            });
+        List<TimeSeries> res = new ArrayList<>(names.size());
+        for (String name : names) {
+            TimeSeriesMetadata metadata = timeSeriesMetadataService.getMetadata(rangeIndex, individualMetadatas, name);
+            int length = timeSeriesMetadataService.getLength(individualMetadatas, name, range[0], range[1]);
+            res.add(TimeSeriesDataRepository.makeTimeSeries(metadata, TimeSeriesColumnCache.slice(columns.get(name), range[0], range[1]),
+                    length, tryToCompress));
+        }
+        return res;
+    }
+
+    /**
+     * Streams all the data of the group to the output, see TimeSeriesExporter.
+     */
+    public void exportTimeSeriesGroup(UUID uuid, TimeSeriesExporter.Format format, OutputStream outputStream) throws IOException {
+        TimeSeriesGroupEntity tsGroup = timeSeriesGroupRepository.findById(uuid).orElseThrow();
+        timeSeriesExporter.export(tsGroup, format, outputStream);
+    }
+
+    // The archiver moves the groups which have not been accessed for a while, the last access is
+    // only updated once per hour to avoid writing the group at each read.
+    private static void updateLastAccessDate(TimeSeriesGroupEntity tsGroup) {
+        Instant now = Instant.now();
+        if (tsGroup.getLastAccessDate() == null || tsGroup.getLastAccessDate().isBefore(now.minus(LAST_ACCESS_DATE_RESOLUTION))) {
+            tsGroup.setLastAccessDate(now);
+        }
+    }
+
+    @Transactional
+    public List<TimeSeries> getTimeSeriesGroup(UUID uuid, boolean tryToCompress, String time, List<String> timeSeriesNames,
+            Instant startInstant, Instant endInstant) {
         TimeSeriesGroupEntity tsGroup = timeSeriesGroupRepository.findById(uuid).orElseThrow();
+        updateLastAccessDate(tsGroup);
+        Stopwatch stopwatch = Stopwatch.createStarted();
         TimeSeriesIndex index = timeSeriesMetadataService.indexFromJson(tsGroup.getIndexType(), tsGroup.getIndex());
         Map<String, Object> individualMetadatas = timeSeriesMetadataService
                 .individualMetadatasMapFromJson(tsGroup.getMetadatas());
+        // the unknown time series are not read
+        int colcount = timeSeriesNames != null
+                ? (int) timeSeriesNames.stream().filter(individualMetadatas::containsKey).distinct().count()
+                : individualMetadatas.size();
+        timeSeriesMetrics.recordPhase(timeSeriesMetrics.scope(TimeSeriesMetrics.READ, timeSeriesMetadataService.getDataType(individualMetadatas),
+                (long) index.getPointCount() * colcount), TimeSeriesMetrics.PHASE_METADATA, stopwatch);
 
-        List<TimeSeries> tsData = timeSeriesDataRepository.findById(index, individualMetadatas, tsGroup.getId(), tryToCompress, time, timeSeriesNames);
+        List<TimeSeries> tsData;
+        int[] range = startInstant != null || endInstant != null
+                ? findPointRange(tsGroup, index, startInstant, endInstant)
+                : new int[] {0, index.getPointCount()};
+        if (range[0] >= range[1]) {
+            return List.of();
+        }
+        TimeSeriesIndex rangeIndex = TimeSeriesIndexes.subIndex(index, range[0], range[1]);
+        if (tsGroup.getArchivePath() != null) {
+            tsData = timeSeriesArchiver.findById(rangeIndex, range[0], individualMetadatas, tsGroup.getArchivePath(), tryToCompress, timeSeriesNames);
+        } else if (timeSeriesColumnCache.accepts((long) index.getPointCount() * colcount)) {
+            tsData = findByIdCached(tsGroup, index, rangeIndex, range, individualMetadatas, tryToCompress, timeSeriesNames);
+        } else {
+            tsData = timeSeriesDataRepository.findById(rangeIndex, range[0], individualMetadatas, tsGroup.getId(), tryToCompress, time, timeSeriesNames,
+                    tsGroup.getLastWriteDate());
+        }
         Map<String, TimeSeries> tsDataByName = tsData.stream().collect(Collectors.toMap(ts -> ts.getMetadata().getName(), Function.identity()));
         List<TimeSeries> tsDataOrdered = individualMetadatas.keySet().stream().flatMap(
             name -> Optional.ofNullable(tsDataByName.get(name)).stream()
@@ -107,10 +412,649 @@ public class TimeSeriesService {
         return tsDataOrdered;
     }
 
+    /**
+     * Evaluates the calculated time series (name to expression, see {@link TimeSeriesExpression}) over the
+     * double time series of the group. Only the time series used by the expressions are read.
+     */
+    @Transactional
+    public List<TimeSeries> getCalculatedTimeSeries(UUID uuid, Map<String, String> definitions, boolean tryToCompress,
+            Instant startInstant, Instant endInstant) {
+        TimeSeriesGroupEntity tsGroup = timeSeriesGroupRepository.findById(uuid).orElseThrow();
+        Map<String, Object> individualMetadatas = timeSeriesMetadataService
+                .individualMetadatasMapFromJson(tsGroup.getMetadatas());
+        //TODO better separation of service API and controller API: don't speak http here
+        if (TimeSeriesDataType.DOUBLE != timeSeriesMetadataService.getDataType(individualMetadatas)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Calculated time series are only supported for double time series");
+        }
+        Set<String> names = new LinkedHashSet<>();
+        Map<String, TimeSeriesExpression> expressions = parseCalculatedTimeSeries(definitions, individualMetadatas, names);
+
+        List<TimeSeries> operands = getTimeSeriesGroup(uuid, false, null, List.copyOf(names), startInstant, endInstant);
+        if (operands.isEmpty()) {
+            return List.of();
+        }
+        TimeSeriesIndex index = operands.get(0).getMetadata().getIndex();
+        int length = index.getPointCount();
+        Map<String, double[]> values = new HashMap<>();
+        for (TimeSeries operand : operands) {
+            values.put(operand.getMetadata().getName(), ((DoubleTimeSeries) operand).toArray());
+        }
+        List<TimeSeries> ret = new ArrayList<>(expressions.size());
+        for (Map.Entry<String, TimeSeriesExpression> entry : expressions.entrySet()) {
+            DoubleDataChunk chunk = new UncompressedDoubleDataChunk(0, entry.getValue().evaluate(values, length));
+            if (tryToCompress) {
+                chunk = chunk.tryToCompress();
+            }
+            ret.add(new StoredDoubleTimeSeries(new TimeSeriesMetadata(entry.getKey(), TimeSeriesDataType.DOUBLE, index), List.of(chunk)));
+        }
+        return ret;
+    }
+
+    // the expressions of the calculated time series by name, the time series they use are added to the names
+    private static Map<String, TimeSeriesExpression> parseCalculatedTimeSeries(Map<String, String> definitions,
+            Map<String, Object> individualMetadatas, Set<String> names) {
+        Map<String, TimeSeriesExpression> expressions = new LinkedHashMap<>();
+        for (Map.Entry<String, String> definition : definitions.entrySet()) {
+            try {
+                TimeSeriesExpression expression = TimeSeriesExpression.parse(definition.getValue());
+                expression.getNames(names);
+                expressions.put(definition.getKey(), expression);
+            } catch (IllegalArgumentException e) {
+                //TODO better separation of service API and controller API: don't speak http here
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid calculated time series " + definition.getKey() + ": " + e.getMessage());
+            }
+        }
+        if (names.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Calculated time series must use at least one time series");
+        }
+        for (String name : names) {
+            if (!individualMetadatas.containsKey(name)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown time series " + name);
+            }
+        }
+        return expressions;
+    }
+
+    /**
+     * Estimates the memory footprint of getCalculatedTimeSeries from the metadata only: the time series
+     * used by the expressions and the calculated time series, all in the heap.
+     */
+    @Transactional
+    public long estimateCalculatedTimeSeriesMemory(UUID uuid, Map<String, String> definitions, Instant startInstant, Instant endInstant) {
+        TimeSeriesGroupEntity tsGroup = timeSeriesGroupRepository.findById(uuid).orElseThrow();
+        TimeSeriesIndex index = timeSeriesMetadataService.indexFromJson(tsGroup.getIndexType(), tsGroup.getIndex());
+        Map<String, Object> individualMetadatas = timeSeriesMetadataService
+                .individualMetadatasMapFromJson(tsGroup.getMetadatas());
+        Set<String> names = new LinkedHashSet<>();
+        Map<String, TimeSeriesExpression> expressions = parseCalculatedTimeSeries(definitions, individualMetadatas, names);
+        int from = startInstant != null ? TimeSeriesIndexes.ceilingIndexOf(index, startInstant) : 0;
+        int to = endInstant != null ? TimeSeriesIndexes.ceilingIndexOf(index, endInstant) : index.getPointCount();
+        return timeSeriesMemoryBudget.estimateRead(TimeSeriesDataType.DOUBLE,
+                (long) Math.max(0, to - from) * (names.size() + expressions.size()), false).bytes();
+    }
+
+    /**
+     * Same as getTimeSeriesGroup for big double time series: they are assembled in a spill file
+     * in the directory instead of the heap, see TimeSeriesDataRepository.findByIdSpilled.
+     * Returns null when there is no point in the range. The caller must close the file.
+     */
+    @Transactional
+    public TimeSeriesSpillFile getTimeSeriesGroupSpilled(UUID uuid, String time, List<String> timeSeriesNames,
+            Instant startInstant, Instant endInstant, Path directory) {
+        TimeSeriesGroupEntity tsGroup = timeSeriesGroupRepository.findById(uuid).orElseThrow();
+        updateLastAccessDate(tsGroup);
+        TimeSeriesIndex index = timeSeriesMetadataService.indexFromJson(tsGroup.getIndexType(), tsGroup.getIndex());
+        Map<String, Object> individualMetadatas = timeSeriesMetadataService
+                .individualMetadatasMapFromJson(tsGroup.getMetadatas());
+        int[] range = startInstant != null || endInstant != null
+                ? findPointRange(tsGroup, index, startInstant, endInstant)
+                : new int[] {0, index.getPointCount()};
+        if (range[0] >= range[1]) {
+            return null;
+        }
+        TimeSeriesIndex rangeIndex = TimeSeriesIndexes.subIndex(index, range[0], range[1]);
+        // the columns are in the order of the names, or of the metadatas when all the time series are read
+        return timeSeriesDataRepository.findByIdSpilled(rangeIndex, range[0], individualMetadatas, tsGroup.getId(), time,
+                timeSeriesNames, directory, tsGroup.getLastWriteDate());
+    }
+
+    /**
+     * Estimates the memory footprint of getTimeSeriesGroup from the metadata only,
+     * to reserve it before doing any work.
+     */
+    @Transactional
+    public TimeSeriesMemoryBudget.Estimate estimateTimeSeriesGroupMemory(UUID uuid, List<String> timeSeriesNames, Instant startInstant, Instant endInstant) {
+        TimeSeriesGroupEntity tsGroup = timeSeriesGroupRepository.findById(uuid).orElseThrow();
+        TimeSeriesIndex index = timeSeriesMetadataService.indexFromJson(tsGroup.getIndexType(), tsGroup.getIndex());
+        Map<String, Object> individualMetadatas = timeSeriesMetadataService
+                .individualMetadatasMapFromJson(tsGroup.getMetadatas());
+        int colcount = timeSeriesNames != null ? timeSeriesNames.size() : individualMetadatas.size();
+        int from = startInstant != null ? TimeSeriesIndexes.ceilingIndexOf(index, startInstant) : 0;
+        int to = endInstant != null ? TimeSeriesIndexes.ceilingIndexOf(index, endInstant) : index.getPointCount();
+        // the archived groups are read from their archive in the heap
+        return timeSeriesMemoryBudget.estimateRead(timeSeriesMetadataService.getDataType(individualMetadatas),
+                (long) Math.max(0, to - from) * colcount, tsGroup.getArchivePath() == null);
+    }
+
+    @Transactional
+    public TimeSeriesGroupValuesInfos getTimeSeriesGroupValues(UUID uuid, List<Instant> instants, List<String> timeSeriesNames) {
+        TimeSeriesGroupEntity tsGroup = timeSeriesGroupRepository.findById(uuid).orElseThrow();
+        updateLastAccessDate(tsGroup);
+        TimeSeriesIndex index = timeSeriesMetadataService.indexFromJson(tsGroup.getIndexType(), tsGroup.getIndex());
+        Map<String, Object> individualMetadatas = timeSeriesMetadataService
+                .individualMetadatasMapFromJson(tsGroup.getMetadatas());
+        List<String> names = timeSeriesNames != null && !timeSeriesNames.isEmpty() ? timeSeriesNames : List.copyOf(individualMetadatas.keySet());
+        for (String name : names) {
+            if (!individualMetadatas.containsKey(name)) {
+                //TODO better separation of service API and controller API: don't speak http here
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown time series " + name);
+            }
+        }
+        int[] points = new int[instants.size()];
+        for (int i = 0; i < points.length; i++) {
+            points[i] = TimeSeriesIndexes.indexOf(index, instants.get(i));
+            if (points[i] < 0) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Instant " + instants.get(i) + " is not in the index");
+            }
+        }
+
+        Map<Integer, Map<String, Object>> rows = tsGroup.getArchivePath() != null
+                ? timeSeriesArchiver.findPoints(tsGroup.getArchivePath(), points)
+                : timeSeriesDataRepository.findPoints(tsGroup.getId(), points, timeSeriesMetadataService.getContents(individualMetadatas),
+                    tsGroup.getLastWriteDate());
+        List<List<Object>> values = new ArrayList<>(points.length);
+        for (int point : points) {
+            Map<String, Object> row = rows.getOrDefault(point, Map.of());
+            List<Object> rowValues = new ArrayList<>(names.size());
+            for (String name : names) {
+                rowValues.add(TimeSeriesMetadataService.decode(timeSeriesMetadataService.getDictionary(individualMetadatas, name), row.get(name)));
+            }
+            values.add(rowValues);
+        }
+        return new TimeSeriesGroupValuesInfos(instants, names, values);
+    }
+
+    /**
+     * Returns the values of time series of several groups aligned on a target index, as an instants x time series
+     * matrix in the order of the time series of the alignment, see TimeSeriesAlignment. Each group is read once
+     * in the order of its instants, only the points around the target index.
+     */
+    public TimeSeriesGroupValuesInfos alignTimeSeries(TimeSeriesAlignment alignment) {
+        TimeSeriesIndex target = getTargetIndex(alignment);
+        TimeSeriesAlignment.Policy policy = alignment.policy() != null ? alignment.policy() : TimeSeriesAlignment.Policy.PREVIOUS;
+        List<TimeSeriesAlignment.Ref> refs = alignment.timeSeries();
+        List<TimeSeriesAlignment.Aligner> aligners = new ArrayList<>(refs.size());
+        Map<UUID, List<Integer>> refsByGroup = new LinkedHashMap<>();
+        for (int i = 0; i < refs.size(); i++) {
+            aligners.add(new TimeSeriesAlignment.Aligner(target, policy));
+            refsByGroup.computeIfAbsent(refs.get(i).group(), ignored -> new ArrayList<>()).add(i);
+        }
+        if (target.getPointCount() > 0) {
+            for (Map.Entry<UUID, List<Integer>> group : refsByGroup.entrySet()) {
+                alignGroup(group.getKey(), group.getValue().stream().map(refs::get).toList(),
+                        group.getValue().stream().map(aligners::get).toList(), target, policy);
+            }
+        }
+        List<Instant> instants = new ArrayList<>(target.getPointCount());
+        List<List<Object>> values = new ArrayList<>(target.getPointCount());
+        for (int point = 0; point < target.getPointCount(); point++) {
+            instants.add(target.getInstantAt(point));
+            List<Object> rowValues = new ArrayList<>(aligners.size());
+            for (TimeSeriesAlignment.Aligner aligner : aligners) {
+                rowValues.add(aligner.getResult()[point]);
+            }
+            values.add(rowValues);
+        }
+        return new TimeSeriesGroupValuesInfos(instants, refs.stream().map(TimeSeriesAlignment.Ref::name).toList(), values);
+    }
+
+    private TimeSeriesIndex getTargetIndex(TimeSeriesAlignment alignment) {
+        try {
+            return timeSeriesMetadataService.indexFromJson(alignment.indexType(), alignment.index().toString());
+        } catch (RuntimeException e) {
+            //TODO better separation of service API and controller API: don't speak http here
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid target index: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Estimates the memory footprint of alignTimeSeries from the metadata only: the aligned values, and
+     * the points of the archived groups which are read in the heap up to the end of the target index.
+     */
+    @Transactional
+    public long estimateAlignMemory(TimeSeriesAlignment alignment) {
+        TimeSeriesIndex target = getTargetIndex(alignment);
+        if (target.getPointCount() == 0) {
+            return 0;
+        }
+        Map<UUID, List<String>> namesByGroup = new LinkedHashMap<>();
+        for (TimeSeriesAlignment.Ref ref : alignment.timeSeries()) {
+            namesByGroup.computeIfAbsent(ref.group(), ignored -> new ArrayList<>()).add(ref.name());
+        }
+        long bytes = 0;
+        for (Map.Entry<UUID, List<String>> group : namesByGroup.entrySet()) {
+            TimeSeriesGroupEntity tsGroup = timeSeriesGroupRepository.findById(group.getKey()).orElseThrow();
+            Map<String, Object> individualMetadatas = timeSeriesMetadataService
+                    .individualMetadatasMapFromJson(tsGroup.getMetadatas());
+            long cells = (long) target.getPointCount() * group.getValue().size();
+            if (tsGroup.getArchivePath() != null) {
+                TimeSeriesIndex index = timeSeriesMetadataService.indexFromJson(tsGroup.getIndexType(), tsGroup.getIndex());
+                cells += (long) getAlignedRange(index, target)[1] * group.getValue().stream().distinct().count();
+            }
+            bytes += timeSeriesMemoryBudget.estimateRead(timeSeriesMetadataService.getDataType(individualMetadatas), cells, false).bytes();
+        }
+        return bytes;
+    }
+
+    // The points of a group from the first target instant, and the one after the last one for the interpolation
+    // and the end of the last interval, as the range {first, to}
+    private static int[] getAlignedRange(TimeSeriesIndex index, TimeSeriesIndex target) {
+        Instant lastInstant = target.getInstantAt(target.getPointCount() - 1);
+        int first = TimeSeriesIndexes.ceilingIndexOf(index, target.getInstantAt(0));
+        int to = Math.min(index.getPointCount(), TimeSeriesIndexes.ceilingIndexOf(index, target.getPointCount() > 1
+                ? lastInstant.plus(Duration.between(target.getInstantAt(target.getPointCount() - 2), lastInstant)) : lastInstant) + 1);
+        return new int[] {first, to};
+    }
+
+    // Passes the points of the time series of a group around the target index to their aligners
+    private void alignGroup(UUID uuid, List<TimeSeriesAlignment.Ref> refs, List<TimeSeriesAlignment.Aligner> aligners,
+            TimeSeriesIndex target, TimeSeriesAlignment.Policy policy) {
+        TimeSeriesGroupEntity tsGroup = timeSeriesGroupRepository.findById(uuid).orElseThrow();
+        TimeSeriesIndex index = timeSeriesMetadataService.indexFromJson(tsGroup.getIndexType(), tsGroup.getIndex());
+        Map<String, Object> individualMetadatas = timeSeriesMetadataService
+                .individualMetadatasMapFromJson(tsGroup.getMetadatas());
+        TimeSeriesDataType dataType = timeSeriesMetadataService.getDataType(individualMetadatas);
+        for (TimeSeriesAlignment.Ref ref : refs) {
+            if (!individualMetadatas.containsKey(ref.name())) {
+                //TODO better separation of service API and controller API: don't speak http here
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown time series " + ref.name() + " in group " + uuid);
+            }
+            if (dataType != TimeSeriesDataType.DOUBLE && policy != TimeSeriesAlignment.Policy.PREVIOUS) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Only the previous value policy is supported for the string time series " + ref.name());
+            }
+        }
+        int[] range = getAlignedRange(index, target);
+        int first = range[0];
+        int to = range[1];
+        List<String> names = refs.stream().map(TimeSeriesAlignment.Ref::name).toList();
+        if (tsGroup.getArchivePath() != null) {
+            alignArchivedGroup(tsGroup, index, individualMetadatas, names, aligners, first, to, policy);
+            return;
+        }
+        // the last value before the first target instant for the previous value and the interpolation, read back
+        // block by block from the point before it, the blocks doubling in size, for the sparse time series
+        if (policy != TimeSeriesAlignment.Policy.MEAN) {
+            int[] previousPoints = new int[names.size()];
+            Arrays.fill(previousPoints, -1);
+            Object[] previousValues = new Object[names.size()];
+            int blockEnd = Math.min(first, index.getPointCount());
+            int blockSize = 1;
+            while (blockEnd > 0 && Arrays.stream(previousPoints).anyMatch(point -> point < 0)) {
+                int blockStart = Math.max(0, blockEnd - blockSize);
+                readAlignedRows(uuid, tsGroup, individualMetadatas, names, blockStart, blockEnd, (point, i, value) -> {
+                    // the points of a block are in order and after the ones of the blocks read next
+                    if (value != null && previousPoints[i] < point) {
+                        previousPoints[i] = point;
+                        previousValues[i] = value;
+                    }
+                });
+                blockEnd = blockStart;
+                blockSize = Math.min(blockSize * 2, SEARCH_READ_ROWS);
+            }
+            for (int i = 0; i < names.size(); i++) {
+                if (previousPoints[i] >= 0) {
+                    aligners.get(i).accept(index.getInstantAt(previousPoints[i]), previousValues[i]);
+                }
+            }
+        }
+        readAlignedRows(uuid, tsGroup, individualMetadatas, names, first, to,
+            (point, i, value) -> aligners.get(i).accept(index.getInstantAt(point), value));
+        aligners.forEach(TimeSeriesAlignment.Aligner::finish);
+    }
+
+    // The archive is decompressed from its start whatever the points read: it is read once up to the point to,
+    // the last value before the first target instant is the last one read before it
+    private void alignArchivedGroup(TimeSeriesGroupEntity tsGroup, TimeSeriesIndex index, Map<String, Object> individualMetadatas,
+            List<String> names, List<TimeSeriesAlignment.Aligner> aligners, int first, int to, TimeSeriesAlignment.Policy policy) {
+        if (to > 0) {
+            // the infinite index has 2 points, it is read whole
+            TimeSeriesIndex readIndex = index instanceof InfiniteTimeSeriesIndex ? index : TimeSeriesIndexes.subIndex(index, 0, to);
+            List<TimeSeries> timeSeries = timeSeriesArchiver.findById(readIndex, 0, individualMetadatas,
+                    tsGroup.getArchivePath(), false, List.copyOf(new LinkedHashSet<>(names)));
+            Map<String, Object> columns = new HashMap<>();
+            for (TimeSeries ts : timeSeries) {
+                columns.put(ts.getMetadata().getName(), ts instanceof DoubleTimeSeries doubleTimeSeries
+                    ? doubleTimeSeries.toArray() : ((StringTimeSeries) ts).toArray());
+            }
+            for (int i = 0; i < names.size(); i++) {
+                Object column = columns.get(names.get(i));
+                if (policy != TimeSeriesAlignment.Policy.MEAN) {
+                    int previous = first - 1;
+                    while (previous >= 0 && getArchivedValue(column, previous) == null) {
+                        previous--;
+                    }
+                    if (previous >= 0) {
+                        aligners.get(i).accept(index.getInstantAt(previous), getArchivedValue(column, previous));
+                    }
+                }
+                for (int point = first; point < to; point++) {
+                    aligners.get(i).accept(index.getInstantAt(point), getArchivedValue(column, point));
+                }
+            }
+        }
+        aligners.forEach(TimeSeriesAlignment.Aligner::finish);
+    }
+
+    // the value of a point of a column read from an archive, missing values as null
+    private static Object getArchivedValue(Object column, int point) {
+        return column instanceof double[] doubles
+            ? (Double.isNaN(doubles[point]) ? null : doubles[point])
+            : ((String[]) column)[point];
+    }
+
+    private interface AlignedPointConsumer {
+        void accept(int point, int i, Object value);
+    }
+
+    // Reads the rows from the point from included to the point to excluded of the time series of a group
+    // in the database, in the order of their instants, missing values as null
+    private void readAlignedRows(UUID uuid, TimeSeriesGroupEntity tsGroup, Map<String, Object> individualMetadatas,
+            List<String> names, int from, int to, AlignedPointConsumer consumer) {
+        if (from >= to) {
+            return;
+        }
+        Map<String, TimeSeriesContentRef> contents = new HashMap<>(timeSeriesMetadataService.getContents(individualMetadatas));
+        contents.keySet().retainAll(names);
+        List<List<String>> dictionaries = names.stream().map(name -> timeSeriesMetadataService.getDictionary(individualMetadatas, name)).toList();
+        timeSeriesDataRepository.exportRows(uuid, from, to, individualMetadatas.size(), contents, tsGroup.getLastWriteDate(), (row, rowValues) -> {
+            for (int i = 0; i < names.size(); i++) {
+                consumer.accept(row, i, TimeSeriesMetadataService.decode(dictionaries.get(i), rowValues.get(names.get(i))));
+            }
+        });
+    }
+
+    /**
+     * Returns the instants where the values of the double time series (all of them when null or empty)
+     * of a group are above the threshold (below when below is true), by name.
+     */
+    @Transactional
+    public Map<String, List<Instant>> findThresholdInstants(UUID uuid, List<String> timeSeriesNames, double threshold, boolean below,
+            Instant startInstant, Instant endInstant) {
+        TimeSeriesGroupEntity tsGroup = timeSeriesGroupRepository.findById(uuid).orElseThrow();
+        updateLastAccessDate(tsGroup);
+        TimeSeriesIndex index = timeSeriesMetadataService.indexFromJson(tsGroup.getIndexType(), tsGroup.getIndex());
+        Map<String, List<Integer>> points = searchThreshold(tsGroup, index, timeSeriesNames, threshold, below, startInstant, endInstant, false);
+        Map<String, List<Instant>> res = new LinkedHashMap<>();
+        points.forEach((name, namePoints) -> res.put(name, namePoints.stream().map(index::getInstantAt).toList()));
+        return res;
+    }
+
+    /**
+     * Returns the first instant where the values of the double time series (all of them when null or empty)
+     * of a group are above the threshold (below when below is true), by name, for the time series which cross it.
+     */
+    @Transactional
+    public Map<String, Instant> findFirstCrossing(UUID uuid, List<String> timeSeriesNames, double threshold, boolean below,
+            Instant startInstant, Instant endInstant) {
+        TimeSeriesGroupEntity tsGroup = timeSeriesGroupRepository.findById(uuid).orElseThrow();
+        updateLastAccessDate(tsGroup);
+        TimeSeriesIndex index = timeSeriesMetadataService.indexFromJson(tsGroup.getIndexType(), tsGroup.getIndex());
+        Map<String, List<Integer>> points = searchThreshold(tsGroup, index, timeSeriesNames, threshold, below, startInstant, endInstant, true);
+        Map<String, Instant> res = new LinkedHashMap<>();
+        points.forEach((name, namePoints) -> {
+            if (!namePoints.isEmpty()) {
+                res.put(name, index.getInstantAt(namePoints.get(0)));
+            }
+        });
+        return res;
+    }
+
+    // Returns the matching points of each time series, in order (only the first one when firstOnly is true).
+    // Only the blocks where the zone map of a time series may match are read, the time series without
+    // zone maps (groups saved before they existed, partial copies) are read entirely. The archived groups
+    // are read entirely from their archive.
+    private Map<String, List<Integer>> searchThreshold(TimeSeriesGroupEntity tsGroup, TimeSeriesIndex index, List<String> timeSeriesNames,
+            double threshold, boolean below, Instant startInstant, Instant endInstant, boolean firstOnly) {
+        Map<String, Object> individualMetadatas = timeSeriesMetadataService
+                .individualMetadatasMapFromJson(tsGroup.getMetadatas());
+        //TODO better separation of service API and controller API: don't speak http here
+        if (TimeSeriesDataType.DOUBLE != timeSeriesMetadataService.getDataType(individualMetadatas)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Searches are only supported for double time series");
+        }
+        List<String> names = timeSeriesNames != null && !timeSeriesNames.isEmpty() ? timeSeriesNames : List.copyOf(individualMetadatas.keySet());
+        Map<String, List<Integer>> res = new LinkedHashMap<>();
+        for (String name : names) {
+            if (!individualMetadatas.containsKey(name)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown time series " + name);
+            }
+            res.put(name, new ArrayList<>());
+        }
+        int[] range = startInstant != null || endInstant != null
+                ? findPointRange(tsGroup, index, startInstant, endInstant)
+                : new int[] {0, index.getPointCount()};
+        if (range[0] >= range[1]) {
+            return res;
+        }
+
+        if (tsGroup.getArchivePath() != null) {
+            for (TimeSeries ts : timeSeriesArchiver.findById(TimeSeriesIndexes.subIndex(index, range[0], range[1]), range[0],
+                    individualMetadatas, tsGroup.getArchivePath(), false, names)) {
+                double[] values = ((DoubleTimeSeries) ts).toArray();
+                List<Integer> namePoints = res.get(ts.getMetadata().getName());
+                for (int i = 0; i < values.length && !(firstOnly && !namePoints.isEmpty()); i++) {
+                    if (TimeSeriesZoneMap.matches(values[i], threshold, below)) {
+                        namePoints.add(range[0] + i);
+                    }
+                }
+            }
+            return res;
+        }
+
+        Map<String, TimeSeriesZoneMap> zoneMaps = timeSeriesDataRepository.findZoneMaps(tsGroup.getId(), names, tsGroup.getLastWriteDate());
+        Map<String, TimeSeriesContentRef> contents = timeSeriesMetadataService.getContents(individualMetadatas);
+        int blocksize = zoneMaps.values().stream().mapToInt(TimeSeriesZoneMap::blockSize).min().orElse(SEARCH_READ_ROWS);
+        // the time series which are still searched
+        Set<String> remaining = new LinkedHashSet<>(names);
+        int from = range[0];
+        while (from < range[1] && !remaining.isEmpty()) {
+            // next run of contiguous blocks where at least one time series may match
+            int runstart = -1;
+            int runend = -1;
+            Set<String> runnames = new LinkedHashSet<>();
+            int blockstart = from;
+            while (blockstart < range[1] && (runstart < 0 || blockstart - runstart < SEARCH_READ_ROWS)) {
+                int blockend = Math.min(range[1], (blockstart / blocksize + 1) * blocksize);
+                boolean candidate = false;
+                for (String name : remaining) {
+                    TimeSeriesZoneMap zoneMap = zoneMaps.get(name);
+                    if (zoneMap == null || zoneMap.mayMatch(blockstart, blockend, threshold, below)) {
+                        runnames.add(name);
+                        candidate = true;
+                    }
+                }
+                if (candidate) {
+                    runstart = runstart < 0 ? blockstart : runstart;
+                    runend = blockend;
+                } else if (runstart >= 0) {
+                    break;
+                }
+                blockstart = blockend;
+            }
+            if (runstart < 0) {
+                // no candidate block left
+                break;
+            }
+            Map<String, TimeSeriesContentRef> runcontents = new HashMap<>(contents);
+            runcontents.keySet().retainAll(runnames);
+            Map<Integer, Map<String, Object>> rows = timeSeriesDataRepository.findRows(tsGroup.getId(), runstart, runend,
+                    runnames.size() <= SEARCH_MAX_SELECTED_NAMES ? List.copyOf(runnames) : null, runcontents, tsGroup.getLastWriteDate());
+            for (String name : runnames) {
+                List<Integer> namePoints = res.get(name);
+                for (int point = runstart; point < runend; point++) {
+                    Object value = rows.getOrDefault(point, Map.of()).get(name);
+                    if (value != null && TimeSeriesZoneMap.matches(((Number) value).doubleValue(), threshold, below)) {
+                        namePoints.add(point);
+                        if (firstOnly) {
+                            remaining.remove(name);
+                            break;
+                        }
+                    }
+                }
+            }
+            from = blockstart;
+        }
+        return res;
+    }
+
+    /**
+     * Creates a new group with the time series (all of them when null) and the points in [startInstant, endInstant)
+     * of a group. The data is copied inside the database, or read from the archive of an archived group.
+     */
+    @Transactional
+    public TimeSeriesGroupInfos copyTimeSeriesGroup(UUID uuid, List<String> timeSeriesNames, Instant startInstant, Instant endInstant) {
+        TimeSeriesGroupEntity tsGroup = timeSeriesGroupRepository.findById(uuid).orElseThrow();
+        TimeSeriesIndex index = timeSeriesMetadataService.indexFromJson(tsGroup.getIndexType(), tsGroup.getIndex());
+        Map<String, Object> individualMetadatas = timeSeriesMetadataService
+                .individualMetadatasMapFromJson(tsGroup.getMetadatas());
+        List<String> names = null;
+        if (timeSeriesNames != null && !timeSeriesNames.isEmpty()) {
+            for (String name : timeSeriesNames) {
+                if (!individualMetadatas.containsKey(name)) {
+                    //TODO better separation of service API and controller API: don't speak http here
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown time series " + name);
+                }
+            }
+            // in the order of the group
+            names = individualMetadatas.keySet().stream().filter(timeSeriesNames::contains).toList();
+        }
+        int[] range = startInstant != null || endInstant != null
+                ? findPointRange(tsGroup, index, startInstant, endInstant)
+                : new int[] {0, index.getPointCount()};
+        if (range[0] >= range[1]) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No point to copy");
+        }
+
+        TimeSeriesIndex copyIndex = TimeSeriesIndexes.subIndex(index, range[0], range[1]);
+        List<TimeSeriesMetadata> metadatas = (names != null ? names : List.copyOf(individualMetadatas.keySet())).stream()
+                .map(name -> timeSeriesMetadataService.getMetadata(copyIndex, individualMetadatas, name))
+                .toList();
+        // the codes are copied with the rows, the copied time series keep their dictionaries
+        String copyMetadatas = timeSeriesMetadataService.individualMetadatasWithDictionaries(
+                timeSeriesMetadataService.individualMetadatasToJson(metadatas), timeSeriesMetadataService.getDictionaries(individualMetadatas));
+        // the copied time series have the points sent by the client in the copied range
+        Map<String, Integer> copyLengths = new LinkedHashMap<>();
+        for (TimeSeriesMetadata metadata : metadatas) {
+            int length = timeSeriesMetadataService.getLength(individualMetadatas, metadata.getName(), range[0], range[1]);
+            if (length < range[1] - range[0]) {
+                copyLengths.put(metadata.getName(), length);
+            }
+        }
+        copyMetadatas = timeSeriesMetadataService.individualMetadatasWithLengths(copyMetadatas, copyLengths);
+        // the copied deduplicated time series share the contents, from the first copied point
+        Map<String, TimeSeriesContentRef> copyContents = new LinkedHashMap<>();
+        if (tsGroup.getArchivePath() == null) {
+            for (TimeSeriesMetadata metadata : metadatas) {
+                TimeSeriesContentRef content = timeSeriesMetadataService.getContent(individualMetadatas, metadata.getName());
+                if (content != null) {
+                    copyContents.put(metadata.getName(), new TimeSeriesContentRef(content.hash(), content.offset() + range[0]));
+                }
+            }
+            copyMetadatas = timeSeriesMetadataService.individualMetadatasWithContents(copyMetadatas, copyContents);
+        }
+        TimeSeriesGroupEntity copy = timeSeriesGroupRepository.save(new TimeSeriesGroupEntity(copyIndex.getType(),
+                timeSeriesMetadataService.indexToJson(copyIndex), copyMetadatas));
+        if (range[0] == 0 && range[1] == index.getPointCount() && tsGroup.getStatistics() != null) {
+            // same points, the statistics of the copied time series don't change
+            Map<String, TimeSeriesStatistics> statistics = statisticsFromJson(tsGroup.getStatistics());
+            statistics.keySet().retainAll(metadatas.stream().map(TimeSeriesMetadata::getName).toList());
+            copy.setStatistics(statisticsToJson(statistics));
+        }
+        if (tsGroup.getArchivePath() != null) {
+            // the archive has the decoded values, they are encoded again
+            TimeSeriesDataRepository.SavedData saved = timeSeriesDataRepository.save(copy.getId(), timeSeriesArchiver.findById(copyIndex,
+                    range[0], individualMetadatas, tsGroup.getArchivePath(), false, names));
+            copy.setStatistics(statisticsToJson(saved.statistics()));
+            copy.setMetadatas(timeSeriesMetadataService.individualMetadatasWithDictionaries(copy.getMetadatas(), saved.dictionaries()));
+            copy.setMetadatas(timeSeriesMetadataService.individualMetadatasWithContents(copy.getMetadatas(), saved.contents()));
+        } else {
+            timeSeriesDataRepository.acquireContents(copyContents.values().stream().map(TimeSeriesContentRef::hash).toList());
+            timeSeriesDataRepository.copy(uuid, copy.getId(), range[0], range[1], names, metadatas.size(),
+                    timeSeriesMetadataService.getDataType(individualMetadatas));
+            if (range[0] == 0 && range[1] == index.getPointCount()) {
+                // same points, same blocks
+                timeSeriesDataRepository.copyZoneMaps(uuid, copy.getId(), metadatas.stream().map(TimeSeriesMetadata::getName).toList());
+            }
+        }
+        return TimeSeriesGroupInfos.fromEntity(copy);
+    }
+
+    /**
+     * Estimates the memory footprint of rehydrateTimeSeriesGroup: the whole archive is read in the heap,
+     * unless the group only points back to its rows.
+     */
+    @Transactional
+    public long estimateRehydrateMemory(UUID uuid) {
+        TimeSeriesGroupEntity tsGroup = timeSeriesGroupRepository.findById(uuid).orElseThrow();
+        if (tsGroup.getArchivePath() == null || tsGroup.getPurgeDate() != null) {
+            return 0;
+        }
+        TimeSeriesIndex index = timeSeriesMetadataService.indexFromJson(tsGroup.getIndexType(), tsGroup.getIndex());
+        Map<String, Object> individualMetadatas = timeSeriesMetadataService
+                .individualMetadatasMapFromJson(tsGroup.getMetadatas());
+        return timeSeriesMemoryBudget.estimateRead(timeSeriesMetadataService.getDataType(individualMetadatas),
+                (long) index.getPointCount() * individualMetadatas.size(), false).bytes();
+    }
+
+    /**
+     * Moves the data of an archived group back to the database.
+     */
+    @Transactional
+    public void rehydrateTimeSeriesGroup(UUID uuid) {
+        // locked, the group is not purged, archived again or deleted meanwhile
+        TimeSeriesGroupEntity tsGroup = timeSeriesGroupRepository.findWithLockById(uuid).orElseThrow();
+        String archivePath = tsGroup.getArchivePath();
+        if (archivePath == null || (tsGroup.getPurgeDate() != null && timeSeriesArchiver.restore(uuid))) {
+            return;
+        }
+        TimeSeriesIndex index = timeSeriesMetadataService.indexFromJson(tsGroup.getIndexType(), tsGroup.getIndex());
+        Map<String, Object> individualMetadatas = timeSeriesMetadataService
+                .individualMetadatasMapFromJson(tsGroup.getMetadatas());
+        List<TimeSeries> timeSeries = timeSeriesArchiver.findById(index, 0, individualMetadatas, archivePath, false, null);
+        timeSeriesColumnCache.invalidate(uuid);
+        // the rows and the references to the deduplicated time series are deleted if the transaction is rolled back
+        TimeSeriesDataRepository.SavedData saved = timeSeriesDataRepository.save(uuid, timeSeries);
+        if (tsGroup.getStatistics() == null) {
+            tsGroup.setStatistics(statisticsToJson(saved.statistics()));
+        }
+        // the archive has the decoded values, the rows have the codes of the new dictionaries
+        tsGroup.setMetadatas(timeSeriesMetadataService.individualMetadatasWithDictionaries(tsGroup.getMetadatas(), saved.dictionaries()));
+        tsGroup.setMetadatas(timeSeriesMetadataService.individualMetadatasWithContents(tsGroup.getMetadatas(), saved.contents()));
+        tsGroup.setArchivePath(null);
+        tsGroup.setLastAccessDate(Instant.now());
+        tsGroup.setLastWriteDate(Instant.now());
+        timeSeriesArchiver.deleteArchiveAfterCommit(archivePath);
+    }
+
     @Transactional
     public void deleteTimeSeriesGroup(UUID uuid) {
+        // locked, the rows of an archived group are not purged meanwhile
+        Optional<TimeSeriesGroupEntity> tsGroup = timeSeriesGroupRepository.findWithLockById(uuid);
+        tsGroup.map(TimeSeriesGroupEntity::getArchivePath)
+            .ifPresent(timeSeriesArchiver::deleteArchiveAfterCommit);
+        timeSeriesColumnCache.invalidate(uuid);
+        // in the transaction, a rolled back deletion keeps the rows and the references to the contents
         timeSeriesDataRepository.delete(uuid);
+        timeSeriesDataRepository.deleteZoneMaps(uuid);
+        // the contents which are not referenced by other groups are deleted
+        tsGroup.ifPresent(group -> timeSeriesDataRepository.releaseContentsAfterCommit(timeSeriesMetadataService
+                .getContents(timeSeriesMetadataService.individualMetadatasMapFromJson(group.getMetadatas()))
+                .values().stream().map(TimeSeriesContentRef::hash).toList()));
         timeSeriesGroupRepository.deleteById(uuid);
+        if (tsGroup.isPresent() && timeSeriesDataSources.hasReplicas()) {
+            // listed from the replicas until they are up to date
+            timeSeriesGroupDeletionRepository.deleteByDeletionDateBefore(timeSeriesDataSources.getReplicatedBefore());
+            timeSeriesGroupDeletionRepository.save(new TimeSeriesGroupDeletionEntity(uuid, Instant.now()));
+        }
     }
 
 }
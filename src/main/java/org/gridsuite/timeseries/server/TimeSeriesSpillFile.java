@@ -0,0 +1,154 @@
+/**
+ * Copyright (c) 2026, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.gridsuite.timeseries.server;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import com.powsybl.timeseries.TimeSeriesMetadata;
+import sun.misc.Unsafe;
+
+/**
+ * Double time series of a read assembled in a memory mapped temporary file instead of the heap.
+ * <p>
+ * The values are stored by column (all the points of the first time series, then all the
+ * points of the second, etc.) so that each time series can be streamed sequentially, and
+ * are written directly at their position by the workers of the read. The file is mapped in
+ * segments because a single mapping is limited to 2GB.
+ * <p>
+ * The bits of the values are stored xored with the bits of NaN, so that the points which are
+ * never written (the file is created sparse and filled with zeros) are read as NaN, like
+ * missing values.
+ * <p>
+ * The segments are unmapped when the file is closed, instead of when they are garbage collected,
+ * so that the address space and the pages of a big read are released as soon as it is written.
+ * The file must not be used after it is closed.
+ */
+public final class TimeSeriesSpillFile implements AutoCloseable {
+
+    private static final int VALUE_BYTES = Double.BYTES;
+    // 1GB, a multiple of the value size so that a value never spans two segments
+    private static final long SEGMENT_BYTES = 1L << 30;
+    private static final long MISSING_BITS = Double.doubleToRawLongBits(Double.NaN);
+    private static final Unsafe UNSAFE = getUnsafe();
+
+    private final Path path;
+    private final List<TimeSeriesMetadata> metadatas;
+    private final int rowcount;
+    private final int[] lengths;
+    private final MappedByteBuffer[] segments;
+
+    private TimeSeriesSpillFile(Path path, List<TimeSeriesMetadata> metadatas, int rowcount, int[] lengths, MappedByteBuffer[] segments) {
+        this.path = path;
+        this.metadatas = metadatas;
+        this.rowcount = rowcount;
+        this.lengths = lengths;
+        this.segments = segments;
+    }
+
+    // to unmap the segments, the memory segments of a shared arena are not available before java 22
+    private static Unsafe getUnsafe() {
+        try {
+            Field field = Unsafe.class.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            return (Unsafe) field.get(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void unmap(MappedByteBuffer[] segments) {
+        for (int i = 0; i < segments.length; i++) {
+            if (segments[i] != null) {
+                UNSAFE.invokeCleaner(segments[i]);
+                segments[i] = null;
+            }
+        }
+    }
+
+    /**
+     * Creates the file for all the points of the metadatas (which have the same index), with
+     * the number of points sent by the client of each time series (see getLength).
+     */
+    public static TimeSeriesSpillFile create(Path directory, List<TimeSeriesMetadata> metadatas, int[] lengths) throws IOException {
+        int rowcount = metadatas.isEmpty() ? 0 : metadatas.get(0).getIndex().getPointCount();
+        long size = (long) metadatas.size() * rowcount * VALUE_BYTES;
+        Path path = Files.createTempFile(directory, "timeseries-", ".spill");
+        MappedByteBuffer[] segments = new MappedByteBuffer[(int) ((size + SEGMENT_BYTES - 1) / SEGMENT_BYTES)];
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            for (int i = 0; i < segments.length; i++) {
+                long position = i * SEGMENT_BYTES;
+                // mapping past the end of the file grows it (sparse)
+                segments[i] = channel.map(FileChannel.MapMode.READ_WRITE, position, Math.min(SEGMENT_BYTES, size - position));
+            }
+            // the mappings stay valid after the channel is closed
+            return new TimeSeriesSpillFile(path, metadatas, rowcount, lengths, segments);
+        } catch (IOException | RuntimeException e) {
+            unmap(segments);
+            Files.deleteIfExists(path);
+            throw e;
+        }
+    }
+
+    public List<TimeSeriesMetadata> getMetadatas() {
+        return metadatas;
+    }
+
+    public int getRowCount() {
+        return rowcount;
+    }
+
+    /**
+     * Returns the number of points sent by the client of a column, the points after it are not written to the json.
+     */
+    public int getLength(int col) {
+        return lengths[col];
+    }
+
+    private long offset(int col, int row) {
+        return ((long) col * rowcount + row) * VALUE_BYTES;
+    }
+
+    /**
+     * Thread safe for different points, the workers write disjoint ranges of rows.
+     */
+    public void put(int col, int row, double value) {
+        long offset = offset(col, row);
+        segments[(int) (offset / SEGMENT_BYTES)].putLong((int) (offset % SEGMENT_BYTES), Double.doubleToRawLongBits(value) ^ MISSING_BITS);
+    }
+
+    public double get(int col, int row) {
+        long offset = offset(col, row);
+        return Double.longBitsToDouble(segments[(int) (offset / SEGMENT_BYTES)].getLong((int) (offset % SEGMENT_BYTES)) ^ MISSING_BITS);
+    }
+
+    /**
+     * Copies the points [from, from + values.length) of a column.
+     */
+    public void read(int col, int from, double[] values) {
+        for (int i = 0; i < values.length; i++) {
+            values[i] = get(col, from + i);
+        }
+    }
+
+    @Override
+    public void close() {
+        unmap(segments);
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
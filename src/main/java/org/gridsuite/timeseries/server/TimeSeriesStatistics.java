@@ -0,0 +1,68 @@
+/**
+ * Copyright (c) 2026, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.gridsuite.timeseries.server;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Statistics of a time series, computed at ingest and stored with the group.
+ * The missing values (NaN for doubles, null for strings) are only counted in missingCount,
+ * first and last are the first and last values which are not missing.
+ * For string time series, only the counts are computed.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+public class TimeSeriesStatistics {
+
+    private long count;
+    private long missingCount;
+    private Double min;
+    private Double max;
+    private Double sum;
+    private Double mean;
+    private Double first;
+    private Double last;
+
+    public static TimeSeriesStatistics ofDoubles(double[] values) {
+        long count = 0;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        double sum = 0;
+        double first = Double.NaN;
+        double last = Double.NaN;
+        for (double value : values) {
+            if (Double.isNaN(value)) {
+                continue;
+            }
+            if (count == 0) {
+                first = value;
+            }
+            last = value;
+            count++;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+            sum += value;
+        }
+        if (count == 0) {
+            return new TimeSeriesStatistics(0, values.length, null, null, null, null, null, null);
+        }
+        return new TimeSeriesStatistics(count, values.length - count, min, max, sum, sum / count, first, last);
+    }
+
+    public static TimeSeriesStatistics ofStrings(String[] values) {
+        long count = 0;
+        for (String value : values) {
+            if (value != null) {
+                count++;
+            }
+        }
+        return new TimeSeriesStatistics(count, values.length - count, null, null, null, null, null, null);
+    }
+}
@@ -0,0 +1,107 @@
+/**
+ * Copyright (c) 2026, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.gridsuite.timeseries.server;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Shared executor for the scatter/gather of the ingest and read paths.
+ * <p>
+ * Threads are shared by all the requests instead of creating a pool for each request.
+ * The parallelism is bounded for each call (typically by the size of the connection pool)
+ * so that a single request doesn't start more tasks than it can get connections.
+ */
+@Component
+public class TimeSeriesTaskExecutor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TimeSeriesTaskExecutor.class);
+
+    private final ExecutorService executorService;
+
+    public TimeSeriesTaskExecutor() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "timeseries-task-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        this.executorService = Executors.newCachedThreadPool(threadFactory);
+    }
+
+    /**
+     * Runs all the callables with at most parallelism of them at the same time
+     * and returns their results in the same order. When there is only one callable,
+     * it is run in the calling thread. The first failure stops the remaining callables
+     * from being started and is rethrown.
+     */
+    public <T> List<T> invokeAll(List<Callable<T>> callables, int parallelism) throws Exception {
+        int count = callables.size();
+        List<T> results = new ArrayList<>(Collections.nCopies(count, null));
+        if (count == 1 || parallelism <= 1) {
+            LOGGER.debug("run {} tasks in calling thread", count);
+            for (int i = 0; i < count; i++) {
+                results.set(i, callables.get(i).call());
+            }
+            return results;
+        }
+
+        int workercount = Math.min(parallelism, count);
+        LOGGER.debug("run {} tasks in shared executor, parallelism={}", count, workercount);
+        AtomicInteger next = new AtomicInteger();
+        AtomicBoolean failed = new AtomicBoolean();
+        List<Future<Void>> workers = new ArrayList<>(workercount);
+        for (int w = 0; w < workercount; w++) {
+            workers.add(executorService.submit(() -> {
+                int i;
+                while (!failed.get() && (i = next.getAndIncrement()) < count) {
+                    try {
+                        results.set(i, callables.get(i).call());
+                    } catch (Exception e) {
+                        failed.set(true);
+                        throw e;
+                    }
+                }
+                return null;
+            }));
+        }
+        Exception failure = null;
+        for (Future<Void> worker : workers) {
+            try {
+                worker.get();
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof Exception cause ? cause : e;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return results;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executorService.shutdownNow();
+    }
+}
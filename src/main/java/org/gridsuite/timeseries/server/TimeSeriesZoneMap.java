@@ -0,0 +1,59 @@
+/**
+ * Copyright (c) 2026, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.gridsuite.timeseries.server;
+
+/**
+ * Zone map of a double time series: the min and max of the values of each block of blockSize points
+ * (NaN for the blocks without values). A block whose min and max don't satisfy a condition doesn't
+ * contain any point which satisfies it, so it doesn't need to be read.
+ */
+public record TimeSeriesZoneMap(int blockSize, double[] mins, double[] maxs) {
+
+    public static TimeSeriesZoneMap of(double[] values, int blockSize) {
+        int blockcount = (values.length + blockSize - 1) / blockSize;
+        double[] mins = new double[blockcount];
+        double[] maxs = new double[blockcount];
+        for (int block = 0; block < blockcount; block++) {
+            double min = Double.NaN;
+            double max = Double.NaN;
+            for (int i = block * blockSize; i < Math.min(values.length, (block + 1) * blockSize); i++) {
+                double value = values[i];
+                if (Double.isNaN(value)) {
+                    continue;
+                }
+                // Math.min/max would keep the initial NaN
+                if (Double.isNaN(min) || value < min) {
+                    min = value;
+                }
+                if (Double.isNaN(max) || value > max) {
+                    max = value;
+                }
+            }
+            mins[block] = min;
+            maxs[block] = max;
+        }
+        return new TimeSeriesZoneMap(blockSize, mins, maxs);
+    }
+
+    /**
+     * Returns true if a point in [from, to) may have a value above the threshold (below when below is true).
+     */
+    public boolean mayMatch(int from, int to, double threshold, boolean below) {
+        int lastBlock = Math.min(mins.length, (to + blockSize - 1) / blockSize);
+        for (int block = from / blockSize; block < lastBlock; block++) {
+            // false for the blocks without values (NaN)
+            if (below ? mins[block] < threshold : maxs[block] > threshold) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static boolean matches(double value, double threshold, boolean below) {
+        return below ? value < threshold : value > threshold;
+    }
+}
@@ -0,0 +1,94 @@
+/**
+ * Copyright (c) 2026, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.gridsuite.timeseries.server;
+
+import com.powsybl.timeseries.TimeSeriesDataType;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Hill climbing of the batch sizes on the observed throughput and latency.
+ */
+class TimeSeriesBatchTunerTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    // not started, no thread waits for a connection
+    private final HikariDataSource datasource = new HikariDataSource();
+
+    private final TimeSeriesBatchTuner timeSeriesBatchTuner = new TimeSeriesBatchTuner(meterRegistry, datasource);
+
+    @AfterEach
+    void tearDown() {
+        datasource.close();
+    }
+
+    private void enable() {
+        ReflectionTestUtils.setField(timeSeriesBatchTuner, "enabled", true);
+        ReflectionTestUtils.setField(timeSeriesBatchTuner, "minbatchsize", 1000);
+        ReflectionTestUtils.setField(timeSeriesBatchTuner, "maxbatchsize", 300000);
+        ReflectionTestUtils.setField(timeSeriesBatchTuner, "maxbatchperconnection", 8);
+        ReflectionTestUtils.setField(timeSeriesBatchTuner, "maxbatchlatencyms", 2000L);
+    }
+
+    // a window of batches of the plan
+    private void observeWindow(TimeSeriesBatchTuner.BatchPlan plan, long cells, long nanos) {
+        for (int i = 0; i < 8; i++) {
+            timeSeriesBatchTuner.observe(plan, cells, nanos);
+        }
+    }
+
+    @Test
+    void testDisabled() {
+        TimeSeriesBatchTuner.BatchPlan plan = timeSeriesBatchTuner.plan(TimeSeriesMetrics.WRITE, TimeSeriesDataType.DOUBLE, 10, 100);
+        assertEquals(10, plan.batchSize());
+        assertEquals(100, plan.batchPerConnection());
+        observeWindow(plan, 10, TimeUnit.MILLISECONDS.toNanos(1));
+        assertEquals(10, timeSeriesBatchTuner.plan(TimeSeriesMetrics.WRITE, TimeSeriesDataType.DOUBLE, 10, 100).batchSize());
+    }
+
+    @Test
+    void testTuning() {
+        enable();
+        // the configured values within the bounds
+        TimeSeriesBatchTuner.BatchPlan clamped = timeSeriesBatchTuner.plan(TimeSeriesMetrics.READ, TimeSeriesDataType.STRING, 10, 100);
+        assertEquals(1000, clamped.batchSize());
+        assertEquals(8, clamped.batchPerConnection());
+
+        // first window: bigger batches, and fewer batches per connection as the pool is not saturated
+        TimeSeriesBatchTuner.BatchPlan plan = timeSeriesBatchTuner.plan(TimeSeriesMetrics.WRITE, TimeSeriesDataType.DOUBLE, 10000, 3);
+        observeWindow(plan, 10000, TimeUnit.MILLISECONDS.toNanos(1));
+        plan = timeSeriesBatchTuner.plan(TimeSeriesMetrics.WRITE, TimeSeriesDataType.DOUBLE, 10000, 3);
+        assertEquals(12500, plan.batchSize());
+        assertEquals(2, plan.batchPerConnection());
+        assertEquals(12500, meterRegistry.find("timeseries.tuning.batch-size").tags("operation", TimeSeriesMetrics.WRITE, "dataType", "DOUBLE")
+            .gauge().value(), 0);
+
+        // worse throughput: back to smaller batches
+        observeWindow(plan, 10000, TimeUnit.MILLISECONDS.toNanos(2));
+        plan = timeSeriesBatchTuner.plan(TimeSeriesMetrics.WRITE, TimeSeriesDataType.DOUBLE, 10000, 3);
+        assertEquals(10000, plan.batchSize());
+        assertEquals(1, plan.batchPerConnection());
+
+        // better throughput but too slow batches: smaller batches
+        observeWindow(plan, 100_000_000, TimeUnit.SECONDS.toNanos(3));
+        plan = timeSeriesBatchTuner.plan(TimeSeriesMetrics.WRITE, TimeSeriesDataType.DOUBLE, 10000, 3);
+        assertEquals(8000, plan.batchSize());
+        assertEquals(1, plan.batchPerConnection());
+
+        // the other operations and data types are tuned separately
+        assertEquals(1000, timeSeriesBatchTuner.plan(TimeSeriesMetrics.READ, TimeSeriesDataType.STRING, 10, 100).batchSize());
+    }
+}
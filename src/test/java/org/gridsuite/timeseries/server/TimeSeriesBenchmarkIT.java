@@ -0,0 +1,227 @@
+/**
+ * Copyright (c) 2026, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.gridsuite.timeseries.server;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.powsybl.timeseries.RegularTimeSeriesIndex;
+import com.powsybl.timeseries.TimeSeries;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Throughput benchmark of the ingest and read paths against the testcontainers postgresql.
+ * <p>
+ * Disabled by default, run it with:
+ * <pre>
+ * mvn verify -Dit.test=TimeSeriesBenchmarkIT -Dtimeseries.benchmark=true
+ * </pre>
+ * For each group shape and each connection pool size, the write parameters are swept while
+ * ingesting the group, then the read parameters are swept while reading it back. The results
+ * are written as json to {@code timeseries.benchmark.report} (default target/timeseries-benchmark.json).
+ * The sweeps can be changed with the following system properties (comma separated lists):
+ * <ul>
+ *   <li>timeseries.benchmark.shapes, as rowsxcols, e.g. 600x400,10000x50</li>
+ *   <li>timeseries.benchmark.write-batch-sizes</li>
+ *   <li>timeseries.benchmark.write-batch-per-connections</li>
+ *   <li>timeseries.benchmark.read-batch-sizes</li>
+ *   <li>timeseries.benchmark.pool-sizes</li>
+ *   <li>timeseries.benchmark.repetitions (a single integer)</li>
+ * </ul>
+ */
+@AutoConfigureMockMvc
+@SpringBootTest
+@EnabledIfSystemProperty(named = "timeseries.benchmark", matches = "true")
+class TimeSeriesBenchmarkIT {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper mapper;
+
+    @Autowired
+    private TimeSeriesDataRepository timeSeriesDataRepository;
+
+    @Autowired
+    private HikariDataSource datasource;
+
+    private static List<String> listProperty(String name, String defaultValue) {
+        return Arrays.stream(System.getProperty(name, defaultValue).split(",")).map(String::trim).toList();
+    }
+
+    private static List<Integer> intListProperty(String name, String defaultValue) {
+        return listProperty(name, defaultValue).stream().map(Integer::valueOf).toList();
+    }
+
+    private static List<TimeSeries<?, ?>> makeDoubleGroup(int rows, int cols) {
+        RegularTimeSeriesIndex index = new RegularTimeSeriesIndex(0, rows - 1L, 1);
+        List<TimeSeries<?, ?>> group = new ArrayList<>(cols);
+        for (int i = 0; i < cols; i++) {
+            double[] values = new double[rows];
+            for (int j = 0; j < rows; j++) {
+                values[j] = Math.sin(i + j * 0.001) * 1000;
+            }
+            group.add(TimeSeries.createDouble("bench" + i, index, values));
+        }
+        return group;
+    }
+
+    private static List<MemoryPoolMXBean> heapPools() {
+        return ManagementFactory.getMemoryPoolMXBeans().stream().filter(p -> p.getType() == MemoryType.HEAP).toList();
+    }
+
+    private static void resetPeakHeap() {
+        System.gc();
+        heapPools().forEach(MemoryPoolMXBean::resetPeakUsage);
+    }
+
+    private static long peakHeap() {
+        return heapPools().stream().mapToLong(p -> p.getPeakUsage().getUsed()).sum();
+    }
+
+    // nearest rank percentile
+    private static double percentile(long[] sortedNanos, double p) {
+        int rank = (int) Math.ceil(p / 100 * sortedNanos.length);
+        return sortedNanos[Math.max(0, rank - 1)] / 1e6;
+    }
+
+    private String create(String body) throws Exception {
+        MvcResult res = mockMvc.perform(post("/v1/timeseries-group").content(body))
+                .andExpect(status().isOk())
+                .andReturn();
+        return (String) mapper.readValue(res.getResponse().getContentAsString(), Map.class).get("id");
+    }
+
+    private Map<String, Object> result(String phase, int rows, int cols, int poolSize, long[] nanos, long bytes, long peakHeap) {
+        Arrays.sort(nanos);
+        double totalSeconds = Arrays.stream(nanos).sum() / 1e9;
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("phase", phase);
+        result.put("rows", rows);
+        result.put("cols", cols);
+        result.put("dataType", "DOUBLE");
+        result.put("poolSize", poolSize);
+        result.put("writeBatchSize", ReflectionTestUtils.getField(timeSeriesDataRepository, "writebatchsize"));
+        result.put("writeBatchPerConnection", ReflectionTestUtils.getField(timeSeriesDataRepository, "writebatchperconnection"));
+        result.put("readBatchSize", ReflectionTestUtils.getField(timeSeriesDataRepository, "readbatchsize"));
+        result.put("repetitions", nanos.length);
+        result.put("rowsPerSecond", rows * nanos.length / totalSeconds);
+        result.put("megabytesPerSecond", bytes / 1e6 / totalSeconds);
+        result.put("p50Millis", percentile(nanos, 50));
+        result.put("p99Millis", percentile(nanos, 99));
+        result.put("peakHeapBytes", peakHeap);
+        return result;
+    }
+
+    @Test
+    void benchmark() throws Exception {
+        List<String> shapes = listProperty("timeseries.benchmark.shapes", "600x400,20000x50,100x5000");
+        List<Integer> writeBatchSizes = intListProperty("timeseries.benchmark.write-batch-sizes", "10000,30000,100000");
+        List<Integer> writeBatchPerConnections = intListProperty("timeseries.benchmark.write-batch-per-connections", "1,3");
+        List<Integer> readBatchSizes = intListProperty("timeseries.benchmark.read-batch-sizes", "5000,20000,100000");
+        List<Integer> poolSizes = intListProperty("timeseries.benchmark.pool-sizes", "5,10");
+        int repetitions = Integer.getInteger("timeseries.benchmark.repetitions", 5);
+        Path report = Path.of(System.getProperty("timeseries.benchmark.report", "target/timeseries-benchmark.json"));
+
+        Object initialWriteBatchSize = ReflectionTestUtils.getField(timeSeriesDataRepository, "writebatchsize");
+        Object initialWriteBatchPerConnection = ReflectionTestUtils.getField(timeSeriesDataRepository, "writebatchperconnection");
+        Object initialReadBatchSize = ReflectionTestUtils.getField(timeSeriesDataRepository, "readbatchsize");
+        int initialPoolSize = datasource.getMaximumPoolSize();
+
+        List<Map<String, Object>> results = new ArrayList<>();
+        try {
+            for (String shape : shapes) {
+                String[] dims = shape.split("x");
+                int rows = Integer.parseInt(dims[0]);
+                int cols = Integer.parseInt(dims[1]);
+                String body = TimeSeries.toJson(makeDoubleGroup(rows, cols));
+                long bodyBytes = body.length();
+
+                for (int poolSize : poolSizes) {
+                    datasource.getHikariConfigMXBean().setMaximumPoolSize(poolSize);
+
+                    for (int writeBatchSize : writeBatchSizes) {
+                        for (int writeBatchPerConnection : writeBatchPerConnections) {
+                            ReflectionTestUtils.setField(timeSeriesDataRepository, "writebatchsize", writeBatchSize);
+                            ReflectionTestUtils.setField(timeSeriesDataRepository, "writebatchperconnection", writeBatchPerConnection);
+                            long[] nanos = new long[repetitions];
+                            resetPeakHeap();
+                            for (int r = 0; r < repetitions; r++) {
+                                long start = System.nanoTime();
+                                String uuid = create(body);
+                                nanos[r] = System.nanoTime() - start;
+                                mockMvc.perform(delete("/v1/timeseries-group/{uuid}", uuid)).andExpect(status().isOk());
+                            }
+                            results.add(result("write", rows, cols, poolSize, nanos, bodyBytes * repetitions, peakHeap()));
+                        }
+                    }
+
+                    ReflectionTestUtils.setField(timeSeriesDataRepository, "writebatchsize", initialWriteBatchSize);
+                    ReflectionTestUtils.setField(timeSeriesDataRepository, "writebatchperconnection", initialWriteBatchPerConnection);
+                    String uuid = create(body);
+                    for (int readBatchSize : readBatchSizes) {
+                        ReflectionTestUtils.setField(timeSeriesDataRepository, "readbatchsize", readBatchSize);
+                        long[] nanos = new long[repetitions];
+                        long bytes = 0;
+                        resetPeakHeap();
+                        for (int r = 0; r < repetitions; r++) {
+                            long start = System.nanoTime();
+                            MvcResult res = mockMvc.perform(get("/v1/timeseries-group/{uuid}", uuid))
+                                    .andExpect(status().isOk())
+                                    .andReturn();
+                            nanos[r] = System.nanoTime() - start;
+                            bytes += res.getResponse().getContentAsByteArray().length;
+                        }
+                        results.add(result("read", rows, cols, poolSize, nanos, bytes, peakHeap()));
+                    }
+                    mockMvc.perform(delete("/v1/timeseries-group/{uuid}", uuid)).andExpect(status().isOk());
+                }
+            }
+        } finally {
+            ReflectionTestUtils.setField(timeSeriesDataRepository, "writebatchsize", initialWriteBatchSize);
+            ReflectionTestUtils.setField(timeSeriesDataRepository, "writebatchperconnection", initialWriteBatchPerConnection);
+            ReflectionTestUtils.setField(timeSeriesDataRepository, "readbatchsize", initialReadBatchSize);
+            datasource.getHikariConfigMXBean().setMaximumPoolSize(initialPoolSize);
+        }
+
+        Map<String, Object> reportContent = new LinkedHashMap<>();
+        reportContent.put("date", Instant.now().toString());
+        reportContent.put("javaVersion", System.getProperty("java.version"));
+        reportContent.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+        reportContent.put("maxHeapBytes", Runtime.getRuntime().maxMemory());
+        reportContent.put("results", results);
+        Path parent = report.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        mapper.writerWithDefaultPrettyPrinter().writeValue(report.toFile(), reportContent);
+    }
+}
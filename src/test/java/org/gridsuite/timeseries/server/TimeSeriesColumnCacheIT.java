@@ -0,0 +1,121 @@
+/**
+ * Copyright (c) 2026, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.gridsuite.timeseries.server;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.Cache;
+import com.powsybl.timeseries.DoubleTimeSeries;
+import com.powsybl.timeseries.RegularTimeSeriesIndex;
+import com.powsybl.timeseries.TimeSeries;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Reads of the groups through the column cache.
+ */
+@AutoConfigureMockMvc
+@SpringBootTest(properties = {
+    "timeseries.column-cache.max-bytes=67108864",
+    "timeseries.archive.directory=${java.io.tmpdir}/timeseries-column-cache-it",
+})
+class TimeSeriesColumnCacheIT {
+
+    private static final RegularTimeSeriesIndex INDEX = new RegularTimeSeriesIndex(0, 2, 1);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper mapper;
+
+    @Autowired
+    private TimeSeriesColumnCache timeSeriesColumnCache;
+
+    @Autowired
+    private TimeSeriesArchiver timeSeriesArchiver;
+
+    @Autowired
+    private TimeSeriesGroupRepository timeSeriesGroupRepository;
+
+    private String create(List<TimeSeries<?, ?>> tsRef) throws Exception {
+        String res = mockMvc.perform(post("/v1/timeseries-group").content(TimeSeries.toJson(tsRef)))
+            .andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+        return (String) mapper.readValue(res, Map.class).get("id");
+    }
+
+    // the values of the double time series of a read, in the order of the read
+    private List<double[]> getValues(String uuid, String query) throws Exception {
+        String res = mockMvc.perform(get("/v1/timeseries-group/{uuid}" + query, uuid))
+            .andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+        return TimeSeries.parseJson(res).stream().map(ts -> ((DoubleTimeSeries) ts).toArray()).toList();
+    }
+
+    @Test
+    void test() throws Exception {
+        Cache<?, ?> columnCache = (Cache<?, ?>) ReflectionTestUtils.getField(timeSeriesColumnCache, "cache");
+        columnCache.invalidateAll();
+        columnCache.cleanUp();
+        String uuid = create(List.of(
+            TimeSeries.createDouble("first", INDEX, 2d, 3d, 4d),
+            TimeSeries.createDouble("second", INDEX, 5d, 6d, 7d)));
+
+        // the columns are loaded once, then any subset of time series and any window is read from them
+        long hitsBefore = columnCache.stats().hitCount();
+        List<double[]> all = getValues(uuid, "");
+        assertArrayEquals(new double[] {2d, 3d, 4d}, all.get(0), 0);
+        assertArrayEquals(new double[] {5d, 6d, 7d}, all.get(1), 0);
+        assertEquals(2, columnCache.size());
+        List<double[]> window = getValues(uuid, "?startInstant=" + INDEX.getInstantAt(1));
+        assertArrayEquals(new double[] {3d, 4d}, window.get(0), 0);
+        assertArrayEquals(new double[] {6d, 7d}, window.get(1), 0);
+        List<double[]> second = getValues(uuid, "?timeSeriesNames=second");
+        assertEquals(1, second.size());
+        assertArrayEquals(new double[] {5d, 6d, 7d}, second.get(0), 0);
+        assertEquals(3, columnCache.stats().hitCount() - hitsBefore);
+
+        // the archived groups are read from their archive, not from the cache
+        timeSeriesArchiver.archive(timeSeriesGroupRepository.findById(UUID.fromString(uuid)).orElseThrow());
+        assertEquals(0, columnCache.size());
+        assertArrayEquals(new double[] {5d, 6d, 7d}, getValues(uuid, "").get(1), 0);
+        assertEquals(0, columnCache.size());
+        mockMvc.perform(delete("/v1/timeseries-group/{uuid}", uuid)).andExpect(status().isOk());
+
+        // more missing columns than can be selected by name at once
+        List<TimeSeries<?, ?>> tsRefWide = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            tsRefWide.add(TimeSeries.createDouble("wide" + i, INDEX, i, i + 1d, i + 2d));
+        }
+        String uuidWide = create(tsRefWide);
+        getValues(uuidWide, "");
+        List<Object> evictedKeys = new ArrayList<>(columnCache.asMap().keySet());
+        columnCache.invalidateAll(evictedKeys.subList(5, evictedKeys.size()));
+        List<double[]> wide = getValues(uuidWide, "");
+        assertEquals(60, wide.size());
+        for (int i = 0; i < 60; i++) {
+            assertArrayEquals(new double[] {i, i + 1d, i + 2d}, wide.get(i), 0);
+        }
+        assertEquals(60, columnCache.size());
+        mockMvc.perform(delete("/v1/timeseries-group/{uuid}", uuidWide)).andExpect(status().isOk());
+        assertEquals(0, columnCache.size());
+    }
+}
@@ -11,22 +11,42 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.powsybl.commons.json.JsonUtil;
 import com.powsybl.timeseries.*;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.apache.commons.lang3.tuple.Pair;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -42,12 +62,57 @@ class TimeSeriesIT {
     private static final int LARGE_ROWS = 600;
     private static final int LARGE_COLS = 400;
 
+    private static final RegularTimeSeriesIndex REGULAR_INDEX = new RegularTimeSeriesIndex(0, 2, 1);
+    private static final List<TimeSeries<?, ?>> TS_REF_1 = List.of(
+        TimeSeries.createDouble("first", REGULAR_INDEX, 2d, 3d, 4d),
+        // this one has tags, little more verbose
+        new StoredDoubleTimeSeries(new TimeSeriesMetadata("second", TimeSeriesDataType.DOUBLE, Map.of("unit", "kV"), REGULAR_INDEX), List.of(new UncompressedDoubleDataChunk(0, new double[] {5d, 6d, 7d})))
+    );
+    private static final String CSV_1 = "Time;first;second\n1970-01-01T00:00:00Z;2.0;5.0\n1970-01-01T00:00:00.001Z;3.0;6.0\n"
+        + "1970-01-01T00:00:00.002Z;4.0;7.0\n";
+    // few distinct values, stored as codes in a dictionary
+    private static final RegularTimeSeriesIndex DICTIONARY_INDEX = new RegularTimeSeriesIndex(0, 4, 1);
+    private static final List<TimeSeries<?, ?>> TS_REF_DICTIONARY = List.of(
+        TimeSeries.createString("status", DICTIONARY_INDEX, "on", "on", null, "off", "on"),
+        TimeSeries.createString("label", DICTIONARY_INDEX, "a", "b", "c", "d", "e")
+    );
+    // TS_REF_1 from its second point
+    private static final RegularTimeSeriesIndex WINDOW_INDEX = new RegularTimeSeriesIndex(1, 2, 1);
+    private static final List<TimeSeries<?, ?>> TS_REF_1_WINDOW = List.of(
+        TimeSeries.createDouble("first", WINDOW_INDEX, 3d, 4d),
+        new StoredDoubleTimeSeries(new TimeSeriesMetadata("second", TimeSeriesDataType.DOUBLE, Map.of("unit", "kV"), WINDOW_INDEX), List.of(new UncompressedDoubleDataChunk(0, new double[] {6d, 7d})))
+    );
+
     @Autowired
     private MockMvc mockMvc;
 
     @Autowired
     private ObjectMapper mapper;
 
+    @Autowired
+    private TimeSeriesMemoryBudget timeSeriesMemoryBudget;
+
+    @Autowired
+    private TimeSeriesArchiver timeSeriesArchiver;
+
+    @Autowired
+    private TimeSeriesGroupRepository timeSeriesGroupRepository;
+
+    @Autowired
+    private TimeSeriesDataRepository timeSeriesDataRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TimeSeriesService timeSeriesService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     // TODO check more infos in tsgroups getAll
     private String getAllRef(Map<String, List<TimeSeries<?, ?>>> groupsById) throws JsonProcessingException {
         return mapper.writeValueAsString(
@@ -144,12 +209,8 @@ class TimeSeriesIT {
     void test() throws Exception {
         mockMvc.perform(get("/v1/timeseries-group")).andExpectAll(status().isOk(), content().json("[]"));
 
-        RegularTimeSeriesIndex regularIndex = new RegularTimeSeriesIndex(0, 2, 1);
-        List<TimeSeries<?, ?>> tsRef1 = List.of(
-            TimeSeries.createDouble("first", regularIndex, 2d, 3d, 4d),
-            // this one has tags, little more verbose
-            new StoredDoubleTimeSeries(new TimeSeriesMetadata("second", TimeSeriesDataType.DOUBLE, Map.of("unit", "kV"), regularIndex), List.of(new UncompressedDoubleDataChunk(0, new double[] {5d, 6d, 7d})))
-        );
+        RegularTimeSeriesIndex regularIndex = REGULAR_INDEX;
+        List<TimeSeries<?, ?>> tsRef1 = TS_REF_1;
 
         String createdUuid1 = testCreateGetTs(tsRef1);
 
@@ -191,24 +252,6 @@ class TimeSeriesIT {
                 content().json("[]")
         );
 
-        List<TimeSeries<?, ?>> tsRefStringMissing = List.of(
-                TimeSeries.createString("missingall", irregularIndex),
-                new StringTimeSeries(new TimeSeriesMetadata("missingsomelast", TimeSeriesDataType.STRING, irregularIndex), List.of(new UncompressedStringDataChunk(0, new String[] {"two"}))),
-                TimeSeries.createString("full", irregularIndex, "five", "six", "seven")
-            );
-
-        String createdUuidStringMissing = testCreateGetTs(tsRefStringMissing);
-        mockMvc.perform(delete("/v1/timeseries-group/{uuid}", createdUuidStringMissing)).andExpect(status().isOk());
-
-        List<TimeSeries<?, ?>> tsRefDoubleMissing = List.of(
-            TimeSeries.createDouble("missingall", irregularIndex),
-            new StoredDoubleTimeSeries(new TimeSeriesMetadata("missingsomelast", TimeSeriesDataType.DOUBLE, irregularIndex), List.of(new UncompressedDoubleDataChunk(0, new double[] {2d}))),
-            TimeSeries.createDouble("full", irregularIndex, 5d, 6d, 7d)
-        );
-
-        String createdUuidDoubleMissing = testCreateGetTs(tsRefDoubleMissing);
-        mockMvc.perform(delete("/v1/timeseries-group/{uuid}", createdUuidDoubleMissing)).andExpect(status().isOk());
-
         List<TimeSeries<?, ?>> tsRef3 = List.of(
             TimeSeries.createString("first", regularIndex, "two", "three", "four"),
             TimeSeries.createString("second", regularIndex, "five", "six", "seven")
@@ -220,6 +263,7 @@ class TimeSeriesIT {
                 status().isOk(),
                 content().json(getAllRef(Map.of(createdUuid3, tsRef3)))
         );
+        mockMvc.perform(delete("/v1/timeseries-group/{uuid}", createdUuid3)).andExpect(status().isOk());
 
         List<TimeSeries<?, ?>> tsRef4 = List.of(
             TimeSeries.createDouble("first", regularIndex, 2d, 3d, 4d),
@@ -250,4 +294,487 @@ class TimeSeriesIT {
         mockMvc.perform(delete("/v1/timeseries-group/{uuid}", createdUuidLargeDouble)).andExpect(status().isOk());
         mockMvc.perform(delete("/v1/timeseries-group/{uuid}", createdUuidLargeString)).andExpect(status().isOk());
     }
+
+    @Test
+    void testValues() throws Exception {
+        String createdUuid = testCreateGetTs(TS_REF_1);
+        IrregularTimeSeriesIndex irregularIndex = new IrregularTimeSeriesIndex(new long[] {0, 1, 2 });
+        String createdUuidIrregular = testCreateGetTs(List.of(
+            TimeSeries.createDouble("first", irregularIndex, 2d, 3d, 4d),
+            TimeSeries.createDouble("second", irregularIndex, 5d, 6d, 7d)
+        ));
+        mockMvc.perform(get("/v1/timeseries-group/{uuid}/values?instants={i1},{i2}&timeSeriesNames=second",
+                createdUuid, REGULAR_INDEX.getInstantAt(2), REGULAR_INDEX.getInstantAt(0)))
+            .andExpectAll(status().isOk(), content().json("{\"timeSeriesNames\":[\"second\"],\"values\":[[7.0],[5.0]]}"));
+        mockMvc.perform(get("/v1/timeseries-group/{uuid}/values?instants={i1}", createdUuidIrregular, irregularIndex.getInstantAt(1)))
+            .andExpectAll(status().isOk(), content().json("{\"timeSeriesNames\":[\"first\",\"second\"],\"values\":[[3.0,6.0]]}"));
+        mockMvc.perform(get("/v1/timeseries-group/{uuid}/values?instants={i1}", createdUuidIrregular, irregularIndex.getInstantAt(2).plusMillis(1)))
+            .andExpect(status().isBadRequest());
+        mockMvc.perform(delete("/v1/timeseries-group/{uuid}", createdUuid)).andExpect(status().isOk());
+        mockMvc.perform(delete("/v1/timeseries-group/{uuid}", createdUuidIrregular)).andExpect(status().isOk());
+    }
+
+    @Test
+    void testWindow() throws Exception {
+        String createdUuid = testCreateGetTs(TS_REF_1);
+        MvcResult resWindow = mockMvc.perform(get("/v1/timeseries-group/{uuid}?startInstant={start}", createdUuid, REGULAR_INDEX.getInstantAt(1)))
+                .andExpect(status().isOk()).andReturn();
+        assertTimeSeriesEquals(TS_REF_1_WINDOW, resWindow.getResponse().getContentAsString());
+        mockMvc.perform(delete("/v1/timeseries-group/{uuid}", createdUuid)).andExpect(status().isOk());
+    }
+
+    @Test
+    void testCalculated() throws Exception {
+        String createdUuid = testCreateGetTs(TS_REF_1);
+        List<TimeSeries<?, ?>> tsRefCalculated = List.of(
+            TimeSeries.createDouble("c", REGULAR_INDEX, 12d, 15d, 18d),
+            TimeSeries.createDouble("d", REGULAR_INDEX, 5d, 5d, 5d)
+        );
+        MvcResult resCalculated = mockMvc.perform(post("/v1/timeseries-group/{uuid}/calculated", createdUuid)
+                .contentType(MediaType.APPLICATION_JSON).content("{\"c\": \"first + 2 * second\", \"d\": \"max(first, 5)\"}"))
+            .andExpect(status().isOk()).andReturn();
+        assertTimeSeriesEquals(tsRefCalculated, resCalculated.getResponse().getContentAsString());
+        mockMvc.perform(post("/v1/timeseries-group/{uuid}/calculated", createdUuid)
+                .contentType(MediaType.APPLICATION_JSON).content("{\"c\": \"first + unknown\"}"))
+            .andExpect(status().isBadRequest());
+        mockMvc.perform(delete("/v1/timeseries-group/{uuid}", createdUuid)).andExpect(status().isOk());
+    }
+
+    @Test
+    void testCopy() throws Exception {
+        String createdUuid = testCreateGetTs(TS_REF_1);
+        MvcResult resCopy = mockMvc.perform(post("/v1/timeseries-group/{uuid}/copy?timeSeriesNames=second&startInstant={start}",
+                createdUuid, REGULAR_INDEX.getInstantAt(1)))
+            .andExpect(status().isOk()).andReturn();
+        String copiedUuid = (String) mapper.readValue(resCopy.getResponse().getContentAsString(), Map.class).get("id");
+        MvcResult resCopied = mockMvc.perform(get("/v1/timeseries-group/{uuid}", copiedUuid))
+                .andExpect(status().isOk()).andReturn();
+        assertTimeSeriesEquals(TS_REF_1_WINDOW.subList(1, 2), resCopied.getResponse().getContentAsString());
+        // the copy doesn't depend on its source
+        mockMvc.perform(delete("/v1/timeseries-group/{uuid}", createdUuid)).andExpect(status().isOk());
+        MvcResult resCopiedAlone = mockMvc.perform(get("/v1/timeseries-group/{uuid}", copiedUuid))
+                .andExpect(status().isOk()).andReturn();
+        assertTimeSeriesEquals(TS_REF_1_WINDOW.subList(1, 2), resCopiedAlone.getResponse().getContentAsString());
+        mockMvc.perform(delete("/v1/timeseries-group/{uuid}", copiedUuid)).andExpect(status().isOk());
+    }
+
+    @Test
+    void testStatistics() throws Exception {
+        String createdUuid = testCreateGetTs(TS_REF_1);
+        mockMvc.perform(get("/v1/timeseries-group/{uuid}/statistics?timeSeriesNames=first", createdUuid)).andExpectAll(
+            status().isOk(),
+            content().json("{\"first\": {\"count\": 3, \"missingCount\": 0, \"min\": 2.0, \"max\": 4.0, \"sum\": 9.0, \"mean\": 3.0, \"first\": 2.0, \"last\": 4.0}}", true)
+        );
+        mockMvc.perform(get("/v1/timeseries-group/{uuid}/metadata?withStatistics=true", createdUuid)).andExpectAll(
+            status().isOk(),
+            content().json("{\"statistics\": {\"second\": {\"count\": 3, \"min\": 5.0, \"max\": 7.0}}}")
+        );
+        mockMvc.perform(delete("/v1/timeseries-group/{uuid}", createdUuid)).andExpect(status().isOk());
+    }
+
+    @Test
+    void testThreshold() throws Exception {
+        String createdUuid = testCreateGetTs(TS_REF_1);
+        mockMvc.perform(get("/v1/timeseries-group/{uuid}/threshold?threshold=2.5&timeSeriesNames=first", createdUuid)).andExpectAll(
+            status().isOk(),
+            content().json("{\"first\": [\"" + REGULAR_INDEX.getInstantAt(1) + "\", \"" + REGULAR_INDEX.getInstantAt(2) + "\"]}", true)
+        );
+        mockMvc.perform(get("/v1/timeseries-group/{uuid}/first-crossing?threshold=6.5", createdUuid)).andExpectAll(
+            status().isOk(),
+            content().json("{\"second\": \"" + REGULAR_INDEX.getInstantAt(2) + "\"}", true)
+        );
+        mockMvc.perform(get("/v1/timeseries-group/{uuid}/first-crossing?threshold=2.5&below=true", createdUuid)).andExpectAll(
+            status().isOk(),
+            content().json("{\"first\": \"" + REGULAR_INDEX.getInstantAt(0) + "\"}", true)
+        );
+        mockMvc.perform(delete("/v1/timeseries-group/{uuid}", createdUuid)).andExpect(status().isOk());
+    }
+
+    // few distinct values, stored as codes in a dictionary
+    @Test
+    void testDictionary() throws Exception {
+        String createdUuidDictionary = testCreateGetTs(TS_REF_DICTIONARY);
+        mockMvc.perform(get("/v1/timeseries-group/{uuid}/values?instants={i1},{i2}",
+                createdUuidDictionary, DICTIONARY_INDEX.getInstantAt(3), DICTIONARY_INDEX.getInstantAt(2)))
+            .andExpectAll(status().isOk(), content().json("{\"timeSeriesNames\":[\"status\",\"label\"],\"values\":[[\"off\",\"d\"],[null,\"c\"]]}"));
+        mockMvc.perform(get("/v1/timeseries-group/{uuid}/export", createdUuidDictionary)).andExpectAll(status().isOk(), content().string(
+            "Time;status;label\n1970-01-01T00:00:00Z;on;a\n1970-01-01T00:00:00.001Z;on;b\n1970-01-01T00:00:00.002Z;;c\n"
+            + "1970-01-01T00:00:00.003Z;off;d\n1970-01-01T00:00:00.004Z;on;e\n"));
+        MvcResult resDictionaryCopy = mockMvc.perform(post("/v1/timeseries-group/{uuid}/copy?timeSeriesNames=status", createdUuidDictionary))
+            .andExpect(status().isOk()).andReturn();
+        String copiedDictionaryUuid = (String) mapper.readValue(resDictionaryCopy.getResponse().getContentAsString(), Map.class).get("id");
+        MvcResult resDictionaryCopied = mockMvc.perform(get("/v1/timeseries-group/{uuid}", copiedDictionaryUuid))
+            .andExpect(status().isOk()).andReturn();
+        assertTimeSeriesEquals(TS_REF_DICTIONARY.subList(0, 1), resDictionaryCopied.getResponse().getContentAsString());
+        mockMvc.perform(delete("/v1/timeseries-group/{uuid}", copiedDictionaryUuid)).andExpect(status().isOk());
+        mockMvc.perform(delete("/v1/timeseries-group/{uuid}", createdUuidDictionary)).andExpect(status().isOk());
+    }
+
+    @Test
+    void testMissingValues() throws Exception {
+        IrregularTimeSeriesIndex irregularIndex = new IrregularTimeSeriesIndex(new long[] {0, 1, 2 });
+        List<TimeSeries<?, ?>> tsRefStringMissing = List.of(
+                TimeSeries.createString("missingall", irregularIndex),
+                new StringTimeSeries(new TimeSeriesMetadata("missingsomelast", TimeSeriesDataType.STRING, irregularIndex), List.of(new UncompressedStringDataChunk(0, new String[] {"two"}))),
+                TimeSeries.createString("full", irregularIndex, "five", "six", "seven")
+            );
+
+        String createdUuidStringMissing = testCreateGetTs(tsRefStringMissing);
+        mockMvc.perform(delete("/v1/timeseries-group/{uuid}", createdUuidStringMissing)).andExpect(status().isOk());
+
+        List<TimeSeries<?, ?>> tsRefDoubleMissing = List.of(
+            TimeSeries.createDouble("missingall", irregularIndex),
+            new StoredDoubleTimeSeries(new TimeSeriesMetadata("missingsomelast", TimeSeriesDataType.DOUBLE, irregularIndex), List.of(new UncompressedDoubleDataChunk(0, new double[] {2d}))),
+            TimeSeries.createDouble("full", irregularIndex, 5d, 6d, 7d)
+        );
+
+        String createdUuidDoubleMissing = testCreateGetTs(tsRefDoubleMissing);
+        // the missing values are not stored, the points after the last chunk stay unsent (no chunk)
+        MvcResult resDoubleMissing = mockMvc.perform(get("/v1/timeseries-group/{uuid}", createdUuidDoubleMissing))
+            .andExpect(status().isOk()).andReturn();
+        List<TimeSeries> tsDoubleMissing = TimeSeries.parseJson(resDoubleMissing.getResponse().getContentAsString());
+        assertEquals(List.of(), ((StoredDoubleTimeSeries) tsDoubleMissing.get(0)).getChunks());
+        assertEquals(1, ((StoredDoubleTimeSeries) tsDoubleMissing.get(1)).getChunks().get(0).getLength());
+        assertEquals(3, ((StoredDoubleTimeSeries) tsDoubleMissing.get(2)).getChunks().get(0).getLength());
+        mockMvc.perform(delete("/v1/timeseries-group/{uuid}", createdUuidDoubleMissing)).andExpect(status().isOk());
+    }
+
+    // identical time series stored once, shared by the groups
+    @Test
+    void testDedup() throws Exception {
+        Object dedupEnabled = ReflectionTestUtils.getField(timeSeriesDataRepository, "dedupenabled");
+        ReflectionTestUtils.setField(timeSeriesDataRepository, "dedupenabled", true);
+        try {
+            RegularTimeSeriesIndex dedupIndex = new RegularTimeSeriesIndex(0, 4, 1);
+            List<TimeSeries<?, ?>> tsRefDedupBase = List.of(
+                TimeSeries.createDouble("load", dedupIndex, 1d, 2d, Double.NaN, 4d, 5d),
+                TimeSeries.createDouble("generation", dedupIndex, 5d, 4d, 3d, 2d, 1d)
+            );
+            List<TimeSeries<?, ?>> tsRefDedupVariant = List.of(
+                TimeSeries.createDouble("load", dedupIndex, 1d, 2d, Double.NaN, 4d, 5d),
+                TimeSeries.createDouble("generation", dedupIndex, 6d, 4d, 3d, 2d, 1d)
+            );
+            String createdUuidDedupBase = testCreateGetTs(tsRefDedupBase);
+            String createdUuidDedupVariant = testCreateGetTs(tsRefDedupVariant);
+            Map<String, String> baseContents = (Map<String, String>) mapper.readValue(mockMvc.perform(get("/v1/timeseries-group/{uuid}/metadata", createdUuidDedupBase))
+                .andExpect(status().isOk()).andReturn().getResponse().getContentAsString(), Map.class).get("contents");
+            Map<String, String> variantContents = (Map<String, String>) mapper.readValue(mockMvc.perform(get("/v1/timeseries-group/{uuid}/metadata", createdUuidDedupVariant))
+                .andExpect(status().isOk()).andReturn().getResponse().getContentAsString(), Map.class).get("contents");
+            assertEquals(baseContents.get("load"), variantContents.get("load"));
+            assertNotEquals(baseContents.get("generation"), variantContents.get("generation"));
+            // the references taken by a save are released when the transaction is rolled back
+            String contentsCount = "select count(*) || '/' || coalesce(sum(ref_count), 0) from timeseries_content";
+            String contentsBefore = jdbcTemplate.queryForObject(contentsCount, String.class);
+            UUID rolledBackUuid = UUID.randomUUID();
+            transactionTemplate.executeWithoutResult(status -> {
+                timeSeriesDataRepository.save(rolledBackUuid, List.<TimeSeries>of(
+                    TimeSeries.createDouble("load", dedupIndex, 1d, 2d, Double.NaN, 4d, 5d),
+                    TimeSeries.createDouble("other", dedupIndex, 9d, 9d, 9d, 9d, 9d)));
+                status.setRollbackOnly();
+            });
+            assertEquals(contentsBefore, jdbcTemplate.queryForObject(contentsCount, String.class));
+            assertTrue(timeSeriesDataRepository.findRows(rolledBackUuid, 0, 5, Map.of()).isEmpty());
+            // a copy of a group deleted meanwhile takes no reference
+            List<String> copiedHashes = List.of(baseContents.get("load"), "deleted");
+            assertThrows(RuntimeException.class, () -> timeSeriesDataRepository.acquireContents(copiedHashes));
+            assertEquals(contentsBefore, jdbcTemplate.queryForObject(contentsCount, String.class));
+            // a rolled back deletion keeps the rows and the references to the contents
+            transactionTemplate.executeWithoutResult(status -> {
+                timeSeriesService.deleteTimeSeriesGroup(UUID.fromString(createdUuidDedupVariant));
+                status.setRollbackOnly();
+            });
+            assertEquals(contentsBefore, jdbcTemplate.queryForObject(contentsCount, String.class));
+            assertTrue(timeSeriesGroupRepository.existsById(UUID.fromString(createdUuidDedupVariant)));
+            mockMvc.perform(get("/v1/timeseries-group/{uuid}/export", createdUuidDedupBase)).andExpectAll(status().isOk(), content().string(
+                "Time;load;generation\n1970-01-01T00:00:00Z;1.0;5.0\n1970-01-01T00:00:00.001Z;2.0;4.0\n1970-01-01T00:00:00.002Z;;3.0\n"
+                + "1970-01-01T00:00:00.003Z;4.0;2.0\n1970-01-01T00:00:00.004Z;5.0;1.0\n"));
+            mockMvc.perform(get("/v1/timeseries-group/{uuid}/values?instants={i1}&timeSeriesNames=load",
+                    createdUuidDedupVariant, dedupIndex.getInstantAt(3)))
+                .andExpectAll(status().isOk(), content().json("{\"timeSeriesNames\":[\"load\"],\"values\":[[4.0]]}"));
+            MvcResult resDedupCopy = mockMvc.perform(post("/v1/timeseries-group/{uuid}/copy?startInstant={start}", createdUuidDedupBase, dedupIndex.getInstantAt(1)))
+                .andExpect(status().isOk()).andReturn();
+            String copiedDedupUuid = (String) mapper.readValue(resDedupCopy.getResponse().getContentAsString(), Map.class).get("id");
+            // the shared content stays while a group references it
+            mockMvc.perform(delete("/v1/timeseries-group/{uuid}", createdUuidDedupBase)).andExpect(status().isOk());
+            MvcResult resDedupCopied = mockMvc.perform(get("/v1/timeseries-group/{uuid}", copiedDedupUuid))
+                .andExpect(status().isOk()).andReturn();
+            assertTimeSeriesEquals(List.of(
+                TimeSeries.createDouble("load", new RegularTimeSeriesIndex(1, 4, 1), 2d, Double.NaN, 4d, 5d),
+                TimeSeries.createDouble("generation", new RegularTimeSeriesIndex(1, 4, 1), 4d, 3d, 2d, 1d)
+            ), resDedupCopied.getResponse().getContentAsString());
+            MvcResult resDedupVariant = mockMvc.perform(get("/v1/timeseries-group/{uuid}", createdUuidDedupVariant))
+                .andExpect(status().isOk()).andReturn();
+            assertTimeSeriesEquals(tsRefDedupVariant, resDedupVariant.getResponse().getContentAsString());
+            mockMvc.perform(delete("/v1/timeseries-group/{uuid}", copiedDedupUuid)).andExpect(status().isOk());
+            mockMvc.perform(delete("/v1/timeseries-group/{uuid}", createdUuidDedupVariant)).andExpect(status().isOk());
+        } finally {
+            ReflectionTestUtils.setField(timeSeriesDataRepository, "dedupenabled", dedupEnabled);
+        }
+    }
+
+    // bulk creation, the rows of the groups are written in shared batches
+    @Test
+    void testBulk() throws Exception {
+        IrregularTimeSeriesIndex irregularIndex = new IrregularTimeSeriesIndex(new long[] {0, 1, 2 });
+        List<TimeSeries<?, ?>> tsRefMixedIndexes = List.of(
+            TimeSeries.createDouble("first", REGULAR_INDEX, 2d, 3d, 4d),
+            TimeSeries.createDouble("second", irregularIndex, 5d, 6d, 7d)
+        );
+        List<List<TimeSeries<?, ?>>> tsRefsBulk = List.of(
+            List.of(TimeSeries.createDouble("first", REGULAR_INDEX, 1d, 2d, 3d)),
+            List.of(TimeSeries.createString("first", irregularIndex, "a", "b", "c"),
+                TimeSeries.createString("second", irregularIndex, "d", null, "f")),
+            List.of(TimeSeries.createDouble("first", REGULAR_INDEX, 4d, Double.NaN, 6d),
+                TimeSeries.createDouble("second", REGULAR_INDEX, 7d, 8d, 9d))
+        );
+        String bulkJson = tsRefsBulk.stream().map(TimeSeries::toJson).collect(Collectors.joining(",", "[", "]"));
+        MvcResult resBulk = mockMvc.perform(post("/v1/timeseries-group/bulk").content(bulkJson))
+            .andExpect(status().isOk()).andReturn();
+        List<Map<String, Object>> bulkInfos = mapper.readValue(resBulk.getResponse().getContentAsString(), new TypeReference<>() { });
+        assertEquals(tsRefsBulk.size(), bulkInfos.size());
+        for (int i = 0; i < tsRefsBulk.size(); i++) {
+            String bulkUuid = (String) bulkInfos.get(i).get("id");
+            MvcResult resBulkGet = mockMvc.perform(get("/v1/timeseries-group/{uuid}", bulkUuid))
+                .andExpect(status().isOk()).andReturn();
+            assertTimeSeriesEquals(tsRefsBulk.get(i), resBulkGet.getResponse().getContentAsString());
+            mockMvc.perform(delete("/v1/timeseries-group/{uuid}", bulkUuid)).andExpect(status().isOk());
+        }
+        mockMvc.perform(post("/v1/timeseries-group/bulk").content("[" + TimeSeries.toJson(tsRefMixedIndexes) + "]"))
+            .andExpect(status().isBadRequest());
+        // all or none: a bad group after a valid one, in another pack, leaves nothing
+        Object service = AopTestUtils.getUltimateTargetObject(timeSeriesService);
+        Object bulkPackValues = ReflectionTestUtils.getField(service, "bulkpackvalues");
+        ReflectionTestUtils.setField(service, "bulkpackvalues", 1L);
+        try {
+            String allGroups = mockMvc.perform(get("/v1/timeseries-group")).andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+            String rowsCount = "select count(*) from timeseries_group_data";
+            long rowsBefore = jdbcTemplate.queryForObject(rowsCount, Long.class);
+            mockMvc.perform(post("/v1/timeseries-group/bulk").content("[" + TimeSeries.toJson(tsRefsBulk.get(0)) + "," + TimeSeries.toJson(tsRefMixedIndexes) + "]"))
+                .andExpect(status().isBadRequest());
+            mockMvc.perform(get("/v1/timeseries-group")).andExpectAll(status().isOk(), content().json(allGroups, true));
+            assertEquals(rowsBefore, jdbcTemplate.queryForObject(rowsCount, Long.class));
+        } finally {
+            ReflectionTestUtils.setField(service, "bulkpackvalues", bulkPackValues);
+        }
+    }
+
+    // alignment of groups with different indexes on a target index
+    @Test
+    void testAlign() throws Exception {
+        List<TimeSeries<?, ?>> tsRefAlignRegular = List.of(TimeSeries.createDouble("a", new RegularTimeSeriesIndex(0, 4, 2), 0d, 10d, 20d));
+        List<TimeSeries<?, ?>> tsRefAlignIrregular = List.of(TimeSeries.createString("b", new IrregularTimeSeriesIndex(new long[] {1, 3}), "x", "y"));
+        String createdUuidAlignRegular = testCreateGetTs(tsRefAlignRegular);
+        String createdUuidAlignIrregular = testCreateGetTs(tsRefAlignIrregular);
+        RegularTimeSeriesIndex alignIndex = new RegularTimeSeriesIndex(0, 4, 1);
+        Map<String, Object> alignment = Map.of(
+            "timeSeries", List.of(Map.of("group", createdUuidAlignRegular, "name", "a"), Map.of("group", createdUuidAlignIrregular, "name", "b")),
+            "indexType", alignIndex.getType(),
+            "index", mapper.readTree(alignIndex.toJson()),
+            "policy", "PREVIOUS");
+        mockMvc.perform(post("/v1/timeseries-group/align").contentType(MediaType.APPLICATION_JSON).content(mapper.writeValueAsString(alignment)))
+            .andExpectAll(status().isOk(), content().json("{\"timeSeriesNames\":[\"a\",\"b\"],\"values\":"
+                + "[[0.0,null],[0.0,\"x\"],[10.0,\"x\"],[10.0,\"y\"],[20.0,\"y\"]]}"));
+        Map<String, Object> alignmentLinear = new HashMap<>(alignment);
+        alignmentLinear.put("timeSeries", List.of(Map.of("group", createdUuidAlignRegular, "name", "a")));
+        alignmentLinear.put("policy", "LINEAR");
+        mockMvc.perform(post("/v1/timeseries-group/align").contentType(MediaType.APPLICATION_JSON).content(mapper.writeValueAsString(alignmentLinear)))
+            .andExpectAll(status().isOk(), content().json("{\"values\":[[0.0],[5.0],[10.0],[15.0],[20.0]]}"));
+        RegularTimeSeriesIndex meanIndex = new RegularTimeSeriesIndex(0, 4, 4);
+        alignmentLinear.put("index", mapper.readTree(meanIndex.toJson()));
+        alignmentLinear.put("policy", "MEAN");
+        mockMvc.perform(post("/v1/timeseries-group/align").contentType(MediaType.APPLICATION_JSON).content(mapper.writeValueAsString(alignmentLinear)))
+            .andExpectAll(status().isOk(), content().json("{\"values\":[[5.0],[20.0]]}"));
+        alignment = new HashMap<>(alignment);
+        alignment.put("policy", "LINEAR");
+        mockMvc.perform(post("/v1/timeseries-group/align").contentType(MediaType.APPLICATION_JSON).content(mapper.writeValueAsString(alignment)))
+            .andExpect(status().isBadRequest());
+        // sparse time series: the last value before the target index is further than the point before it
+        List<TimeSeries<?, ?>> tsRefAlignSparse = List.of(TimeSeries.createDouble("c", new RegularTimeSeriesIndex(0, 4, 1),
+            1d, Double.NaN, Double.NaN, Double.NaN, 5d));
+        String createdUuidAlignSparse = testCreateGetTs(tsRefAlignSparse);
+        RegularTimeSeriesIndex sparseIndex = new RegularTimeSeriesIndex(3, 4, 1);
+        Map<String, Object> alignmentSparse = new HashMap<>(alignment);
+        alignmentSparse.put("timeSeries", List.of(Map.of("group", createdUuidAlignSparse, "name", "c")));
+        alignmentSparse.put("index", mapper.readTree(sparseIndex.toJson()));
+        alignmentSparse.put("policy", "PREVIOUS");
+        mockMvc.perform(post("/v1/timeseries-group/align").contentType(MediaType.APPLICATION_JSON).content(mapper.writeValueAsString(alignmentSparse)))
+            .andExpectAll(status().isOk(), content().json("{\"values\":[[1.0],[5.0]]}"));
+        alignmentSparse.put("policy", "LINEAR");
+        mockMvc.perform(post("/v1/timeseries-group/align").contentType(MediaType.APPLICATION_JSON).content(mapper.writeValueAsString(alignmentSparse)))
+            .andExpectAll(status().isOk(), content().json("{\"values\":[[4.0],[5.0]]}"));
+        mockMvc.perform(delete("/v1/timeseries-group/{uuid}", createdUuidAlignSparse)).andExpect(status().isOk());
+        mockMvc.perform(delete("/v1/timeseries-group/{uuid}", createdUuidAlignRegular)).andExpect(status().isOk());
+        mockMvc.perform(delete("/v1/timeseries-group/{uuid}", createdUuidAlignIrregular)).andExpect(status().isOk());
+    }
+
+    private long countPhase(String operation, String phase) {
+        Timer timer = meterRegistry.find("timeseries.phase").tags("operation", operation, "dataType", "DOUBLE", "sizeClass", "small",
+            "phase", phase).timer();
+        return timer != null ? timer.count() : 0;
+    }
+
+    private double countRows(String operation) {
+        Counter counter = meterRegistry.find("timeseries.rows").tags("operation", operation, "dataType", "DOUBLE", "sizeClass", "small").counter();
+        return counter != null ? counter.count() : 0;
+    }
+
+    @Test
+    void testMetrics() throws Exception {
+        // the phases of the ingest of a small double group
+        long parseBefore = countPhase(TimeSeriesMetrics.WRITE, TimeSeriesMetrics.PHASE_PARSE);
+        long writeBatchBefore = countPhase(TimeSeriesMetrics.WRITE, TimeSeriesMetrics.PHASE_DB_BATCH);
+        double writeRowsBefore = countRows(TimeSeriesMetrics.WRITE);
+        MvcResult resCreate = mockMvc.perform(post("/v1/timeseries-group").content(TimeSeries.toJson(TS_REF_1)))
+            .andExpect(status().isOk()).andReturn();
+        String createdUuid = (String) mapper.readValue(resCreate.getResponse().getContentAsString(), Map.class).get("id");
+        assertTrue(countPhase(TimeSeriesMetrics.WRITE, TimeSeriesMetrics.PHASE_PARSE) > parseBefore);
+        assertTrue(countPhase(TimeSeriesMetrics.WRITE, TimeSeriesMetrics.PHASE_DB_BATCH) > writeBatchBefore);
+        assertEquals(3, countRows(TimeSeriesMetrics.WRITE) - writeRowsBefore, 0);
+
+        // and of its read
+        long serializationBefore = countPhase(TimeSeriesMetrics.READ, TimeSeriesMetrics.PHASE_SERIALIZATION);
+        long readBatchBefore = countPhase(TimeSeriesMetrics.READ, TimeSeriesMetrics.PHASE_DB_BATCH);
+        double readRowsBefore = countRows(TimeSeriesMetrics.READ);
+        mockMvc.perform(get("/v1/timeseries-group/{uuid}", createdUuid)).andExpect(status().isOk());
+        assertEquals(serializationBefore + 1, countPhase(TimeSeriesMetrics.READ, TimeSeriesMetrics.PHASE_SERIALIZATION));
+        assertTrue(countPhase(TimeSeriesMetrics.READ, TimeSeriesMetrics.PHASE_DB_BATCH) > readBatchBefore);
+        assertEquals(3, countRows(TimeSeriesMetrics.READ) - readRowsBefore, 0);
+        assertNotNull(meterRegistry.find("timeseries.connection.pending").gauge());
+        mockMvc.perform(delete("/v1/timeseries-group/{uuid}", createdUuid)).andExpect(status().isOk());
+    }
+
+    @Test
+    void testSpill() throws Exception {
+        String createdUuid = testCreateGetTs(TS_REF_1);
+        // same reads assembled in a spill file
+        Object spillThreshold = ReflectionTestUtils.getField(timeSeriesMemoryBudget, "spillthresholdbytes");
+        ReflectionTestUtils.setField(timeSeriesMemoryBudget, "spillthresholdbytes", 1L);
+        try {
+            MvcResult resSpilled = mockMvc.perform(get("/v1/timeseries-group/{uuid}", createdUuid))
+                    .andExpect(status().isOk()).andReturn();
+            assertTimeSeriesEquals(TS_REF_1, resSpilled.getResponse().getContentAsString());
+            MvcResult resSpilledWindow = mockMvc.perform(get("/v1/timeseries-group/{uuid}?startInstant={start}", createdUuid, REGULAR_INDEX.getInstantAt(1)))
+                    .andExpect(status().isOk()).andReturn();
+            assertTimeSeriesEquals(TS_REF_1_WINDOW, resSpilledWindow.getResponse().getContentAsString());
+            // the unknown time series are not read, the ones requested several times are read once
+            MvcResult resSpilledNames = mockMvc.perform(get("/v1/timeseries-group/{uuid}?timeSeriesNames=second&timeSeriesNames=unknown&timeSeriesNames=second",
+                    createdUuid)).andExpect(status().isOk()).andReturn();
+            assertTimeSeriesEquals(List.of(TS_REF_1.get(1)), resSpilledNames.getResponse().getContentAsString());
+        } finally {
+            ReflectionTestUtils.setField(timeSeriesMemoryBudget, "spillthresholdbytes", spillThreshold);
+            mockMvc.perform(delete("/v1/timeseries-group/{uuid}", createdUuid)).andExpect(status().isOk());
+        }
+    }
+
+    @Test
+    void testExport() throws Exception {
+        String createdUuid = testCreateGetTs(TS_REF_1);
+        // export, streamed from the rows
+        mockMvc.perform(get("/v1/timeseries-group/{uuid}/export", createdUuid)).andExpectAll(status().isOk(), content().string(CSV_1));
+        MvcResult resColumnar = mockMvc.perform(get("/v1/timeseries-group/{uuid}/export?format=COLUMNAR", createdUuid))
+                .andExpect(status().isOk()).andReturn();
+        try (TimeSeriesArchiveFormat.Reader reader = new TimeSeriesArchiveFormat.Reader(new ByteArrayInputStream(resColumnar.getResponse().getContentAsByteArray()))) {
+            assertEquals(List.of("first", "second"), reader.getHeader().names());
+            Object[] columns = reader.readBlock();
+            assertArrayEquals(new double[] {2d, 3d, 4d}, (double[]) columns[0]);
+            assertArrayEquals(new double[] {5d, 6d, 7d}, (double[]) columns[1]);
+        }
+        mockMvc.perform(delete("/v1/timeseries-group/{uuid}", createdUuid)).andExpect(status().isOk());
+    }
+
+    @Test
+    void testArchive() throws Exception {
+        Object directory = ReflectionTestUtils.getField(timeSeriesArchiver, "directory");
+        Object purgeDelay = ReflectionTestUtils.getField(timeSeriesArchiver, "purgedelayms");
+        Path archiveDirectory = Files.createTempDirectory("timeseries-archive");
+        ReflectionTestUtils.setField(timeSeriesArchiver, "directory", archiveDirectory.toString());
+        try {
+            // same reads from the archive, then back in the database
+            String createdUuid = testCreateGetTs(TS_REF_1);
+            // the rows are purged at once
+            ReflectionTestUtils.setField(timeSeriesArchiver, "purgedelayms", 0L);
+            timeSeriesArchiver.archive(timeSeriesGroupRepository.findById(UUID.fromString(createdUuid)).orElseThrow());
+            Instant archivedDate = timeSeriesGroupRepository.findById(UUID.fromString(createdUuid)).orElseThrow().getLastWriteDate();
+            timeSeriesArchiver.purgeArchivedGroups();
+            ReflectionTestUtils.setField(timeSeriesArchiver, "purgedelayms", purgeDelay);
+            // the purge changes the metadata, it is a write
+            assertTrue(timeSeriesGroupRepository.findById(UUID.fromString(createdUuid)).orElseThrow().getLastWriteDate().isAfter(archivedDate));
+            assertTrue(timeSeriesDataRepository.findRows(UUID.fromString(createdUuid), 0, 3, Map.of()).isEmpty());
+            MvcResult resArchived = mockMvc.perform(get("/v1/timeseries-group/{uuid}", createdUuid))
+                    .andExpect(status().isOk()).andReturn();
+            assertTimeSeriesEquals(TS_REF_1, resArchived.getResponse().getContentAsString());
+            MvcResult resArchivedWindow = mockMvc.perform(get("/v1/timeseries-group/{uuid}?startInstant={start}", createdUuid, REGULAR_INDEX.getInstantAt(1)))
+                    .andExpect(status().isOk()).andReturn();
+            assertTimeSeriesEquals(TS_REF_1_WINDOW, resArchivedWindow.getResponse().getContentAsString());
+            mockMvc.perform(get("/v1/timeseries-group/{uuid}/export", createdUuid)).andExpectAll(status().isOk(), content().string(CSV_1));
+            mockMvc.perform(post("/v1/timeseries-group/{uuid}/rehydrate", createdUuid)).andExpect(status().isOk());
+            MvcResult resRehydrated = mockMvc.perform(get("/v1/timeseries-group/{uuid}", createdUuid))
+                    .andExpect(status().isOk()).andReturn();
+            assertTimeSeriesEquals(TS_REF_1, resRehydrated.getResponse().getContentAsString());
+            mockMvc.perform(delete("/v1/timeseries-group/{uuid}", createdUuid)).andExpect(status().isOk());
+
+            // the rows are kept for the reads which started before, and the group points back to them
+            String createdUuidDictionary = testCreateGetTs(TS_REF_DICTIONARY);
+            timeSeriesArchiver.archive(timeSeriesGroupRepository.findById(UUID.fromString(createdUuidDictionary)).orElseThrow());
+            timeSeriesArchiver.purgeArchivedGroups();
+            assertEquals(5, timeSeriesDataRepository.findRows(UUID.fromString(createdUuidDictionary), 0, 5, Map.of()).size());
+            mockMvc.perform(post("/v1/timeseries-group/{uuid}/rehydrate", createdUuidDictionary)).andExpect(status().isOk());
+            MvcResult resDictionaryRehydrated = mockMvc.perform(get("/v1/timeseries-group/{uuid}", createdUuidDictionary))
+                .andExpect(status().isOk()).andReturn();
+            assertTimeSeriesEquals(TS_REF_DICTIONARY, resDictionaryRehydrated.getResponse().getContentAsString());
+            // the archive of a deleted group is deleted with it
+            timeSeriesArchiver.archive(timeSeriesGroupRepository.findById(UUID.fromString(createdUuidDictionary)).orElseThrow());
+            Path dictionaryArchive = Path.of(timeSeriesGroupRepository.findById(UUID.fromString(createdUuidDictionary)).orElseThrow().getArchivePath());
+            assertTrue(Files.exists(dictionaryArchive));
+            mockMvc.perform(delete("/v1/timeseries-group/{uuid}", createdUuidDictionary)).andExpect(status().isOk());
+            assertFalse(Files.exists(dictionaryArchive));
+
+            // a group deleted while its archive was written is not archived, nor created again
+            String createdUuidDeleted = testCreateGetTs(TS_REF_1);
+            TimeSeriesGroupEntity deletedGroup = timeSeriesGroupRepository.findById(UUID.fromString(createdUuidDeleted)).orElseThrow();
+            mockMvc.perform(delete("/v1/timeseries-group/{uuid}", createdUuidDeleted)).andExpect(status().isOk());
+            timeSeriesArchiver.archive(deletedGroup);
+            assertFalse(timeSeriesGroupRepository.existsById(UUID.fromString(createdUuidDeleted)));
+            try (Stream<Path> archives = Files.list(archiveDirectory)) {
+                assertEquals(0, archives.count());
+            }
+            // nor a group written meanwhile
+            String createdUuidWritten = testCreateGetTs(TS_REF_1);
+            TimeSeriesGroupEntity writtenGroup = timeSeriesGroupRepository.findById(UUID.fromString(createdUuidWritten)).orElseThrow();
+            jdbcTemplate.update("update timeseries_group set last_write_date = now() where id = cast(? as uuid)", createdUuidWritten);
+            timeSeriesArchiver.archive(writtenGroup);
+            assertNull(timeSeriesGroupRepository.findById(UUID.fromString(createdUuidWritten)).orElseThrow().getArchivePath());
+            mockMvc.perform(delete("/v1/timeseries-group/{uuid}", createdUuidWritten)).andExpect(status().isOk());
+            // nor a group being archived by another instance, until its claim expires
+            String createdUuidClaimed = testCreateGetTs(TS_REF_1);
+            String claim = "update timeseries_group set archive_claim_date = now() + cast(? as interval) where id = cast(? as uuid)";
+            jdbcTemplate.update(claim, "1 hour", createdUuidClaimed);
+            timeSeriesArchiver.archive(timeSeriesGroupRepository.findById(UUID.fromString(createdUuidClaimed)).orElseThrow());
+            assertNull(timeSeriesGroupRepository.findById(UUID.fromString(createdUuidClaimed)).orElseThrow().getArchivePath());
+            jdbcTemplate.update(claim, "-1 hour", createdUuidClaimed);
+            timeSeriesArchiver.archive(timeSeriesGroupRepository.findById(UUID.fromString(createdUuidClaimed)).orElseThrow());
+            assertNotNull(timeSeriesGroupRepository.findById(UUID.fromString(createdUuidClaimed)).orElseThrow().getArchivePath());
+            mockMvc.perform(delete("/v1/timeseries-group/{uuid}", createdUuidClaimed)).andExpect(status().isOk());
+
+            // the archived sparse time series are aligned from one read of their archive
+            String createdUuidAlignSparse = testCreateGetTs(List.of(TimeSeries.createDouble("c", new RegularTimeSeriesIndex(0, 4, 1),
+                1d, Double.NaN, Double.NaN, Double.NaN, 5d)));
+            timeSeriesArchiver.archive(timeSeriesGroupRepository.findById(UUID.fromString(createdUuidAlignSparse)).orElseThrow());
+            RegularTimeSeriesIndex sparseIndex = new RegularTimeSeriesIndex(3, 4, 1);
+            Map<String, Object> alignmentSparse = new HashMap<>(Map.of(
+                "timeSeries", List.of(Map.of("group", createdUuidAlignSparse, "name", "c")),
+                "indexType", sparseIndex.getType(),
+                "index", mapper.readTree(sparseIndex.toJson()),
+                "policy", "PREVIOUS"));
+            mockMvc.perform(post("/v1/timeseries-group/align").contentType(MediaType.APPLICATION_JSON).content(mapper.writeValueAsString(alignmentSparse)))
+                .andExpectAll(status().isOk(), content().json("{\"values\":[[1.0],[5.0]]}"));
+            alignmentSparse.put("policy", "LINEAR");
+            mockMvc.perform(post("/v1/timeseries-group/align").contentType(MediaType.APPLICATION_JSON).content(mapper.writeValueAsString(alignmentSparse)))
+                .andExpectAll(status().isOk(), content().json("{\"values\":[[4.0],[5.0]]}"));
+            mockMvc.perform(delete("/v1/timeseries-group/{uuid}", createdUuidAlignSparse)).andExpect(status().isOk());
+        } finally {
+            ReflectionTestUtils.setField(timeSeriesArchiver, "directory", directory);
+            ReflectionTestUtils.setField(timeSeriesArchiver, "purgedelayms", purgeDelay);
+        }
+    }
 }
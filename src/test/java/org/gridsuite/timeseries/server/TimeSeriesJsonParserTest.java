@@ -0,0 +1,59 @@
+/**
+ * Copyright (c) 2026, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.gridsuite.timeseries.server;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Split of the top level json array of the time series in ranges of whole elements.
+ */
+class TimeSeriesJsonParserTest {
+
+    // the elements of the ranges of the json, split with the target range size
+    private static List<String> split(String json, int targetRangeBytes) {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        return TimeSeriesJsonParser.split(bytes, bytes.length, targetRangeBytes).stream()
+            .map(range -> new String(bytes, range[0], range[1] - range[0], StandardCharsets.UTF_8))
+            .toList();
+    }
+
+    @Test
+    void testSplit() {
+        // each element in its own range
+        assertEquals(List.of("{\"a\": 1}", " {\"b\": [2, 3]}", " {\"c\": {\"d\": 4}}"),
+            split(" [{\"a\": 1}, {\"b\": [2, 3]}, {\"c\": {\"d\": 4}}] ", 1));
+        // the elements are grouped until the target size is reached
+        assertEquals(List.of("{\"a\": 1}, {\"b\": 2}", " {\"c\": 3}"),
+            split("[{\"a\": 1}, {\"b\": 2}, {\"c\": 3}]", 15));
+        assertEquals(List.of("{\"a\": 1}, {\"b\": 2}"), split("[{\"a\": 1}, {\"b\": 2}]", 1 << 20));
+        assertEquals(List.of(""), split("[]", 1));
+    }
+
+    @Test
+    void testSplitStrings() {
+        // the structural characters and the escaped quotes in the names don't split the elements
+        String first = "{\"metadata\": {\"name\": \"a\\\"[,]\\\\\"}}";
+        String second = "{\"metadata\": {\"name\": \"],\\\"{\"}}";
+        assertEquals(List.of(first, second), split("[" + first + "," + second + "]", 1));
+    }
+
+    @Test
+    void testSplitInvalid() {
+        for (String json : List.of("", "  ", "{\"a\": 1}", "[{\"a\": 1}, {\"b\": 2}", "[{\"a\": \"]\"}", "[{\"a\": [1, 2}")) {
+            ResponseStatusException e = assertThrows(ResponseStatusException.class, () -> split(json, 1));
+            assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+        }
+    }
+}
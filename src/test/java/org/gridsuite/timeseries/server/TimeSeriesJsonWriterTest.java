@@ -0,0 +1,84 @@
+/**
+ * Copyright (c) 2026, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.gridsuite.timeseries.server;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.powsybl.timeseries.RegularTimeSeriesIndex;
+import com.powsybl.timeseries.StoredDoubleTimeSeries;
+import com.powsybl.timeseries.TimeSeries;
+import com.powsybl.timeseries.TimeSeriesDataType;
+import com.powsybl.timeseries.TimeSeriesMetadata;
+import com.powsybl.timeseries.UncompressedDoubleDataChunk;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Encoding of the time series in blocks merged in the order of the list.
+ */
+class TimeSeriesJsonWriterTest {
+
+    private static final RegularTimeSeriesIndex INDEX = new RegularTimeSeriesIndex(0, 2, 1);
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private final TimeSeriesTaskExecutor timeSeriesTaskExecutor = new TimeSeriesTaskExecutor();
+
+    private final TimeSeriesJsonWriter timeSeriesJsonWriter = new TimeSeriesJsonWriter(timeSeriesTaskExecutor);
+
+    @AfterEach
+    void tearDown() {
+        timeSeriesTaskExecutor.shutdown();
+    }
+
+    // same json as TimeSeries.toJson, whatever the blocks
+    private void assertWrittenAsToJson(List<TimeSeries> list, long minParallelCells) throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        timeSeriesJsonWriter.writeJson(list, outputStream, minParallelCells);
+        assertEquals(mapper.readTree(TimeSeries.toJson(list)), mapper.readTree(outputStream.toString(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void testDoubles() throws Exception {
+        List<TimeSeries> list = new ArrayList<>();
+        for (int i = 0; i < 17; i++) {
+            list.add(TimeSeries.createDouble("ts" + i, INDEX, i, Double.NaN, i + 2d));
+        }
+        // with tags
+        list.add(new StoredDoubleTimeSeries(new TimeSeriesMetadata("tagged", TimeSeriesDataType.DOUBLE, Map.of("unit", "kV"), INDEX),
+            List.of(new UncompressedDoubleDataChunk(0, new double[] {5d, 6d, 7d}))));
+        // in several blocks, and in a single one
+        assertWrittenAsToJson(list, 0);
+        assertWrittenAsToJson(list, Long.MAX_VALUE);
+        // fewer time series than blocks
+        assertWrittenAsToJson(list.subList(0, 2), 0);
+        assertWrittenAsToJson(list.subList(0, 1), 0);
+    }
+
+    @Test
+    void testStrings() throws Exception {
+        List<TimeSeries> list = new ArrayList<>();
+        for (int i = 0; i < 9; i++) {
+            list.add(TimeSeries.createString("ts" + i, INDEX, "a" + i, null, "\"[,]\""));
+        }
+        assertWrittenAsToJson(list, 0);
+    }
+
+    @Test
+    void testEmpty() throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        timeSeriesJsonWriter.writeJson(List.of(), outputStream, 0);
+        assertEquals("[]", outputStream.toString(StandardCharsets.UTF_8));
+    }
+}
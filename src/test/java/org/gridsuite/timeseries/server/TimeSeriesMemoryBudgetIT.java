@@ -0,0 +1,130 @@
+/**
+ * Copyright (c) 2026, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.gridsuite.timeseries.server;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.powsybl.timeseries.RegularTimeSeriesIndex;
+import com.powsybl.timeseries.TimeSeries;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Admission control with a tiny memory budget: the requests which don't fit are rejected at once.
+ */
+@AutoConfigureMockMvc
+@SpringBootTest(properties = {
+    "timeseries.memory-budget.bytes=4096",
+    "timeseries.memory-budget.max-wait-ms=0",
+    "timeseries.memory-budget.retry-after-seconds=7",
+    "timeseries.archive.directory=${java.io.tmpdir}/timeseries-memory-budget-it",
+    "timeseries.archive.purge-delay-ms=0",
+})
+class TimeSeriesMemoryBudgetIT {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper mapper;
+
+    @Autowired
+    private TimeSeriesMemoryBudget timeSeriesMemoryBudget;
+
+    @Autowired
+    private TimeSeriesGroupRepository timeSeriesGroupRepository;
+
+    @Autowired
+    private TimeSeriesArchiver timeSeriesArchiver;
+
+    @Test
+    void test() throws Exception {
+        String json = TimeSeries.toJson(List.of(TimeSeries.createDouble("first", new RegularTimeSeriesIndex(0, 2, 1), 2d, 3d, 4d)));
+
+        // the bodies without a content length are not admitted for free
+        assertTrue(timeSeriesMemoryBudget.estimateWrite(-1) > 0);
+
+        // the whole budget is held by another request
+        try (TimeSeriesMemoryBudget.Reservation reservation = timeSeriesMemoryBudget.reserve(4096)) {
+            mockMvc.perform(post("/v1/timeseries-group").content(json))
+                .andExpectAll(status().isServiceUnavailable(), header().string("Retry-After", "7"));
+            mockMvc.perform(post("/v1/timeseries-group/bulk").content("[" + json + "]"))
+                .andExpectAll(status().isServiceUnavailable(), header().string("Retry-After", "7"));
+        }
+
+        // admitted alone once the budget is released
+        MvcResult resCreate = mockMvc.perform(post("/v1/timeseries-group").content(json))
+            .andExpect(status().isOk()).andReturn();
+        String createdUuid = (String) mapper.readValue(resCreate.getResponse().getContentAsString(), Map.class).get("id");
+
+        // the statistics of the groups saved before them are computed within the budget
+        TimeSeriesGroupEntity tsGroup = timeSeriesGroupRepository.findById(UUID.fromString(createdUuid)).orElseThrow();
+        tsGroup.setStatistics(null);
+        timeSeriesGroupRepository.save(tsGroup);
+        try (TimeSeriesMemoryBudget.Reservation reservation = timeSeriesMemoryBudget.reserve(4096)) {
+            mockMvc.perform(get("/v1/timeseries-group/{uuid}/statistics", createdUuid))
+                .andExpectAll(status().isServiceUnavailable(), header().string("Retry-After", "7"));
+        }
+        mockMvc.perform(get("/v1/timeseries-group/{uuid}/statistics", createdUuid)).andExpectAll(status().isOk(),
+            content().json("{\"first\": {\"count\": 3, \"min\": 2.0, \"max\": 4.0}}"));
+
+        // the operands and the calculated time series are reserved before the evaluation
+        try (TimeSeriesMemoryBudget.Reservation reservation = timeSeriesMemoryBudget.reserve(4096)) {
+            mockMvc.perform(post("/v1/timeseries-group/{uuid}/calculated", createdUuid).contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"double\": \"2 * first\"}"))
+                .andExpectAll(status().isServiceUnavailable(), header().string("Retry-After", "7"));
+        }
+        mockMvc.perform(post("/v1/timeseries-group/{uuid}/calculated", createdUuid).contentType(MediaType.APPLICATION_JSON)
+                .content("{\"double\": \"2 * first\"}"))
+            .andExpect(status().isOk());
+
+        // the aligned values are reserved before the groups are read
+        RegularTimeSeriesIndex alignIndex = new RegularTimeSeriesIndex(0, 2, 1);
+        Map<String, Object> alignment = Map.of(
+            "timeSeries", List.of(Map.of("group", createdUuid, "name", "first")),
+            "indexType", alignIndex.getType(),
+            "index", mapper.readTree(alignIndex.toJson()));
+        try (TimeSeriesMemoryBudget.Reservation reservation = timeSeriesMemoryBudget.reserve(4096)) {
+            mockMvc.perform(post("/v1/timeseries-group/align").contentType(MediaType.APPLICATION_JSON).content(mapper.writeValueAsString(alignment)))
+                .andExpectAll(status().isServiceUnavailable(), header().string("Retry-After", "7"));
+        }
+        mockMvc.perform(post("/v1/timeseries-group/align").contentType(MediaType.APPLICATION_JSON).content(mapper.writeValueAsString(alignment)))
+            .andExpectAll(status().isOk(), content().json("{\"values\":[[2.0],[3.0],[4.0]]}"));
+
+        // the archive of a purged group is read in the heap to be rehydrated
+        timeSeriesArchiver.archive(timeSeriesGroupRepository.findById(UUID.fromString(createdUuid)).orElseThrow());
+        timeSeriesArchiver.purgeArchivedGroups();
+        try (TimeSeriesMemoryBudget.Reservation reservation = timeSeriesMemoryBudget.reserve(4096)) {
+            mockMvc.perform(post("/v1/timeseries-group/{uuid}/rehydrate", createdUuid))
+                .andExpectAll(status().isServiceUnavailable(), header().string("Retry-After", "7"));
+        }
+        assertNotNull(timeSeriesGroupRepository.findById(UUID.fromString(createdUuid)).orElseThrow().getArchivePath());
+        mockMvc.perform(post("/v1/timeseries-group/{uuid}/rehydrate", createdUuid)).andExpect(status().isOk());
+        assertNull(timeSeriesGroupRepository.findById(UUID.fromString(createdUuid)).orElseThrow().getArchivePath());
+        mockMvc.perform(get("/v1/timeseries-group/{uuid}/statistics", createdUuid)).andExpectAll(status().isOk(),
+            content().json("{\"first\": {\"count\": 3, \"min\": 2.0, \"max\": 4.0}}"));
+        mockMvc.perform(delete("/v1/timeseries-group/{uuid}", createdUuid)).andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,187 @@
+/**
+ * Copyright (c) 2026, RTE (http://www.rte-france.com)
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.gridsuite.timeseries.server;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.powsybl.timeseries.DoubleTimeSeries;
+import com.powsybl.timeseries.RegularTimeSeriesIndex;
+import com.powsybl.timeseries.TimeSeries;
+import liquibase.integration.spring.SpringLiquibase;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Routing of the reads to a read replica. The replica is a second database where the replication is
+ * simulated by copying the rows of the primary, with different values to know where a read comes from.
+ */
+@AutoConfigureMockMvc
+@SpringBootTest
+class TimeSeriesReplicasIT {
+
+    private static final PostgreSQLContainer<?> REPLICA = new PostgreSQLContainer<>("postgres:11-alpine");
+
+    static {
+        REPLICA.start();
+    }
+
+    private static final Instant OLD = Instant.now().minus(Duration.ofDays(1));
+
+    // the values on the replica are the ones of the primary times 10
+    private static final String TAMPER_DATA = "update timeseries_group_data set json_obj = "
+            + "jsonb_build_object('first', (json_obj->>'first')::float8 * 10) where group_id = cast(? as uuid)";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper mapper;
+
+    @Autowired
+    private JdbcTemplate primaryJdbcTemplate;
+
+    private static JdbcTemplate replicaJdbcTemplate;
+
+    @DynamicPropertySource
+    static void replicaProperties(DynamicPropertyRegistry registry) {
+        registry.add("timeseries.replicas.urls", REPLICA::getJdbcUrl);
+        registry.add("timeseries.replicas.max-lag-ms", () -> "60000");
+        registry.add("timeseries.replicas.connection-timeout-ms", () -> "500");
+        // the replicas use the credentials of the primary
+        registry.add("spring.datasource.username", REPLICA::getUsername);
+        registry.add("spring.datasource.password", REPLICA::getPassword);
+    }
+
+    @BeforeAll
+    static void createReplicaSchema() throws Exception {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(REPLICA.getJdbcUrl(), REPLICA.getUsername(), REPLICA.getPassword());
+        SpringLiquibase liquibase = new SpringLiquibase();
+        liquibase.setDataSource(dataSource);
+        liquibase.setChangeLog("classpath:db/changelog/db.changelog-master.yaml");
+        liquibase.setResourceLoader(new DefaultResourceLoader());
+        liquibase.afterPropertiesSet();
+        replicaJdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    private String create(List<TimeSeries<?, ?>> tsRef) throws Exception {
+        String res = mockMvc.perform(post("/v1/timeseries-group").content(TimeSeries.toJson(tsRef)))
+            .andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+        return (String) mapper.readValue(res, Map.class).get("id");
+    }
+
+    // copies the group and its rows from the primary to the replica, and sets its last write in the past
+    private void replicate(String uuid) {
+        primaryJdbcTemplate.update("update timeseries_group set last_write_date = ? where id = cast(? as uuid)", Timestamp.from(OLD), uuid);
+        Map<String, Object> group = primaryJdbcTemplate.queryForMap("select id, index_type, index, metadatas, statistics, "
+                + "last_access_date, archive_path, last_write_date, purge_date from timeseries_group where id = cast(? as uuid)", uuid);
+        replicaJdbcTemplate.update("insert into timeseries_group (id, index_type, index, metadatas, statistics, last_access_date, "
+                + "archive_path, last_write_date, purge_date) values (?,?,?,?,?,?,?,?,?)", group.values().toArray());
+        for (Map<String, Object> row : primaryJdbcTemplate.queryForList("select group_id, time, instant, json_obj::text "
+                + "from timeseries_group_data where group_id = cast(? as uuid)", uuid)) {
+            replicaJdbcTemplate.update("insert into timeseries_group_data (group_id, time, instant, json_obj) values (?,?,?,cast(? as jsonb))",
+                    row.values().toArray());
+        }
+        replicaJdbcTemplate.update(TAMPER_DATA, uuid);
+        replicaJdbcTemplate.update("update timeseries_group set statistics = ? where id = cast(? as uuid)",
+                "{\"first\": {\"count\": 30, \"missingCount\": 0}}", uuid);
+    }
+
+    private double[] getValues(String uuid) throws Exception {
+        String res = mockMvc.perform(get("/v1/timeseries-group/{uuid}", uuid))
+            .andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+        return ((DoubleTimeSeries) TimeSeries.parseJson(res).get(0)).toArray();
+    }
+
+    private Set<String> getAllIds() throws Exception {
+        String res = mockMvc.perform(get("/v1/timeseries-group"))
+            .andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+        return mapper.readValue(res, new TypeReference<List<Map<String, Object>>>() { }).stream()
+            .map(infos -> (String) infos.get("id")).collect(Collectors.toSet());
+    }
+
+    @Test
+    void test() throws Exception {
+        RegularTimeSeriesIndex index = new RegularTimeSeriesIndex(0, 2, 1);
+        List<TimeSeries<?, ?>> tsRef = List.of(TimeSeries.createDouble("first", index, 2d, 3d, 4d));
+
+        // written recently, not on the replica yet: read and listed from the primary
+        String uuid = create(tsRef);
+        assertArrayEquals(new double[] {2d, 3d, 4d}, getValues(uuid), 0);
+        assertTrue(getAllIds().contains(uuid));
+
+        // replicated: the data, the metadata and the listing are read from the replica
+        replicate(uuid);
+        assertArrayEquals(new double[] {20d, 30d, 40d}, getValues(uuid), 0);
+        mockMvc.perform(get("/v1/timeseries-group/{uuid}/statistics", uuid))
+            .andExpectAll(status().isOk(), content().json("{\"first\": {\"count\": 30}}"));
+        mockMvc.perform(get("/v1/timeseries-group/{uuid}/metadata?withStatistics=true", uuid))
+            .andExpectAll(status().isOk(), content().json("{\"statistics\": {\"first\": {\"count\": 30}}}"));
+        String replicaOnlyUuid = UUID.randomUUID().toString();
+        replicaJdbcTemplate.update("insert into timeseries_group (id) values (cast(? as uuid))", replicaOnlyUuid);
+        assertTrue(getAllIds().containsAll(List.of(uuid, replicaOnlyUuid)));
+
+        // written again on the primary, not replicated yet: read from the primary
+        Timestamp now = Timestamp.from(Instant.now());
+        primaryJdbcTemplate.update("update timeseries_group set last_write_date = ? where id = cast(? as uuid)", now, uuid);
+        assertArrayEquals(new double[] {2d, 3d, 4d}, getValues(uuid), 0);
+        mockMvc.perform(get("/v1/timeseries-group/{uuid}/statistics", uuid))
+            .andExpectAll(status().isOk(), content().json("{\"first\": {\"count\": 3}}"));
+        // the same write long ago on the primary, still not replicated: the metadata are read from the primary
+        Timestamp old = Timestamp.from(OLD.plusSeconds(1));
+        primaryJdbcTemplate.update("update timeseries_group set last_write_date = ? where id = cast(? as uuid)", old, uuid);
+        mockMvc.perform(get("/v1/timeseries-group/{uuid}/metadata?withStatistics=true", uuid))
+            .andExpectAll(status().isOk(), content().json("{\"statistics\": {\"first\": {\"count\": 3}}}"));
+        // the write replicated: the metadata are read from the replica again
+        replicaJdbcTemplate.update("update timeseries_group set last_write_date = ? where id = cast(? as uuid)", old, uuid);
+        mockMvc.perform(get("/v1/timeseries-group/{uuid}/statistics", uuid))
+            .andExpectAll(status().isOk(), content().json("{\"first\": {\"count\": 30}}"));
+
+        // deleted on the primary, still on the replica: not listed
+        mockMvc.perform(delete("/v1/timeseries-group/{uuid}", uuid)).andExpect(status().isOk());
+        assertEquals(1, replicaJdbcTemplate.queryForObject("select count(*) from timeseries_group where id = cast(? as uuid)", Integer.class, uuid));
+        assertFalse(getAllIds().contains(uuid));
+
+        // replica down: read from the primary
+        String uuid2 = create(tsRef);
+        replicate(uuid2);
+        assertArrayEquals(new double[] {20d, 30d, 40d}, getValues(uuid2), 0);
+        REPLICA.stop();
+        assertArrayEquals(new double[] {2d, 3d, 4d}, getValues(uuid2), 0);
+        assertTrue(getAllIds().contains(uuid2));
+        assertFalse(getAllIds().contains(replicaOnlyUuid));
+        mockMvc.perform(delete("/v1/timeseries-group/{uuid}", uuid2)).andExpect(status().isOk());
+    }
+}